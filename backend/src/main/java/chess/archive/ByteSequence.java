@@ -0,0 +1,44 @@
+package chess.archive;
+
+/**
+ * A view of ASCII text stored as bytes, so that text read from a file can be parsed without
+ * decoding it into characters first.
+ */
+final class ByteSequence implements CharSequence {
+    private final byte[] bytes;
+    private final int offset;
+    private final int length;
+
+    ByteSequence(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Invalid range " + start + " to " + end);
+        }
+        return new ByteSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        var builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(charAt(i));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package chess.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a file written by {@link GameRecordWriter} through memory mapping. The games are indexed
+ * when the file is opened, by skipping from one game header to the next, so that any game may then
+ * be read by its index. Games are only replayed through the backend when asked for.
+ * <p> A mapping may not exceed two gigabytes, so the file is mapped in segments. Each segment
+ * overlaps the next one by the size of the largest possible game, so that every game can be read
+ * from the segment in which it starts.
+ */
+public final class GameRecordReader implements Closeable, Iterable<RecordedGame> {
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final long segmentBytes;
+    private final MappedByteBuffer[] segments;
+    private long[] offsets = new long[1024];
+    private int size;
+
+    public GameRecordReader(Path path) throws IOException {
+        this(path, SEGMENT_BYTES);
+    }
+
+    /**
+     * @param segmentBytes the distance between the starts of two segments, which tests make small
+     *                     so that games straddle segments without a file of gigabytes
+     */
+    GameRecordReader(Path path, long segmentBytes) throws IOException {
+        this.segmentBytes = segmentBytes;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        long fileSize = channel.size();
+        segments = new MappedByteBuffer[(int) ((fileSize + segmentBytes - 1) / segmentBytes)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = i * segmentBytes;
+            long length = Math.min(segmentBytes + GameRecordWriter.MAX_GAME_BYTES,
+                    fileSize - start);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+        if (fileSize < GameRecordWriter.FILE_HEADER_BYTES
+                || segments[0].getInt(0) != GameRecordWriter.MAGIC) {
+            channel.close();
+            throw new IOException("Not a game record file: " + path);
+        }
+        indexGames(fileSize);
+    }
+
+    private void indexGames(long fileSize) throws IOException {
+        long offset = GameRecordWriter.FILE_HEADER_BYTES;
+        while (offset < fileSize) {
+            if (fileSize - offset < GameRecordWriter.GAME_HEADER_BYTES) {
+                throw new IOException("Truncated game at byte " + offset);
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * size);
+            }
+            offsets[size++] = offset;
+            var segment = segment(offset);
+            int position = position(offset);
+            int plies = Short.toUnsignedInt(segment.getShort(position));
+            int fenLength = Byte.toUnsignedInt(segment.get(position + 3));
+            offset += GameRecordWriter.GAME_HEADER_BYTES + fenLength + plies * Short.BYTES;
+        }
+        if (offset != fileSize) {
+            throw new IOException("Truncated game at byte " + offsets[size - 1]);
+        }
+    }
+
+    /**
+     * @return the amount of games in the file
+     */
+    public int size() {
+        return size;
+    }
+
+    public RecordedGame get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("There is no game " + index);
+        }
+        long offset = offsets[index];
+        return new RecordedGame(segment(offset), position(offset));
+    }
+
+    @Override
+    public Iterator<RecordedGame> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public RecordedGame next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    private MappedByteBuffer segment(long offset) {
+        return segments[(int) (offset / segmentBytes)];
+    }
+
+    private int position(long offset) {
+        return (int) (offset % segmentBytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
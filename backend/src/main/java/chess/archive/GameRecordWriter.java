@@ -0,0 +1,94 @@
+package chess.archive;
+
+import chess.backend.Game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends games to a binary game record file. The file starts with a four byte magic number, and
+ * each game is stored as:
+ * <p> 2 bytes: the amount of plies
+ * <p> 1 byte: the result, as the ordinal of {@link GameResult}
+ * <p> 1 byte: the length of the starting position in FEN, or zero for the initial position
+ * <p> the starting position in FEN, as ASCII
+ * <p> 2 bytes per ply: the move, as packed by {@link chess.backend.EncodedMove}
+ */
+public final class GameRecordWriter implements Closeable {
+    static final int MAGIC = 0x43475231;
+    static final int FILE_HEADER_BYTES = Integer.BYTES;
+    static final int GAME_HEADER_BYTES = 4;
+    static final int MAX_PLIES = 0xFFFF;
+    static final int MAX_FEN_BYTES = 0xFF;
+    static final int MAX_GAME_BYTES = GAME_HEADER_BYTES + MAX_FEN_BYTES + MAX_PLIES * Short.BYTES;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public GameRecordWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            buffer.putInt(MAGIC);
+        }
+    }
+
+    /**
+     * Appends every move played so far in the game. Games are buffered, and are only guaranteed to
+     * be in the file once the writer is flushed or closed.
+     */
+    public synchronized void append(Game game, GameResult result) throws IOException {
+        int plies = game.plyCount();
+        if (plies > MAX_PLIES) {
+            throw new IllegalArgumentException("Game is longer than " + MAX_PLIES + " plies");
+        }
+        byte[] fen = (game.startFen() == null)
+                ? new byte[0] : game.startFen().getBytes(StandardCharsets.US_ASCII);
+        if (fen.length > MAX_FEN_BYTES) {
+            throw new IllegalArgumentException("Starting position is too long");
+        }
+        int size = GAME_HEADER_BYTES + fen.length + plies * Short.BYTES;
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        var target = (buffer.remaining() < size) ? ByteBuffer.allocate(size) : buffer;
+        target.putShort((short) plies);
+        target.put((byte) result.ordinal());
+        target.put((byte) fen.length);
+        target.put(fen);
+        for (int i = 0; i < plies; i++) {
+            target.putShort(game.moveAt(i));
+        }
+        if (target != buffer) {
+            target.flip();
+            write(target);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        write(buffer);
+        buffer.clear();
+    }
+
+    private void write(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
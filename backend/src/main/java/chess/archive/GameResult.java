@@ -0,0 +1,42 @@
+package chess.archive;
+
+import chess.backend.GameStatus;
+
+/**
+ * The result of an archived game, as written at the end of its move text.
+ */
+public enum GameResult {
+    UNKNOWN("*"),
+    WHITE_WINS("1-0"),
+    BLACK_WINS("0-1"),
+    DRAW("1/2-1/2");
+
+    private final String text;
+
+    GameResult(String text) {
+        this.text = text;
+    }
+
+    public static GameResult of(GameStatus status) {
+        switch (status) {
+            case WHITE_WINS:
+            case WHITE_WINS_ON_TIME:
+                return WHITE_WINS;
+            case BLACK_WINS:
+            case BLACK_WINS_ON_TIME:
+                return BLACK_WINS;
+            case STALEMATE:
+            case TOO_MANY_MOVES:
+            case TOO_MANY_REPETITIONS:
+            case INSUFFICIENT_MATING:
+                return DRAW;
+            default:
+                return UNKNOWN;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,56 @@
+package chess.archive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only region of a file made of fixed size records, which is memory mapped in segments since
+ * a mapping may not exceed two gigabytes. Segments hold a whole amount of records, so no record is
+ * split between two segments.
+ */
+final class MappedRegion {
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+    private final long recordsPerSegment;
+    private final int recordBytes;
+
+    MappedRegion(FileChannel channel, long start, long records, int recordBytes)
+            throws IOException {
+        this.recordBytes = recordBytes;
+        recordsPerSegment = MAX_SEGMENT_BYTES / recordBytes;
+        segments = new MappedByteBuffer[(int) ((records + recordsPerSegment - 1)
+                / recordsPerSegment)];
+        for (int i = 0; i < segments.length; i++) {
+            long first = i * recordsPerSegment;
+            long length = Math.min(recordsPerSegment, records - first) * recordBytes;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    start + first * recordBytes, length);
+        }
+    }
+
+    long getLong(long record, int field) {
+        return segment(record).getLong(position(record) + field);
+    }
+
+    int getInt(long record, int field) {
+        return segment(record).getInt(position(record) + field);
+    }
+
+    short getShort(long record, int field) {
+        return segment(record).getShort(position(record) + field);
+    }
+
+    byte get(long record, int field) {
+        return segment(record).get(position(record) + field);
+    }
+
+    private MappedByteBuffer segment(long record) {
+        return segments[(int) (record / recordsPerSegment)];
+    }
+
+    private int position(long record) {
+        return (int) (record % recordsPerSegment) * recordBytes;
+    }
+}
@@ -0,0 +1,28 @@
+package chess.archive;
+
+/**
+ * The text of one game in a PGN archive, and where it starts in the file.
+ */
+final class PgnGame {
+    private final long offset;
+    private final byte[] bytes;
+    private final int length;
+
+    PgnGame(long offset, byte[] bytes, int length) {
+        this.offset = offset;
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    long offset() {
+        return offset;
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int length() {
+        return length;
+    }
+}
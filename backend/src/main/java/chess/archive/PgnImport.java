@@ -0,0 +1,58 @@
+package chess.archive;
+
+import chess.backend.Game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command line tool which validates a PGN archive through the backend, and reports the games which
+ * could not be played along with where they are in the file. The valid games may also be written to
+ * a game record file.
+ * <p> Usage: PgnImport archive.pgn [threads] [records.cgr]
+ */
+public final class PgnImport {
+    private PgnImport() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: PgnImport archive.pgn [threads] [records.cgr]");
+            System.exit(2);
+        }
+        var path = Path.of(args[0]);
+        int threads = (args.length > 1)
+                ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        var valid = new AtomicLong();
+        var plies = new AtomicLong();
+        var reader = new PgnReader(threads);
+        long start = System.nanoTime();
+        long games;
+        try (var records = (args.length > 2) ? new GameRecordWriter(Path.of(args[2])) : null) {
+            games = reader.read(path, new PgnReader.Listener() {
+                @Override
+                public void onGame(long offset, Game game, GameResult result) {
+                    valid.incrementAndGet();
+                    plies.addAndGet(game.plyCount());
+                    if (records != null) {
+                        try {
+                            records.append(game, result);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                }
+
+                @Override
+                public void onError(long offset, String message) {
+                    System.err.println(path + " at byte " + offset + ": " + message);
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d rejected, %d plies in %.2f s (%.0f games/s)%n",
+                games, games - valid.get(), plies.get(), seconds, games / seconds);
+    }
+}
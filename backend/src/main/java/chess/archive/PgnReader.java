@@ -0,0 +1,200 @@
+package chess.archive;
+
+import chess.backend.Game;
+import chess.backend.GameStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Streams the games of a PGN archive and plays every move through the backend. One thread reads
+ * the file through a channel and splits it into games, and a fixed number of threads validate the
+ * games. They are connected by a bounded queue, so memory use does not depend on the file size.
+ */
+public final class PgnReader {
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int QUEUED_GAMES_PER_THREAD = 16;
+    private static final PgnGame END = new PgnGame(-1, new byte[0], 0);
+
+    private final int threads;
+
+    /**
+     * Receives the outcome of each game. Methods are called concurrently from the validating
+     * threads, and the order of the games is not kept.
+     */
+    public interface Listener {
+        void onGame(long offset, Game game, GameResult result);
+
+        void onError(long offset, String message);
+    }
+
+    public PgnReader(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least one thread");
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @return the amount of games which were read, both valid and invalid
+     */
+    public long read(Path path, Listener listener) throws IOException, InterruptedException {
+        var queue = new ArrayBlockingQueue<PgnGame>(threads * QUEUED_GAMES_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        var workers = new ArrayList<Future<?>>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> validateAll(queue, listener)));
+        }
+        long games;
+        try {
+            games = split(path, queue);
+        } finally {
+            for (int i = 0; i < threads; i++) {
+                queue.put(END);
+            }
+            executor.shutdown();
+        }
+        for (var worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Listener failed", e.getCause());
+            }
+        }
+        return games;
+    }
+
+    /**
+     * A new game starts at a tag line once the previous game has had move text. Braces may contain
+     * line breaks, so a tag is only recognized outside of comments.
+     */
+    private static long split(Path path, BlockingQueue<PgnGame> queue)
+            throws IOException, InterruptedException {
+        long games = 0;
+        var buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        byte[] game = new byte[4096];
+        int length = 0;
+        long gameOffset = 0;
+        long offset = 0;
+        boolean isLineStart = true;
+        boolean isInComment = false;
+        boolean isInLine = false;
+        boolean hasMoves = false;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (isLineStart && b == '[' && !isInComment && hasMoves) {
+                        queue.put(new PgnGame(gameOffset, Arrays.copyOf(game, length), length));
+                        games++;
+                        gameOffset = offset;
+                        length = 0;
+                        hasMoves = false;
+                    }
+                    if (length == game.length) {
+                        game = Arrays.copyOf(game, 2 * length);
+                    }
+                    game[length++] = b;
+                    offset++;
+                    if (isInComment) {
+                        isInComment = b != '}';
+                    } else if (isInLine) {
+                        isInLine = b != '\n';
+                    } else if (b == '{') {
+                        isInComment = true;
+                    } else if (b == ';' || (isLineStart && (b == '[' || b == '%'))) {
+                        isInLine = b != '\n';
+                    } else if (b > ' ') {
+                        hasMoves = true;
+                    }
+                    isLineStart = b == '\n';
+                }
+                buffer.clear();
+            }
+        }
+        if (hasMoves) {
+            queue.put(new PgnGame(gameOffset, Arrays.copyOf(game, length), length));
+            games++;
+        }
+        return games;
+    }
+
+    /**
+     * Keeps taking games after the listener fails, so that the splitting thread is never blocked by
+     * a full queue, and the failure is then reported by {@link #read}.
+     */
+    private static void validateAll(BlockingQueue<PgnGame> queue, Listener listener) {
+        RuntimeException failure = null;
+        try {
+            for (var game = queue.take(); game != END; game = queue.take()) {
+                if (failure == null) {
+                    try {
+                        validate(game, listener);
+                    } catch (RuntimeException e) {
+                        failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void validate(PgnGame pgn, Listener listener) {
+        var text = new ByteSequence(pgn.bytes(), 0, pgn.length());
+        var tokens = new PgnTokenizer(text);
+        CharSequence fen = null;
+        Game game = null;
+        GameStatus status = GameStatus.ONGOING;
+        var result = GameResult.UNKNOWN;
+        try {
+            var token = tokens.next();
+            for (; token != PgnTokenizer.Token.END; token = tokens.next()) {
+                if (token == PgnTokenizer.Token.TAG && tokens.isTag("FEN")) {
+                    fen = text.subSequence(tokens.valueStart(), tokens.valueEnd());
+                } else if (token == PgnTokenizer.Token.MOVE) {
+                    if (game == null) {
+                        game = (fen == null) ? new Game() : Game.fromFen(fen);
+                    }
+                    if (isDecisive(status)) {
+                        throw new IllegalArgumentException("Move after the game ended");
+                    }
+                    status = game.playSan(text, tokens.start(), tokens.end());
+                } else if (token == PgnTokenizer.Token.RESULT) {
+                    result = tokens.result();
+                }
+            }
+            if (game == null) {
+                game = (fen == null) ? new Game() : Game.fromFen(fen);
+            }
+        } catch (RuntimeException e) {
+            listener.onError(pgn.offset() + tokens.start(), e.getMessage());
+            return;
+        }
+        listener.onGame(pgn.offset(), game, result);
+    }
+
+    /**
+     * A draw by the fifty move rule or by repetition must be claimed, so archived games may go on
+     * after the backend first reports them.
+     */
+    private static boolean isDecisive(GameStatus status) {
+        return status == GameStatus.WHITE_WINS || status == GameStatus.BLACK_WINS
+                || status == GameStatus.STALEMATE || status == GameStatus.INSUFFICIENT_MATING;
+    }
+}
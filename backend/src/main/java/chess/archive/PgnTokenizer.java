@@ -0,0 +1,184 @@
+package chess.archive;
+
+/**
+ * Splits the text of one game into tags, moves and the result. Comments, variations, annotation
+ * glyphs and move numbers are skipped. Tokens are reported as ranges of the text rather than as new
+ * objects.
+ */
+final class PgnTokenizer {
+    enum Token {
+        TAG,
+        MOVE,
+        RESULT,
+        END
+    }
+
+    private final CharSequence text;
+    private int index;
+    private int start;
+    private int end;
+    private int valueStart;
+    private int valueEnd;
+
+    PgnTokenizer(CharSequence text) {
+        this.text = text;
+    }
+
+    Token next() {
+        while (index < text.length()) {
+            char c = text.charAt(index);
+            if (c <= ' ' || c == '.' || c == ')') {
+                index++;
+            } else if (c == '[') {
+                readTag();
+                return Token.TAG;
+            } else if (c == '{') {
+                index = skipPast(index + 1, '}');
+            } else if (c == ';' || (c == '%' && isLineStart(index))) {
+                index = skipPast(index + 1, '\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                index = skipWhile(index + 1, true);
+            } else {
+                start = index;
+                end = skipWhile(index, false);
+                index = end;
+                if (isResult()) {
+                    return Token.RESULT;
+                }
+                if (isMove()) {
+                    return Token.MOVE;
+                }
+            }
+        }
+        start = index;
+        end = index;
+        return Token.END;
+    }
+
+    int start() {
+        return start;
+    }
+
+    int end() {
+        return end;
+    }
+
+    int valueStart() {
+        return valueStart;
+    }
+
+    int valueEnd() {
+        return valueEnd;
+    }
+
+    boolean isTag(String name) {
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (text.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void readTag() {
+        start = index + 1;
+        end = start;
+        while (end < text.length() && text.charAt(end) > ' ' && text.charAt(end) != '"') {
+            end++;
+        }
+        valueStart = skipPast(end, '"');
+        valueEnd = valueStart;
+        while (valueEnd < text.length() && text.charAt(valueEnd) != '"') {
+            valueEnd += text.charAt(valueEnd) == '\\' ? 2 : 1;
+        }
+        valueEnd = Math.min(valueEnd, text.length());
+        index = skipPast(valueEnd, ']');
+    }
+
+    /**
+     * Move numbers may be written without a space before the move, as in "1.e4", so the number is
+     * removed from the start of the token.
+     */
+    private boolean isMove() {
+        int number = start;
+        while (number < end && Character.isDigit(text.charAt(number))) {
+            number++;
+        }
+        if (number == end || text.charAt(number) == '.') {
+            while (number < end && text.charAt(number) == '.') {
+                number++;
+            }
+            start = number;
+            return start < end;
+        }
+        return true;
+    }
+
+    GameResult result() {
+        if (end - start == 1) {
+            return GameResult.UNKNOWN;
+        }
+        if (end - start == 3) {
+            return (text.charAt(start) == '1') ? GameResult.WHITE_WINS : GameResult.BLACK_WINS;
+        }
+        return GameResult.DRAW;
+    }
+
+    private boolean isResult() {
+        int length = end - start;
+        if (length == 1 && text.charAt(start) == '*') {
+            return true;
+        }
+        char first = text.charAt(start);
+        char last = text.charAt(end - 1);
+        boolean isDecisive = (first == '1' && last == '0') || (first == '0' && last == '1');
+        return (length == 3 && isDecisive && text.charAt(start + 1) == '-')
+                || (length == 7 && first == '1' && text.charAt(start + 1) == '/' && last == '2');
+    }
+
+    private void skipVariation() {
+        int depth = 0;
+        do {
+            char c = text.charAt(index);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                index = skipPast(index + 1, '}') - 1;
+            } else if (c == ';') {
+                index = skipPast(index + 1, '\n') - 1;
+            }
+            index++;
+        } while (depth > 0 && index < text.length());
+    }
+
+    private int skipWhile(int i, boolean isDigit) {
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            boolean isEnd = isDigit ? !Character.isDigit(c) : c <= ' ' || c == '{' || c == '('
+                    || c == ')' || c == ';';
+            if (isEnd) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private int skipPast(int i, char c) {
+        while (i < text.length() && text.charAt(i) != c) {
+            i++;
+        }
+        return Math.min(i + 1, text.length());
+    }
+
+    private boolean isLineStart(int i) {
+        return i == 0 || text.charAt(i - 1) == '\n';
+    }
+}
@@ -0,0 +1,174 @@
+package chess.archive;
+
+import chess.backend.Game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Answers which games reached a position, and which moves were played from it, from a file written
+ * by {@link PositionIndexBuilder}. The file is memory mapped, so it is not read onto the heap,
+ * and a query is a binary search followed by reading the few records of the position.
+ * <p> The file starts with a header record, holding a magic number, the amount of move records and
+ * the amount of game ids. The move records follow, sorted by position hash, each holding:
+ * <p> 8 bytes: the hash of the position, as given by {@link Game#positionHash()}
+ * <p> 8 bytes: the index of the first game id of the move
+ * <p> 4 bytes each: the amount of games, white wins, black wins and draws
+ * <p> 2 bytes: the move, as packed by {@link chess.backend.EncodedMove}
+ * <p> 1 byte: one if white is to move in the position, or zero otherwise
+ * <p> The game ids follow as four bytes each, grouped by move record, and sorted within a group.
+ */
+public final class PositionIndex implements Closeable {
+    static final int MAGIC = 0x43504931;
+    static final int RECORD_BYTES = 40;
+    static final int HASH = 0;
+    static final int FIRST_GAME = 8;
+    static final int GAMES = 16;
+    static final int WHITE_WINS = 20;
+    static final int BLACK_WINS = 24;
+    static final int DRAWS = 28;
+    static final int MOVE = 32;
+    static final int WHITE_TO_MOVE = 34;
+    static final int HEADER_MOVE_RECORDS = 8;
+    static final int HEADER_GAME_IDS = 16;
+
+    private final FileChannel channel;
+    private final MappedRegion records;
+    private final MappedRegion gameIds;
+    private final long size;
+
+    public PositionIndex(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < RECORD_BYTES) {
+                throw new IOException("Not a position index: " + path);
+            }
+            var header = new MappedRegion(channel, 0, 1, RECORD_BYTES);
+            size = header.getLong(0, HEADER_MOVE_RECORDS);
+            long ids = header.getLong(0, HEADER_GAME_IDS);
+            long idsStart = RECORD_BYTES * (size + 1);
+            if (header.getInt(0, 0) != MAGIC || channel.size() != idsStart + ids * Integer.BYTES) {
+                throw new IOException("Not a position index: " + path);
+            }
+            records = new MappedRegion(channel, RECORD_BYTES, size, RECORD_BYTES);
+            gameIds = new MappedRegion(channel, idsStart, ids, Integer.BYTES);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A move played from a position, with the results of the games in which it was played.
+     */
+    public static final class Candidate {
+        private final short move;
+        private final boolean isWhiteToMove;
+        private final int games;
+        private final int whiteWins;
+        private final int blackWins;
+        private final int draws;
+        private final long firstGame;
+
+        private Candidate(MappedRegion records, long record) {
+            move = records.getShort(record, MOVE);
+            isWhiteToMove = records.get(record, WHITE_TO_MOVE) != 0;
+            games = records.getInt(record, GAMES);
+            whiteWins = records.getInt(record, WHITE_WINS);
+            blackWins = records.getInt(record, BLACK_WINS);
+            draws = records.getInt(record, DRAWS);
+            firstGame = records.getLong(record, FIRST_GAME);
+        }
+
+        public short move() {
+            return move;
+        }
+
+        public int games() {
+            return games;
+        }
+
+        public int whiteWins() {
+            return whiteWins;
+        }
+
+        public int blackWins() {
+            return blackWins;
+        }
+
+        public int draws() {
+            return draws;
+        }
+
+        /**
+         * @return the share of points scored by the side which played the move, from zero to one,
+         * or NaN if none of its games have a known result
+         */
+        public double score() {
+            int wins = isWhiteToMove ? whiteWins : blackWins;
+            int losses = isWhiteToMove ? blackWins : whiteWins;
+            return (wins + draws / 2.0) / (wins + draws + losses);
+        }
+    }
+
+    /**
+     * @return the amount of distinct position and move pairs in the index
+     */
+    public long size() {
+        return size;
+    }
+
+    public List<Candidate> candidates(Game game) {
+        return candidates(game.positionHash());
+    }
+
+    /**
+     * @return the moves played from the position with the given hash, most played first, or an
+     * empty list if no game reached it
+     */
+    public List<Candidate> candidates(long hash) {
+        var candidates = new ArrayList<Candidate>();
+        for (long i = firstRecord(hash); i < size && records.getLong(i, HASH) == hash; i++) {
+            candidates.add(new Candidate(records, i));
+        }
+        candidates.sort(Comparator.comparingInt(Candidate::games).reversed());
+        return candidates;
+    }
+
+    /**
+     * @return the ids of at most the given amount of games in which the move was played, in
+     * increasing order, which are the indices of the games in the indexed game record file
+     */
+    public int[] games(Candidate candidate, int limit) {
+        var games = new int[Math.min(candidate.games, limit)];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = gameIds.getInt(candidate.firstGame + i, 0);
+        }
+        return games;
+    }
+
+    private long firstRecord(long hash) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (records.getLong(middle, HASH) < hash) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,382 @@
+package chess.archive;
+
+import chess.backend.Game;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command line tool which writes a {@link PositionIndex} for a game record file. Games are replayed
+ * on every core, and each position reached is added to a per thread run along with the move played
+ * from it. Full runs are sorted and written to temporary files, so that archives larger than memory
+ * can be indexed, and the runs are then merged into the index.
+ * <p> Usage: PositionIndexBuilder games.cgr index.cpi [threads] [plies]
+ */
+public final class PositionIndexBuilder {
+    private static final int RUN_ENTRIES = 1 << 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MOVE_SHIFT = 48;
+    private static final int GAME_SHIFT = 16;
+    private static final int RESULT_SHIFT = 8;
+    private static final int INSERTION_SORT_ENTRIES = 16;
+
+    private final GameRecordReader reader;
+    private final Path directory;
+    private final int maxPlies;
+    private final int runEntries;
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final List<Path> runs = Collections.synchronizedList(new ArrayList<>());
+
+    private PositionIndexBuilder(GameRecordReader reader, Path directory, int maxPlies,
+            int runEntries) {
+        this.reader = reader;
+        this.directory = directory;
+        this.maxPlies = maxPlies;
+        this.runEntries = runEntries;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: PositionIndexBuilder games.cgr index.cpi [threads] [plies]");
+            System.exit(2);
+        }
+        int threads = (args.length > 2)
+                ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int plies = (args.length > 3) ? Integer.parseInt(args[3]) : GameRecordWriter.MAX_PLIES;
+        long start = System.nanoTime();
+        try (var reader = new GameRecordReader(Path.of(args[0]))) {
+            long size = build(reader, Path.of(args[1]), threads, plies);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Indexed %d games into %d moves in %.1f s (%.0f games/s)%n",
+                    reader.size(), size, seconds, reader.size() / seconds);
+        }
+    }
+
+    /**
+     * Indexes the positions reached in the first given amount of plies of each game.
+     *
+     * @return the amount of distinct position and move pairs in the index
+     */
+    public static long build(GameRecordReader reader, Path index, int threads, int maxPlies)
+            throws IOException, InterruptedException {
+        return build(reader, index, threads, maxPlies, RUN_ENTRIES);
+    }
+
+    /**
+     * @param runEntries how many entries each thread sorts in memory before writing them as a run
+     */
+    static long build(GameRecordReader reader, Path index, int threads, int maxPlies,
+            int runEntries) throws IOException, InterruptedException {
+        var directory = index.toAbsolutePath().getParent();
+        var builder = new PositionIndexBuilder(reader, directory, maxPlies, runEntries);
+        try {
+            builder.writeRuns(threads);
+            return builder.merge(index);
+        } finally {
+            for (var run : builder.runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+    }
+
+    private void writeRuns(int threads) throws IOException, InterruptedException {
+        var executor = Executors.newFixedThreadPool(threads);
+        var workers = new ArrayList<Future<?>>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(this::indexGames));
+        }
+        executor.shutdown();
+        for (var worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IllegalStateException("Indexing thread failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Each entry is two longs, the position hash followed by the move, game id, result and side to
+     * move, packed so that sorting entries groups them by position, then by move, then by game.
+     */
+    private void indexGames() {
+        var entries = new long[2 * runEntries];
+        int size = 0;
+        for (int id = nextGame.getAndIncrement(); id < reader.size();
+                id = nextGame.getAndIncrement()) {
+            var recorded = reader.get(id);
+            var game = recorded.replay(0);
+            int plies = Math.min(recorded.plyCount(), maxPlies);
+            long gameBits = (long) id << GAME_SHIFT | recorded.result().ordinal() << RESULT_SHIFT;
+            for (int ply = 0; ply < plies; ply++) {
+                if (size == runEntries) {
+                    writeRun(entries, size);
+                    size = 0;
+                }
+                short move = recorded.moveAt(ply);
+                entries[2 * size] = game.positionHash();
+                entries[2 * size + 1] = (long) (move & 0xFFFF) << MOVE_SHIFT | gameBits
+                        | (game.isWhiteTurn() ? 1 : 0);
+                size++;
+                game.play(move);
+            }
+        }
+        if (size > 0) {
+            writeRun(entries, size);
+        }
+    }
+
+    private void writeRun(long[] entries, int size) {
+        sort(entries, 0, size - 1);
+        try {
+            var run = Files.createTempFile(directory, "positions", ".run");
+            runs.add(run);
+            try (var channel = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                for (int i = 0; i < 2 * size; i++) {
+                    if (!buffer.hasRemaining()) {
+                        write(channel, buffer);
+                    }
+                    buffer.putLong(entries[i]);
+                }
+                write(channel, buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sort(long[] entries, int low, int high) {
+        while (high - low > INSERTION_SORT_ENTRIES) {
+            int middle = (low + high) >>> 1;
+            long pivotHash = entries[2 * middle];
+            long pivotRest = entries[2 * middle + 1];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(entries, i, pivotHash, pivotRest) < 0) {
+                    i++;
+                }
+                while (compare(entries, j, pivotHash, pivotRest) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(entries, i++, j--);
+                }
+            }
+            if (j - low < high - i) {
+                sort(entries, low, j);
+                low = i;
+            } else {
+                sort(entries, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low
+                    && compare(entries, j, entries[2 * j - 2], entries[2 * j - 1]) < 0; j--) {
+                swap(entries, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(long[] entries, int entry, long hash, long rest) {
+        int order = Long.compare(entries[2 * entry], hash);
+        return (order != 0) ? order : Long.compare(entries[2 * entry + 1], rest);
+    }
+
+    private static void swap(long[] entries, int first, int second) {
+        for (int i = 0; i < 2; i++) {
+            long temp = entries[2 * first + i];
+            entries[2 * first + i] = entries[2 * second + i];
+            entries[2 * second + i] = temp;
+        }
+    }
+
+    /**
+     * Reads a sorted run one entry at a time.
+     */
+    private static final class RunCursor {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long hash;
+        private long rest;
+
+        private RunCursor(Path run) throws IOException {
+            channel = FileChannel.open(run, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        private boolean advance() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Runs are a whole amount of entries, so keep reading until the buffer is full
+                }
+                buffer.flip();
+                if (!buffer.hasRemaining()) {
+                    channel.close();
+                    return false;
+                }
+            }
+            hash = buffer.getLong();
+            rest = buffer.getLong();
+            return true;
+        }
+
+        private int compareTo(RunCursor other) {
+            int order = Long.compare(hash, other.hash);
+            return (order != 0) ? order : Long.compare(rest, other.rest);
+        }
+    }
+
+    private long merge(Path index) throws IOException {
+        var queue = new PriorityQueue<RunCursor>(Math.max(1, runs.size()), RunCursor::compareTo);
+        var ids = Files.createTempFile(directory, "games", ".run");
+        try (var output = FileChannel.open(index, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             var idsOutput = FileChannel.open(ids, StandardOpenOption.WRITE)) {
+            for (var run : runs) {
+                var cursor = new RunCursor(run);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            var merger = new Merger(output, idsOutput);
+            while (!queue.isEmpty()) {
+                var cursor = queue.poll();
+                merger.add(cursor.hash, cursor.rest);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            merger.finish();
+            try (var idsInput = FileChannel.open(ids, StandardOpenOption.READ)) {
+                long position = output.size();
+                long length = idsInput.size();
+                for (long copied = 0; copied < length; ) {
+                    copied += output.transferFrom(idsInput, position + copied, length - copied);
+                }
+            }
+            return merger.records;
+        } finally {
+            for (var cursor : queue) {
+                cursor.channel.close();
+            }
+            Files.delete(ids);
+        }
+    }
+
+    /**
+     * Groups the sorted entries into one move record per position and move, and writes the ids of
+     * their games to a separate file, which is appended to the index once every record is written.
+     */
+    private static final class Merger {
+        private final FileChannel output;
+        private final FileChannel idsOutput;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final ByteBuffer idsBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long records;
+        private long ids;
+        private long hash;
+        private short move;
+        private boolean isWhiteToMove;
+        private long firstId;
+        private int lastGame = -1;
+        private final int[] results = new int[GameResult.values().length];
+
+        private Merger(FileChannel output, FileChannel idsOutput) throws IOException {
+            this.output = output;
+            this.idsOutput = idsOutput;
+            output.position(PositionIndex.RECORD_BYTES);
+        }
+
+        private void add(long entryHash, long rest) throws IOException {
+            var entryMove = (short) (rest >>> MOVE_SHIFT);
+            int game = (int) (rest >>> GAME_SHIFT);
+            if (lastGame < 0 || entryHash != hash || entryMove != move) {
+                writeRecord();
+                hash = entryHash;
+                move = entryMove;
+                isWhiteToMove = (rest & 1) != 0;
+                firstId = ids;
+            } else if (game == lastGame) {
+                return;
+            }
+            lastGame = game;
+            results[(int) (rest >>> RESULT_SHIFT & 0xFF)]++;
+            if (!idsBuffer.hasRemaining()) {
+                write(idsOutput, idsBuffer);
+            }
+            idsBuffer.putInt(game);
+            ids++;
+        }
+
+        private void writeRecord() throws IOException {
+            if (lastGame < 0) {
+                return;
+            }
+            if (buffer.remaining() < PositionIndex.RECORD_BYTES) {
+                write(output, buffer);
+            }
+            int start = buffer.position();
+            buffer.putLong(hash);
+            buffer.putLong(firstId);
+            buffer.putInt((int) (ids - firstId));
+            buffer.putInt(results[GameResult.WHITE_WINS.ordinal()]);
+            buffer.putInt(results[GameResult.BLACK_WINS.ordinal()]);
+            buffer.putInt(results[GameResult.DRAW.ordinal()]);
+            buffer.putShort(move);
+            buffer.put((byte) (isWhiteToMove ? 1 : 0));
+            pad(buffer, start + PositionIndex.RECORD_BYTES);
+            Arrays.fill(results, 0);
+            records++;
+        }
+
+        private void finish() throws IOException {
+            writeRecord();
+            write(output, buffer);
+            write(idsOutput, idsBuffer);
+            buffer.putInt(PositionIndex.MAGIC);
+            buffer.putInt(0);
+            buffer.putLong(records);
+            buffer.putLong(ids);
+            pad(buffer, PositionIndex.RECORD_BYTES);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                output.write(buffer, buffer.position());
+            }
+        }
+    }
+
+    private static void pad(ByteBuffer buffer, int position) {
+        while (buffer.position() < position) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package chess.archive;
+
+import chess.backend.Game;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A game read from a game record file. Moves are read from the file when asked for, and the game is
+ * only replayed through the backend by {@link #replay}.
+ */
+public final class RecordedGame {
+    private final ByteBuffer buffer;
+    private final int position;
+
+    RecordedGame(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    public int plyCount() {
+        return Short.toUnsignedInt(buffer.getShort(position));
+    }
+
+    public GameResult result() {
+        return GameResult.values()[buffer.get(position + 2)];
+    }
+
+    /**
+     * @return the position which the game started from, or null if it is the initial position
+     */
+    public String startFen() {
+        int length = fenLength();
+        if (length == 0) {
+            return null;
+        }
+        var fen = new byte[length];
+        buffer.slice().position(position + GameRecordWriter.GAME_HEADER_BYTES).get(fen);
+        return new String(fen, StandardCharsets.US_ASCII);
+    }
+
+    public short moveAt(int ply) {
+        if (ply < 0 || ply >= plyCount()) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " was not played");
+        }
+        return buffer.getShort(position + GameRecordWriter.GAME_HEADER_BYTES + fenLength()
+                + ply * Short.BYTES);
+    }
+
+    /**
+     * @return the game with every move played
+     */
+    public Game replay() {
+        return replay(plyCount());
+    }
+
+    /**
+     * @return the game with the first given amount of moves played
+     * @throws IllegalArgumentException if the record contains an illegal move
+     */
+    public Game replay(int plies) {
+        if (plies < 0 || plies > plyCount()) {
+            throw new IndexOutOfBoundsException("Ply " + plies + " was not played");
+        }
+        var fen = startFen();
+        var game = (fen == null) ? new Game() : Game.fromFen(fen);
+        for (int i = 0; i < plies; i++) {
+            game.play(moveAt(i));
+        }
+        return game;
+    }
+
+    private int fenLength() {
+        return Byte.toUnsignedInt(buffer.get(position + 3));
+    }
+}
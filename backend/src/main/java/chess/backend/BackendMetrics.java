@@ -0,0 +1,50 @@
+package chess.backend;
+
+import chess.metrics.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the backend in the {@link MetricsRegistry#global() global registry}, which every
+ * game of the process adds to.
+ */
+final class BackendMetrics {
+    private static final MetricsRegistry REGISTRY = MetricsRegistry.global();
+    static final LongAdder MOVES = REGISTRY.counter("chess_moves_total",
+            "Moves applied to games");
+    static final LongAdder LEGAL_MOVE_GENERATIONS = REGISTRY.counter(
+            "chess_legal_move_generations_total",
+            "Generations of the legal moves of a piece or of a whole position");
+    static final LongAdder CHECK_TESTS = REGISTRY.counter("chess_check_tests_total",
+            "Tests of whether a king would be in check on a square");
+    static final LongAdder REPETITION_ENTRIES = REGISTRY.counter(
+            "chess_repetition_history_entries_total",
+            "Positions added to repetition histories");
+    static final LongAdder REPETITION_CLEARS = REGISTRY.counter(
+            "chess_repetition_history_clears_total",
+            "Repetition histories cleared by a capture, pawn move or castling");
+    static final LongAccumulator REPETITION_MAX_SIZE = new LongAccumulator(Math::max, 0);
+    private static final Map<GameStatus, LongAdder> STATUSES = new EnumMap<>(GameStatus.class);
+
+    static {
+        REGISTRY.gauge("chess_repetition_history_max_size",
+                "Largest amount of positions a repetition history held",
+                REPETITION_MAX_SIZE::get);
+        for (var status : GameStatus.values()) {
+            STATUSES.put(status, REGISTRY.counter(
+                    "chess_status_" + status.name().toLowerCase(Locale.ROOT) + "_total",
+                    "Moves after which a game was " + status));
+        }
+    }
+
+    private BackendMetrics() {
+    }
+
+    static void countStatus(GameStatus status) {
+        STATUSES.get(status).increment();
+    }
+}
@@ -20,6 +20,11 @@ final class Bishop extends Piece {
         super(board, isWhite, pixels);
     }
 
+    @Override
+    char symbol() {
+        return 'B';
+    }
+
     @Override
     boolean isActionLegal(Point start, Point end) {
         return isDiagonalLine(start, end) && isBishopActionLegal(start, end)
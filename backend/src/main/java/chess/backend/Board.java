@@ -1,7 +1,6 @@
 package chess.backend;
 
 import java.awt.Color;
-import java.util.Arrays;
 
 /**
  * Keeps track of the board and which player is currently moving.
@@ -10,21 +9,34 @@ public final class Board {
     public static final int BOARD_LENGTH = 8;
     public static final int BOARD_WIDTH = 8;
     static final int KING_X_COORD = (BOARD_WIDTH - 1) / 2 + 1;
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
 
     private final Piece[][] board = new Piece[BOARD_LENGTH][BOARD_WIDTH];
     private final King whiteKing = new King(this, true);
     private final King blackKing = new King(this, false);
     private Point whiteKingLocation;
     private Point blackKingLocation;
-    private boolean isWhiteTurn = true;
+    private boolean isWhiteTurn;
+    private int plyCount;
 
     Board() {
+        this(true);
         setNonPawnRow(0, false);
         setPawnRow(1, false);
         setPawnRow(BOARD_LENGTH - 2, true);
         setNonPawnRow(BOARD_LENGTH - 1, true);
     }
 
+    /**
+     * Creates a board without any pieces on it, which is populated when loading a position.
+     */
+    Board(boolean isWhiteTurn) {
+        this.isWhiteTurn = isWhiteTurn;
+    }
+
     private void setNonPawnRow(int index, boolean isWhite) {
         board[index][0] = new Rook(this, isWhite);
         board[index][BOARD_WIDTH - 1] = new Rook(this, isWhite);
@@ -55,15 +67,16 @@ public final class Board {
         return board[point.y()][point.x()].getPieceImage();
     }
 
-    Piece[][] copyBoard() {
-        var boardCopy = new Piece[BOARD_LENGTH][BOARD_WIDTH];
-        for (int i = 0; i < BOARD_LENGTH; i++) {
-            boardCopy[i] = Arrays.copyOf(board[i], BOARD_WIDTH);
-        }
-        return boardCopy;
+    /**
+     * @return the amount of times the turn passed since the board was made, which is only used to
+     * tell positions apart in flight recordings
+     */
+    int plyCount() {
+        return plyCount;
     }
 
     void flip() {
+        plyCount++;
         isWhiteTurn = !isWhiteTurn;
         var oppositeWhiteKingLocation = BOARD_LENGTH - 1 - whiteKingLocation.y();
         var oppositeBlackKingLocation = BOARD_LENGTH - 1 - blackKingLocation.y();
@@ -84,6 +97,71 @@ public final class Board {
         }
     }
 
+    void placeKing(boolean isWhite, Point point) {
+        if (isWhite) {
+            board[point.y()][point.x()] = whiteKing;
+            whiteKingLocation = point;
+        } else {
+            board[point.y()][point.x()] = blackKing;
+            blackKingLocation = point;
+        }
+    }
+
+    Point locateKing(boolean isWhite) {
+        return isWhite ? whiteKingLocation : blackKingLocation;
+    }
+
+    boolean isWhiteTurn() {
+        return isWhiteTurn;
+    }
+
+    /**
+     * The board is stored with the side to move at the bottom, so the rows are mapped depending on
+     * whose turn it is. Files and ranks start at zero, from the a-file and from the first rank.
+     */
+    Point square(int file, int rank) {
+        return Point.instance(file, isWhiteTurn ? BOARD_LENGTH - 1 - rank : rank);
+    }
+
+    int rank(Point point) {
+        return isWhiteTurn ? BOARD_LENGTH - 1 - point.y() : point.y();
+    }
+
+    Point square(int index) {
+        return square(EncodedMove.file(index), EncodedMove.rank(index));
+    }
+
+    int squareIndex(Point point) {
+        return EncodedMove.square(point.x(), rank(point));
+    }
+
+    /**
+     * Castling rights are not stored, but are inferred from whether the king and rooks have moved.
+     */
+    int castlingRights() {
+        int rights = 0;
+        if (canStillCastle(true, BOARD_WIDTH - 1)) {
+            rights |= WHITE_KING_SIDE;
+        }
+        if (canStillCastle(true, 0)) {
+            rights |= WHITE_QUEEN_SIDE;
+        }
+        if (canStillCastle(false, BOARD_WIDTH - 1)) {
+            rights |= BLACK_KING_SIDE;
+        }
+        if (canStillCastle(false, 0)) {
+            rights |= BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    private boolean canStillCastle(boolean isWhite, int xCoordRook) {
+        var king = isWhite ? whiteKing : blackKing;
+        var rook = getBoard(square(xCoordRook, isWhite ? 0 : BOARD_LENGTH - 1));
+        return !king.hasMoved() && rook instanceof Rook && rook.isWhite() == isWhite
+                && !rook.hasMoved();
+    }
+
     King getAlliedKing() {
         return isWhiteTurn ? whiteKing : blackKing;
     }
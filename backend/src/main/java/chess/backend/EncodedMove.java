@@ -0,0 +1,121 @@
+package chess.backend;
+
+/**
+ * Packs a move into 16 bits, so that games can be stored and replayed compactly. The lowest six
+ * bits are the destination square, the next six bits are the starting square, and the highest four
+ * bits are the type of move, including which piece a pawn is promoted to. Squares are numbered from
+ * 0 for a1 to 63 for h8, independently of which side is moving.
+ * <p> Castling is stored as the king moving to the square of the rook, which is how
+ * {@link Game#availableMoves} describes it. Zero is never a legal move, so it may mark no move.
+ */
+public final class EncodedMove {
+    public static final short NONE = 0;
+    private static final int SQUARE_BITS = 6;
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    private static final int NORMAL = 0;
+    private static final int QUEEN_SIDE_CASTLE = 1;
+    private static final int KING_SIDE_CASTLE = 2;
+    private static final int EN_PASSANT = 3;
+    private static final int PAWN_PROMOTION = 4;
+    private static final PromotionPiece[] PROMOTIONS = PromotionPiece.values();
+    private static final String PROMOTION_SYMBOLS = "qnrb";
+
+    private EncodedMove() {
+    }
+
+    public static short encode(int from, int to, Move move, PromotionPiece promotion) {
+        int type;
+        switch (move) {
+            case NORMAL:
+                type = NORMAL;
+                break;
+            case QUEEN_SIDE_CASTLE:
+                type = QUEEN_SIDE_CASTLE;
+                break;
+            case KING_SIDE_CASTLE:
+                type = KING_SIDE_CASTLE;
+                break;
+            case EN_PASSANT:
+                type = EN_PASSANT;
+                break;
+            case PAWN_PROMOTION:
+                type = PAWN_PROMOTION + promotion.ordinal();
+                break;
+            default:
+                throw new IllegalArgumentException("Move type cannot be encoded");
+        }
+        return (short) (type << 2 * SQUARE_BITS | from << SQUARE_BITS | to);
+    }
+
+    public static int from(short move) {
+        return move >>> SQUARE_BITS & SQUARE_MASK;
+    }
+
+    public static int to(short move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static Move move(short move) {
+        switch (type(move)) {
+            case NORMAL:
+                return Move.NORMAL;
+            case QUEEN_SIDE_CASTLE:
+                return Move.QUEEN_SIDE_CASTLE;
+            case KING_SIDE_CASTLE:
+                return Move.KING_SIDE_CASTLE;
+            case EN_PASSANT:
+                return Move.EN_PASSANT;
+            default:
+                return Move.PAWN_PROMOTION;
+        }
+    }
+
+    /**
+     * @return the piece which the pawn is promoted to, or null if the move is not a promotion
+     */
+    public static PromotionPiece promotion(short move) {
+        int type = type(move);
+        return (type < PAWN_PROMOTION) ? null : PROMOTIONS[type - PAWN_PROMOTION];
+    }
+
+    public static int square(int file, int rank) {
+        return rank * Board.BOARD_WIDTH + file;
+    }
+
+    public static int file(int square) {
+        return square % Board.BOARD_WIDTH;
+    }
+
+    public static int rank(int square) {
+        return square / Board.BOARD_WIDTH;
+    }
+
+    /**
+     * @return the move in coordinate notation, such as "e2e4" or "e7e8q", where castling is written
+     * as the king moving two squares
+     */
+    public static String toString(short move) {
+        int from = from(move);
+        int to = to(move);
+        int type = type(move);
+        if (type == QUEEN_SIDE_CASTLE || type == KING_SIDE_CASTLE) {
+            int direction = (type == KING_SIDE_CASTLE) ? 2 : -2;
+            to = square(file(from) + direction, rank(from));
+        }
+        var builder = new StringBuilder(5);
+        appendSquare(builder, from);
+        appendSquare(builder, to);
+        if (type >= PAWN_PROMOTION) {
+            builder.append(PROMOTION_SYMBOLS.charAt(type - PAWN_PROMOTION));
+        }
+        return builder.toString();
+    }
+
+    private static void appendSquare(StringBuilder builder, int square) {
+        builder.append((char) ('a' + file(square))).append((char) ('1' + rank(square)));
+    }
+
+    private static int type(short move) {
+        return move >>> 2 * SQUARE_BITS & 0xF;
+    }
+}
@@ -0,0 +1,321 @@
+package chess.backend;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation. Parsing reads the characters in place,
+ * without splitting the text into fields, so that bulk position files can be loaded quickly.
+ */
+final class Fen {
+    static final String INITIAL_POSITION =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    static Game parse(CharSequence fen) {
+        int sideIndex = indexOf(fen, ' ', 0) + 1;
+        if (sideIndex == 0 || sideIndex >= fen.length()) {
+            throw invalid(fen, "missing side to move");
+        }
+        boolean isWhiteTurn;
+        switch (fen.charAt(sideIndex)) {
+            case 'w':
+                isWhiteTurn = true;
+                break;
+            case 'b':
+                isWhiteTurn = false;
+                break;
+            default:
+                throw invalid(fen, "side to move must be 'w' or 'b'");
+        }
+        var board = new Board(isWhiteTurn);
+        parsePlacement(fen, sideIndex - 1, board);
+        int index = skipSpace(fen, sideIndex + 1);
+        int castlingRights = 0;
+        if (index < fen.length() && fen.charAt(index) == '-') {
+            index++;
+        } else {
+            while (index < fen.length() && fen.charAt(index) != ' ') {
+                castlingRights |= castlingRight(fen, fen.charAt(index));
+                index++;
+            }
+        }
+        setMovedPieces(fen, board, castlingRights);
+        index = skipSpace(fen, index);
+        Point enPassant = null;
+        if (index < fen.length() && fen.charAt(index) == '-') {
+            index++;
+        } else {
+            enPassant = parseEnPassant(fen, index, board);
+            index += 2;
+        }
+        int drawCounter = 0;
+        int fullMoveNumber = 1;
+        if (index < fen.length()) {
+            index = skipSpace(fen, index);
+            int end = indexOf(fen, ' ', index);
+            drawCounter = parseNumber(fen, index, end);
+            if (end >= 0) {
+                index = skipSpace(fen, end);
+                end = indexOf(fen, ' ', index);
+                fullMoveNumber = parseNumber(fen, index, end);
+                checkTrailingSpace(fen, end);
+            }
+        }
+        return new Game(board, enPassant, drawCounter, Math.max(1, fullMoveNumber));
+    }
+
+    private static void parsePlacement(CharSequence fen, int end, Board board) {
+        int rank = Board.BOARD_LENGTH - 1;
+        int file = 0;
+        for (int i = 0; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != Board.BOARD_WIDTH || rank == 0) {
+                    throw invalid(fen, "rank " + (rank + 1) + " does not have eight squares");
+                }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                if (file == Board.BOARD_WIDTH) {
+                    throw invalid(fen, "rank " + (rank + 1) + " has more than eight squares");
+                }
+                placePiece(fen, board, c, board.square(file, rank));
+                file++;
+            }
+            if (file > Board.BOARD_WIDTH) {
+                throw invalid(fen, "rank " + (rank + 1) + " has more than eight squares");
+            }
+        }
+        if (rank != 0 || file != Board.BOARD_WIDTH) {
+            throw invalid(fen, "piece placement must describe eight ranks of eight squares");
+        }
+        if (board.locateKing(true) == null || board.locateKing(false) == null) {
+            throw invalid(fen, "both sides must have a king");
+        }
+    }
+
+    private static void placePiece(CharSequence fen, Board board, char symbol, Point point) {
+        boolean isWhite = Character.isUpperCase(symbol);
+        switch (Character.toUpperCase(symbol)) {
+            case 'P':
+                board.setBoard(point, new Pawn(board, isWhite));
+                break;
+            case 'N':
+                board.setBoard(point, new Knight(board, isWhite));
+                break;
+            case 'B':
+                board.setBoard(point, new Bishop(board, isWhite));
+                break;
+            case 'R':
+                board.setBoard(point, new Rook(board, isWhite));
+                break;
+            case 'Q':
+                board.setBoard(point, new Queen(board, isWhite));
+                break;
+            case 'K':
+                if (board.locateKing(isWhite) != null) {
+                    throw invalid(fen, "each side must have exactly one king");
+                }
+                board.placeKing(isWhite, point);
+                break;
+            default:
+                throw invalid(fen, "unknown piece '" + symbol + "'");
+        }
+    }
+
+    private static int castlingRight(CharSequence fen, char c) {
+        switch (c) {
+            case 'K':
+                return Board.WHITE_KING_SIDE;
+            case 'Q':
+                return Board.WHITE_QUEEN_SIDE;
+            case 'k':
+                return Board.BLACK_KING_SIDE;
+            case 'q':
+                return Board.BLACK_QUEEN_SIDE;
+            default:
+                throw invalid(fen, "unknown castling right '" + c + "'");
+        }
+    }
+
+    /**
+     * The board infers castling rights from whether the king and rooks have moved, and a pawn may
+     * only jump two squares if it has not moved, so every other piece is marked as having moved.
+     */
+    private static void setMovedPieces(CharSequence fen, Board board, int castlingRights) {
+        for (int rank = 0; rank < Board.BOARD_LENGTH; rank++) {
+            for (int file = 0; file < Board.BOARD_WIDTH; file++) {
+                var piece = board.getBoard(board.square(file, rank));
+                if (piece != null && !isUnmoved(piece, file, rank, castlingRights)) {
+                    piece.setMove();
+                }
+            }
+        }
+        if (board.castlingRights() != castlingRights) {
+            throw invalid(fen, "castling right without king and rook on their initial squares");
+        }
+    }
+
+    private static boolean isUnmoved(Piece piece, int file, int rank, int castlingRights) {
+        int homeRank = piece.isWhite() ? 0 : Board.BOARD_LENGTH - 1;
+        int kingSide = piece.isWhite() ? Board.WHITE_KING_SIDE : Board.BLACK_KING_SIDE;
+        int queenSide = piece.isWhite() ? Board.WHITE_QUEEN_SIDE : Board.BLACK_QUEEN_SIDE;
+        if (piece instanceof Pawn) {
+            return rank == (piece.isWhite() ? 1 : Board.BOARD_LENGTH - 2);
+        }
+        if (piece instanceof King) {
+            return rank == homeRank && file == Board.KING_X_COORD
+                    && (castlingRights & (kingSide | queenSide)) != 0;
+        }
+        if (piece instanceof Rook && rank == homeRank) {
+            return (file == Board.BOARD_WIDTH - 1 && (castlingRights & kingSide) != 0)
+                    || (file == 0 && (castlingRights & queenSide) != 0);
+        }
+        return false;
+    }
+
+    private static Point parseEnPassant(CharSequence fen, int index, Board board) {
+        if (index + 1 >= fen.length()) {
+            throw invalid(fen, "missing en passant square");
+        }
+        int file = fen.charAt(index) - 'a';
+        int rank = fen.charAt(index + 1) - '1';
+        int expectedRank = board.isWhiteTurn() ? Board.BOARD_LENGTH - 3 : 2;
+        if (file < 0 || file >= Board.BOARD_WIDTH || rank != expectedRank) {
+            throw invalid(fen, "invalid en passant square");
+        }
+        var enPassant = board.square(file, rank);
+        var pawn = board.getBoard(Point.instance(enPassant.x(), enPassant.y() + 1));
+        if (board.getBoard(enPassant) != null || !(pawn instanceof Pawn) || board.isAlly(pawn)) {
+            throw invalid(fen, "en passant square is not behind a pawn which just jumped");
+        }
+        return enPassant;
+    }
+
+    private static int parseNumber(CharSequence fen, int start, int end) {
+        if (end < 0) {
+            end = fen.length();
+        }
+        if (start >= end) {
+            throw invalid(fen, "missing move counter");
+        }
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || number > (Integer.MAX_VALUE - 9) / 10) {
+                throw invalid(fen, "invalid move counter");
+            }
+            number = 10 * number + c - '0';
+        }
+        return number;
+    }
+
+    /**
+     * @param start the index after the last field, or -1 if it runs to the end
+     */
+    private static void checkTrailingSpace(CharSequence fen, int start) {
+        for (int i = (start < 0) ? fen.length() : start; i < fen.length(); i++) {
+            if (fen.charAt(i) != ' ') {
+                throw invalid(fen, "unexpected text after the move counters");
+            }
+        }
+    }
+
+    private static int indexOf(CharSequence fen, char c, int start) {
+        for (int i = start; i < fen.length(); i++) {
+            if (fen.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpace(CharSequence fen, int index) {
+        if (index >= fen.length() || fen.charAt(index) != ' ') {
+            throw invalid(fen, "fields must be separated by a space");
+        }
+        while (index < fen.length() && fen.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN, " + reason + ": " + fen);
+    }
+
+    static String write(Board board, Point enPassant, int drawCounter, int fullMoveNumber) {
+        int enPassantSquare = (enPassant == null) ? -1 : board.squareIndex(enPassant);
+        return write(square -> code(board, square), board.isWhiteTurn(), board.castlingRights(),
+                enPassantSquare, drawCounter, fullMoveNumber);
+    }
+
+    static String write(Position position) {
+        return write(position::pieceAt, position.isWhiteTurn(), position.castlingRights(),
+                position.enPassantSquare(), position.halfMoveClock(), position.fullMoveNumber());
+    }
+
+    static int code(Board board, int square) {
+        var piece = board.getBoard(board.square(square));
+        return (piece == null) ? PieceCode.EMPTY : piece.code();
+    }
+
+    /**
+     * @param pieceAt gives the {@link PieceCode} on each square, from 0 for a1 to 63 for h8
+     * @param enPassantSquare the en passant square, or -1 if there is none
+     */
+    static String write(IntUnaryOperator pieceAt, boolean isWhiteTurn, int castlingRights,
+                        int enPassantSquare, int drawCounter, int fullMoveNumber) {
+        var builder = new StringBuilder(96);
+        for (int rank = Board.BOARD_LENGTH - 1; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < Board.BOARD_WIDTH; file++) {
+                int code = pieceAt.applyAsInt(EncodedMove.square(file, rank));
+                if (code == PieceCode.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty != 0) {
+                    builder.append(empty);
+                    empty = 0;
+                }
+                builder.append(PieceCode.symbol(code));
+            }
+            if (empty != 0) {
+                builder.append(empty);
+            }
+            if (rank != 0) {
+                builder.append('/');
+            }
+        }
+        builder.append(isWhiteTurn ? " w " : " b ");
+        if (castlingRights == 0) {
+            builder.append('-');
+        }
+        if ((castlingRights & Board.WHITE_KING_SIDE) != 0) {
+            builder.append('K');
+        }
+        if ((castlingRights & Board.WHITE_QUEEN_SIDE) != 0) {
+            builder.append('Q');
+        }
+        if ((castlingRights & Board.BLACK_KING_SIDE) != 0) {
+            builder.append('k');
+        }
+        if ((castlingRights & Board.BLACK_QUEEN_SIDE) != 0) {
+            builder.append('q');
+        }
+        builder.append(' ');
+        if (enPassantSquare < 0) {
+            builder.append('-');
+        } else {
+            builder.append((char) ('a' + EncodedMove.file(enPassantSquare)))
+                    .append(EncodedMove.rank(enPassantSquare) + 1);
+        }
+        return builder.append(' ').append(drawCounter).append(' ').append(fullMoveNumber)
+                .toString();
+    }
+}
@@ -0,0 +1,917 @@
+package chess.backend;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+
+/**
+ * Keeps track of the game, which means the board and its pieces, and the board history.
+ */
+public final class Game {
+    static final int KEYFRAME_PLIES = 16;
+    /**
+     * Room for every legal move of any position, for the buffers given to {@link #legalMoves}.
+     */
+    public static final int MAX_MOVES = 256;
+    static final int MAX_UNPRODUCTIVE_PLIES = 100;
+    static final int MAX_REPETITIONS = 3;
+    private static final Position[] NO_KEYFRAMES = {};
+
+    private final Board board;
+    private final Map<Ply, Integer> history = new HashMap<>();
+    private int drawCounter;
+    private int fullMoveNumber;
+    private Point enPassant;
+    private String startFen;
+    private short[] playedMoves = new short[64];
+    private int plyCount;
+    private int historyStart;
+    private int repetitionCount;
+    private Position[] keyframes = NO_KEYFRAMES;
+    private int keyframeCount;
+    private MoveCache moveCache;
+    private GameClock clock;
+
+    public Game() {
+        this(new Board(), null, 0, 1);
+    }
+
+    Game(Board board, Point enPassant, int drawCounter, int fullMoveNumber) {
+        this.board = board;
+        this.enPassant = enPassant;
+        this.drawCounter = drawCounter;
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    /**
+     * Starts a game from a position in Forsyth-Edwards Notation. The half-move and full-move
+     * counters may be omitted, in which case they start at zero and one.
+     *
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static Game fromFen(CharSequence fen) {
+        var game = Fen.parse(fen);
+        game.startFen = fen.toString();
+        return game;
+    }
+
+    /**
+     * @return the board itself, which the benchmarks use to time its parts on their own
+     */
+    Board board() {
+        return board;
+    }
+
+    Point enPassant() {
+        return enPassant;
+    }
+
+    /**
+     * Copies the current position into a new game. The copy does not know which moves led to the
+     * position, so it does not detect repetitions of earlier positions.
+     */
+    public Game copyPosition() {
+        return fromFen(toFen());
+    }
+
+    /**
+     * Saves the state of the game in a few tens of bytes, including what it needs to detect
+     * repetitions and apply the fifty-move rule, as described by {@link SavedGame}.
+     */
+    public byte[] save() {
+        return SavedGame.write(snapshot(historyStart), playedMoves, historyStart, plyCount);
+    }
+
+    /**
+     * Restores a game saved by {@link #save}. The restored game only knows the moves played since
+     * the last capture, pawn move or castling, and starts from the position before them.
+     *
+     * @throws IllegalArgumentException if the bytes do not hold a valid saved game
+     */
+    public static Game load(byte[] bytes) {
+        return SavedGame.read(bytes);
+    }
+
+    /**
+     * Looks up legal moves and the status after each move in the cache, which may be shared with
+     * other games, rather than generating them every time.
+     *
+     * @param cache the cache to use, or null to stop using one
+     */
+    public void useMoveCache(MoveCache cache) {
+        moveCache = cache;
+    }
+
+    /**
+     * Times the moves of both sides with the clock, which starts for the side to move unless it
+     * already runs. A side which completes a move after its time ran out loses on time, unless its
+     * opponent cannot mate, which makes it a draw. Copies and saved games are not timed.
+     *
+     * @param clock the clock to use, or null to stop timing moves
+     */
+    public void useClock(GameClock clock) {
+        this.clock = clock;
+        if (clock != null) {
+            clock.start(board.isWhiteTurn());
+        }
+    }
+
+    /**
+     * @return the clock which times the moves, or null if they are not timed
+     */
+    public GameClock clock() {
+        return clock;
+    }
+
+    /**
+     * @return the result of the side to move running out of time, as given by {@link #flagFall},
+     * if its time ran out while it has not moved yet, or {@link GameStatus#ONGOING} otherwise
+     */
+    public GameStatus timeStatus() {
+        boolean isWhiteTurn = board.isWhiteTurn();
+        if (clock == null || clock.remainingNanos(isWhiteTurn) > 0) {
+            return GameStatus.ONGOING;
+        }
+        return flagFall(isWhiteTurn);
+    }
+
+    /**
+     * Follows article 6.9 of the FIDE Laws of Chess: running out of time loses, unless the opponent
+     * cannot mate by any series of legal moves, even with the help of the side which ran out. That
+     * is when the opponent has a lone king, or a king and one knight or bishop against a lone king.
+     * Unlike the draw by insufficient material, two knights, or a minor piece against other
+     * pieces, may still mate, so they win on time.
+     *
+     * @return the loss on time of the given side, or {@link GameStatus#INSUFFICIENT_MATING} if its
+     * opponent cannot mate, which makes it a draw
+     */
+    private GameStatus flagFall(boolean isWhite) {
+        var ally = new ArrayList<Piece>();
+        var enemy = new ArrayList<Piece>();
+        findPieces(ally, enemy);
+        boolean isAlly = board.isWhiteTurn() == isWhite;
+        var flagged = isAlly ? ally : enemy;
+        var opponent = isAlly ? enemy : ally;
+        if (opponent.isEmpty() || (flagged.isEmpty() && opponent.size() == 1
+                && (opponent.get(0) instanceof Knight || opponent.get(0) instanceof Bishop))) {
+            return GameStatus.INSUFFICIENT_MATING;
+        }
+        return isWhite ? GameStatus.BLACK_WINS_ON_TIME : GameStatus.WHITE_WINS_ON_TIME;
+    }
+
+    /**
+     * @return an immutable copy of the current position, which may be shared between threads
+     */
+    public Position snapshot() {
+        return Position.of(this);
+    }
+
+    /**
+     * @return an immutable copy of the position after the given amount of plies. A keyframe is
+     * kept every {@link #KEYFRAME_PLIES} plies, created when first needed, so at most that many
+     * moves are replayed, and the memory used grows with the length of the game.
+     */
+    public Position snapshot(int ply) {
+        if (ply < 0 || ply > plyCount) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " has not been played");
+        }
+        if (ply == plyCount) {
+            return snapshot();
+        }
+        int keyframe = ply / KEYFRAME_PLIES;
+        if (keyframe >= keyframes.length) {
+            keyframes = Arrays.copyOf(keyframes, Math.max(2 * keyframes.length, keyframe + 4));
+        }
+        if (keyframeCount == 0) {
+            keyframes[0] = Position.fromFen((startFen == null) ? Fen.INITIAL_POSITION : startFen);
+            keyframeCount = 1;
+        }
+        for (; keyframeCount <= keyframe; keyframeCount++) {
+            keyframes[keyframeCount] = replay(keyframes[keyframeCount - 1],
+                    (keyframeCount - 1) * KEYFRAME_PLIES, keyframeCount * KEYFRAME_PLIES);
+        }
+        return replay(keyframes[keyframe], keyframe * KEYFRAME_PLIES, ply);
+    }
+
+    private Position replay(Position position, int from, int to) {
+        for (int i = from; i < to; i++) {
+            position = position.play(playedMoves[i]);
+        }
+        return position;
+    }
+
+    /**
+     * @return the piece on the square, numbered from 0 for a1 to 63 for h8, as a {@link PieceCode}
+     */
+    public int pieceAt(int square) {
+        var piece = board.getBoard(board.square(square));
+        return (piece == null) ? PieceCode.EMPTY : piece.code();
+    }
+
+    /**
+     * @return a 64-bit hash of the pieces, the side to move, the castling rights and the en passant
+     * square, which is the same across runs
+     */
+    public long positionHash() {
+        return Zobrist.hash(board, enPassant);
+    }
+
+    public boolean isWhiteTurn() {
+        return board.isWhiteTurn();
+    }
+
+    /**
+     * @return the castling rights which remain, as a combination of the flags in {@link Board}
+     */
+    public int castlingRights() {
+        return board.castlingRights();
+    }
+
+    /**
+     * @return the square which a pawn may capture en passant, or -1 if there is none
+     */
+    public int enPassantSquare() {
+        return (enPassant == null) ? -1 : board.squareIndex(enPassant);
+    }
+
+    /**
+     * @return the amount of plies since the last capture or pawn move
+     */
+    public int halfMoveClock() {
+        return drawCounter;
+    }
+
+    public int fullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * @return the position which the game started from, or null if it is the initial position
+     */
+    public String startFen() {
+        return startFen;
+    }
+
+    /**
+     * @return how many times the position before the last move had been left by a move which was
+     * not a capture, a pawn move or castling, since the last such move, which is what decides
+     * draws by repetition; zero if the last move was one of those, or if no move was played
+     */
+    public int repetitionCount() {
+        return repetitionCount;
+    }
+
+    /**
+     * @return the amount of moves played by both sides since the start of the game
+     */
+    public int plyCount() {
+        return plyCount;
+    }
+
+    /**
+     * @return the move played at the given ply, packed as described by {@link EncodedMove}
+     */
+    public short moveAt(int ply) {
+        if (ply < 0 || ply >= plyCount) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " has not been played");
+        }
+        return playedMoves[ply];
+    }
+
+    private void record(Point from, Point to, Move move, PromotionPiece promotion) {
+        if (plyCount == playedMoves.length) {
+            playedMoves = Arrays.copyOf(playedMoves, 2 * plyCount);
+        }
+        int start = board.squareIndex(from);
+        int end = board.squareIndex(to);
+        playedMoves[plyCount++] = EncodedMove.encode(start, end, move, promotion);
+        BackendMetrics.MOVES.increment();
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return Fen.write(board, enPassant, drawCounter, fullMoveNumber);
+    }
+
+    public void queenSideCastle() {
+        var king = Point.instance(Board.KING_X_COORD, Board.BOARD_LENGTH - 1);
+        var rook = Point.instance(0, Board.BOARD_LENGTH - 1);
+        var event = new GameEvents.MoveEvent();
+        event.begin();
+        record(king, rook, Move.QUEEN_SIDE_CASTLE, null);
+        performCastling(king, Point.instance(Board.KING_X_COORD - 2, Board.BOARD_LENGTH - 1));
+        performCastling(rook, Point.instance(Board.KING_X_COORD - 1, Board.BOARD_LENGTH - 1));
+        finishCastling(Point.instance(Board.KING_X_COORD - 2, Board.BOARD_LENGTH - 1));
+        commit(event);
+    }
+
+    public void kingSideCastle() {
+        var king = Point.instance(Board.KING_X_COORD, Board.BOARD_LENGTH - 1);
+        var rook = Point.instance(Board.BOARD_WIDTH - 1, Board.BOARD_LENGTH - 1);
+        var event = new GameEvents.MoveEvent();
+        event.begin();
+        record(king, rook, Move.KING_SIDE_CASTLE, null);
+        performCastling(king, Point.instance(Board.KING_X_COORD + 2, Board.BOARD_LENGTH - 1));
+        performCastling(rook, Point.instance(Board.KING_X_COORD + 1, Board.BOARD_LENGTH - 1));
+        finishCastling(Point.instance(Board.KING_X_COORD + 2, Board.BOARD_LENGTH - 1));
+        commit(event);
+    }
+
+    private void performCastling(Point from, Point to) {
+        board.setBoard(to, board.getBoard(from));
+        board.setBoard(from, null);
+        board.getBoard(to).setMove();
+    }
+
+    private void finishCastling(Point point) {
+        board.moveKing(point);
+        enPassant = null;
+        drawCounter++;
+        history.clear();
+        historyStart = plyCount;
+        repetitionCount = 0;
+        BackendMetrics.REPETITION_CLEARS.increment();
+        flip();
+    }
+
+    /**
+     * Performs a move in the same form as {@link #availableMoves} describes it, which means that
+     * castling moves to the square of the rook. The promotion piece is only used when the move is
+     * a pawn promotion.
+     *
+     * @throws IllegalArgumentException if the move is not legal in the current position
+     */
+    public GameStatus play(Point from, Point to, Move move, PromotionPiece promotion) {
+        return apply(legalPiece(from, to, move, promotion), from, to, move, promotion);
+    }
+
+    /**
+     * Checks a move in the form taken by {@link #play(Point, Point, Move, PromotionPiece)} without
+     * performing it, so that it can be recorded before it is played.
+     *
+     * @return the move packed as described by {@link EncodedMove}
+     * @throws IllegalArgumentException if the move is not legal in the current position
+     */
+    public short legalMove(Point from, Point to, Move move, PromotionPiece promotion) {
+        legalPiece(from, to, move, promotion);
+        return EncodedMove.encode(board.squareIndex(from), board.squareIndex(to), move, promotion);
+    }
+
+    /**
+     * Checks a move packed as described by {@link EncodedMove} without performing it.
+     *
+     * @return the move, packed the same way
+     * @throws IllegalArgumentException if the move is not legal in the current position
+     */
+    public short legalMove(short move) {
+        var from = board.square(EncodedMove.from(move));
+        var to = board.square(EncodedMove.to(move));
+        return legalMove(from, to, EncodedMove.move(move), EncodedMove.promotion(move));
+    }
+
+    private Piece legalPiece(Point from, Point to, Move move, PromotionPiece promotion) {
+        var piece = board.getAlliedPieceAt(from);
+        if (piece == null || move == Move.NONE || availableMove(piece, from, to) != move) {
+            throw new IllegalArgumentException("Illegal move");
+        }
+        if (move == Move.PAWN_PROMOTION && promotion == null) {
+            throw new IllegalArgumentException("Pawn promotion requires a promotion piece");
+        }
+        return piece;
+    }
+
+    /**
+     * Performs a move written in standard algebraic notation, such as "Nbd7", "exd6", "e8=Q+" or
+     * "O-O", which is read from the given range of characters.
+     *
+     * @throws IllegalArgumentException if the move is not legal or is ambiguous
+     */
+    public GameStatus playSan(CharSequence text, int start, int end) {
+        return San.play(this, text, start, end);
+    }
+
+    public GameStatus playSan(CharSequence san) {
+        return playSan(san, 0, san.length());
+    }
+
+    /**
+     * Performs a move packed as described by {@link EncodedMove}.
+     *
+     * @throws IllegalArgumentException if the move is not legal in the current position
+     */
+    public GameStatus play(short move) {
+        var from = board.square(EncodedMove.from(move));
+        var to = board.square(EncodedMove.to(move));
+        return play(from, to, EncodedMove.move(move), EncodedMove.promotion(move));
+    }
+
+    /**
+     * Lists every legal move of the side to move, packed as described by {@link EncodedMove}.
+     *
+     * @param legalMoves where the moves are stored, which must have room for every move
+     * @return the amount of moves which were stored
+     */
+    public int legalMoves(short[] legalMoves) {
+        if (moveCache != null) {
+            return moveCache.get(this).copyMoves(legalMoves);
+        }
+        return generateLegalMoves(legalMoves);
+    }
+
+    int generateLegalMoves(short[] legalMoves) {
+        BackendMetrics.LEGAL_MOVE_GENERATIONS.increment();
+        var event = new GameEvents.LegalMovesEvent();
+        event.begin();
+        int count = 0;
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var from = Point.instance(j, i);
+                var piece = board.getAlliedPieceAt(from);
+                if (piece != null) {
+                    count = addMoves(legalMoves, count, from, availableMoves(piece, from));
+                }
+            }
+        }
+        if (event.shouldCommit()) {
+            event.positionHash = positionHash();
+            event.ply = plyCount;
+            event.square = -1;
+            event.moves = count;
+            event.commit();
+        }
+        return count;
+    }
+
+    private int addMoves(short[] legalMoves, int count, Point from, Move[][] available) {
+        int start = board.squareIndex(from);
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var move = available[i][j];
+                if (move == Move.NONE) {
+                    continue;
+                }
+                int end = board.squareIndex(Point.instance(j, i));
+                if (move != Move.PAWN_PROMOTION) {
+                    legalMoves[count++] = EncodedMove.encode(start, end, move, null);
+                    continue;
+                }
+                for (var promotion : PromotionPiece.values()) {
+                    legalMoves[count++] = EncodedMove.encode(start, end, move, promotion);
+                }
+            }
+        }
+        return count;
+    }
+
+    GameStatus apply(Piece piece, Point from, Point to, Move move, PromotionPiece promotion) {
+        switch (move) {
+            case QUEEN_SIDE_CASTLE:
+                queenSideCastle();
+                return endMove(0);
+            case KING_SIDE_CASTLE:
+                kingSideCastle();
+                return endMove(0);
+            case EN_PASSANT:
+                return enPassant(piece, from);
+            case PAWN_PROMOTION:
+                return pawnPromotion(promotion, from, to);
+            case NORMAL:
+                return normalMove(piece, from, to);
+            default:
+                throw new IllegalStateException("Invalid move type");
+        }
+    }
+
+    Point square(int file, int rank) {
+        return board.square(file, rank);
+    }
+
+    public GameStatus enPassant(Piece moving, Point from) {
+        var event = new GameEvents.MoveEvent();
+        event.begin();
+        record(from, enPassant, Move.EN_PASSANT, null);
+        var squareAboveEnemy = Point.instance(enPassant.x(), enPassant.y() + 1);
+        movePiece(moving, from, enPassant);
+        board.setBoard(squareAboveEnemy, null);
+        flip();
+        var status = endMove(0);
+        commit(event);
+        return status;
+    }
+
+    public GameStatus pawnPromotion(PromotionPiece promotion, Point from, Point to) {
+        var event = new GameEvents.MoveEvent();
+        event.begin();
+        record(from, to, Move.PAWN_PROMOTION, promotion);
+        var status = doMove(board.getPromotionPiece(promotion), from, to);
+        commit(event);
+        return status;
+    }
+
+    public GameStatus normalMove(Piece moving, Point from, Point to) {
+        var event = new GameEvents.MoveEvent();
+        event.begin();
+        record(from, to, Move.NORMAL, null);
+        var status = doMove(moving, from, to);
+        commit(event);
+        return status;
+    }
+
+    private void commit(GameEvents.MoveEvent event) {
+        if (event.shouldCommit()) {
+            event.positionHash = positionHash();
+            event.ply = plyCount;
+            event.move = EncodedMove.toString(playedMoves[plyCount - 1]);
+            event.commit();
+        }
+    }
+
+    private GameStatus doMove(Piece piece, Point from, Point to) {
+        if (piece instanceof King) {
+            board.moveKing(to);
+        }
+        int repetitionCount = movePiece(piece, from, to);
+        flip();
+        return endMove(repetitionCount);
+    }
+
+    /**
+     * Presses the clock for the side which just moved, once per move, and then checks the status.
+     */
+    private GameStatus endMove(int repetitionCount) {
+        boolean isOnTime = clock == null || clock.press();
+        return gameOverState(repetitionCount, isOnTime);
+    }
+
+    private void flip() {
+        if (!board.isWhiteTurn()) {
+            fullMoveNumber++;
+        }
+        board.flip();
+    }
+
+    private int movePiece(Piece piece, Point start, Point end) {
+        var event = new GameEvents.RepetitionEvent();
+        event.begin();
+        int count = 0;
+        boolean isPawnMove = board.getBoard(start) instanceof Pawn;
+        if (isPawnMove && start.y() - end.y() == 2) {
+            enPassant = Point.instance(end.x(), Board.BOARD_LENGTH - 1 - end.y() - 1);
+        } else {
+            enPassant = null;
+        }
+        if (board.getBoard(end) != null || isPawnMove) {
+            drawCounter = 0;
+            history.clear();
+            historyStart = plyCount;
+            BackendMetrics.REPETITION_CLEARS.increment();
+        } else {
+            drawCounter++;
+            var gameState = new Ply(board, enPassant);
+            count = history.getOrDefault(gameState, 0) + 1;
+            history.put(gameState, count);
+            if (count == 1) {
+                BackendMetrics.REPETITION_ENTRIES.increment();
+                BackendMetrics.REPETITION_MAX_SIZE.accumulate(history.size());
+            }
+        }
+        if (event.shouldCommit()) {
+            event.positionHash = Zobrist.hash(board, enPassant);
+            event.ply = plyCount - 1;
+            event.repetitions = count;
+            event.historySize = history.size();
+            event.isCleared = history.isEmpty();
+            event.commit();
+        }
+        rawMove(piece, start, end);
+        piece.setMove();
+        repetitionCount = count;
+        return count;
+    }
+
+    public Color[][] getPieceImage(Point point) {
+        return board.getPieceImage(point);
+    }
+
+    public Piece getAlliedPieceAt(Point point) {
+        return board.getAlliedPieceAt(point);
+    }
+
+    public boolean isLightTile(Point point) {
+        return board.isLightTile(point);
+    }
+
+    /**
+     * The game may be over by checkmate, by the side which moved running out of time, or by draw.
+     * There are 4 types of draws:
+     * <p> 1. Stalemate
+     * <p> 2. 50 moves without pawn move or piece capture
+     * <p> 3. Board repeated 3 times
+     * <p> 4. Insufficient mating material
+     * <p> This does not touch the clock, so it may be called any amount of times.
+     *
+     * @param isOnTime whether the side which just moved did so before its time ran out
+     */
+    GameStatus gameOverState(int repetitionCount, boolean isOnTime) {
+        var event = new GameEvents.StatusEvent();
+        event.begin();
+        GameStatus status;
+        boolean isCacheHit = false;
+        if (!isOnTime) {
+            // The side which just moved is no longer the side to move
+            status = flagFall(!board.isWhiteTurn());
+        } else if (moveCache == null) {
+            status = ruleState(repetitionCount, positionState());
+        } else {
+            long hash = positionHash();
+            var entry = moveCache.find(hash);
+            isCacheHit = entry != null;
+            if (!isCacheHit) {
+                entry = moveCache.generate(this, hash);
+            }
+            status = ruleState(repetitionCount, entry.status());
+        }
+        if (event.shouldCommit()) {
+            event.positionHash = positionHash();
+            event.ply = plyCount;
+            event.status = status.name();
+            event.isCacheHit = isCacheHit;
+            event.commit();
+        }
+        BackendMetrics.countStatus(status);
+        return status;
+    }
+
+    private GameStatus ruleState(int repetitionCount, GameStatus state) {
+        if (state == GameStatus.WHITE_WINS || state == GameStatus.BLACK_WINS
+                || state == GameStatus.STALEMATE) {
+            return state;
+        }
+        if (isTooManyMoves()) {
+            return GameStatus.TOO_MANY_MOVES;
+        }
+        if (isTooManyBoardRepetitions(repetitionCount)) {
+            return GameStatus.TOO_MANY_REPETITIONS;
+        }
+        return state;
+    }
+
+    /**
+     * @return the part of the state which only depends on the position, which leaves out the
+     * draws by the amount of moves or repetitions
+     */
+    GameStatus positionState() {
+        if (isGameOverDueToCheckmate()) {
+            return board.getAlliedKing().isWhite() ? GameStatus.BLACK_WINS : GameStatus.WHITE_WINS;
+        }
+        if (isGameOverDueToStalemate()) {
+            return GameStatus.STALEMATE;
+        }
+        if (isInsufficientMatingMaterial()) {
+            return GameStatus.INSUFFICIENT_MATING;
+        }
+        if (board.getAlliedKing().isKingInCheck(board.locateAlliedKing())) {
+            return GameStatus.IN_CHECK;
+        }
+        return GameStatus.ONGOING;
+    }
+
+    private boolean isGameOverDueToCheckmate() {
+        var king = board.getAlliedKing();
+        var kingLocation = board.locateAlliedKing();
+        return king.isKingInCheck(kingLocation) && isMoveImpossible();
+    }
+
+    private boolean isGameOverDueToStalemate() {
+        var king = board.getAlliedKing();
+        var kingLocation = board.locateAlliedKing();
+        return !king.isKingInCheck(kingLocation) && isMoveImpossible();
+    }
+
+    private boolean isMoveImpossible() {
+        var king = board.getAlliedKing();
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var start = Point.instance(j, i);
+                var piece = board.getBoard(start);
+                if (piece != null && board.isAlly(piece)) {
+                    for (int k = 0; k < Board.BOARD_LENGTH; k++) {
+                        for (int l = 0; l < Board.BOARD_WIDTH; l++) {
+                            var end = Point.instance(l, k);
+                            var save = board.getBoard(end);
+                            if (piece.isActionLegal(start, end)) {
+                                rawMove(piece, start, end);
+                                var kingLocation = (piece == king) ? end : board.locateAlliedKing();
+                                boolean isNotInCheck = !king.isKingInCheck(kingLocation);
+                                rawMove(piece, end, start);
+                                board.setBoard(end, save);
+                                if (isNotInCheck) {
+                                    return false;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the piece without setting the piece to moved state. Used
+     * when checking the board and not actually moving pieces on it.
+     */
+    private void rawMove(Piece piece, Point start, Point end) {
+        board.setBoard(start, null);
+        board.setBoard(end, piece);
+    }
+
+    /**
+     * Draw if 50 moves without pawn move or piece capture.
+     */
+    private boolean isTooManyMoves() {
+        return drawCounter >= MAX_UNPRODUCTIVE_PLIES;
+    }
+
+    /**
+     * Draw if board repeated 3 times.
+     */
+    private boolean isTooManyBoardRepetitions(int repetitionCount) {
+        return repetitionCount >= MAX_REPETITIONS;
+    }
+
+    /**
+     * Mating material is any pieces which could force a checkmate.
+     */
+    private boolean isInsufficientMatingMaterial() {
+        var ally = new ArrayList<Piece>();
+        var enemy = new ArrayList<Piece>();
+        findPieces(ally, enemy);
+        return isInsufficientMatingMaterial(ally, enemy);
+    }
+
+    private void findPieces(List<Piece> ally, List<Piece> enemy) {
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var point = Point.instance(j, i);
+                var piece = board.getBoard(point);
+                if (piece != null && !(piece instanceof King)) {
+                    if (board.isAlly(piece)) {
+                        ally.add(piece);
+                    } else {
+                        enemy.add(piece);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return is lone King against:
+     * lone King, or King and Knight, or King and Bishop, or King and two Knights
+     */
+    private boolean isInsufficientMatingMaterial(List<Piece> ally, List<Piece> enemy) {
+        if (ally.size() != 0 && enemy.size() != 0) {
+            return false;
+        }
+        var group = (ally.size() == 0) ? enemy : ally;
+        var size = group.size();
+        return size == 0
+                || (size == 1 && (group.get(0) instanceof Knight || group.get(0) instanceof Bishop))
+                || (size == 2 && group.get(0) instanceof Knight && group.get(1) instanceof Knight);
+    }
+
+    public Move[][] availableMoves(Piece moving, Point from) {
+        BackendMetrics.LEGAL_MOVE_GENERATIONS.increment();
+        var event = new GameEvents.LegalMovesEvent();
+        event.begin();
+        var moves = new Move[Board.BOARD_LENGTH][Board.BOARD_WIDTH];
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                moves[i][j] = normalMoveType(moving, from, Point.instance(j, i));
+            }
+        }
+        if (canQueenSideCastle(from)) {
+            moves[Board.BOARD_LENGTH - 1][0] = Move.QUEEN_SIDE_CASTLE;
+        }
+        if (canKingSideCastle(from)) {
+            moves[Board.BOARD_LENGTH - 1][Board.BOARD_WIDTH - 1] = Move.KING_SIDE_CASTLE;
+        }
+        if (canPerformEnPassant(moving, from)) {
+            moves[enPassant.y()][enPassant.x()] = Move.EN_PASSANT;
+        }
+        if (event.shouldCommit()) {
+            event.positionHash = positionHash();
+            event.ply = plyCount;
+            event.square = board.squareIndex(from);
+            for (var row : moves) {
+                for (var move : row) {
+                    event.moves += (move == Move.NONE) ? 0 : 1;
+                }
+            }
+            event.commit();
+        }
+        return moves;
+    }
+
+    /**
+     * Same as one square of {@link #availableMoves}, for when only one destination is of interest.
+     */
+    Move availableMove(Piece moving, Point from, Point to) {
+        if (to.y() == Board.BOARD_LENGTH - 1 && to.x() == 0 && canQueenSideCastle(from)) {
+            return Move.QUEEN_SIDE_CASTLE;
+        }
+        if (to.y() == Board.BOARD_LENGTH - 1 && to.x() == Board.BOARD_WIDTH - 1
+                && canKingSideCastle(from)) {
+            return Move.KING_SIDE_CASTLE;
+        }
+        if (to.equals(enPassant) && canPerformEnPassant(moving, from)) {
+            return Move.EN_PASSANT;
+        }
+        return normalMoveType(moving, from, to);
+    }
+
+    private Move normalMoveType(Piece moving, Point from, Point to) {
+        if (moving instanceof King) {
+            var backup = board.getBoard(from);
+            board.setBoard(from, null);
+            boolean isLegal = moving.isActionLegal(from, to);
+            board.setBoard(from, backup);
+            return isLegal ? Move.NORMAL : Move.NONE;
+        }
+        if (!moving.isActionLegal(from, to)) {
+            return Move.NONE;
+        }
+        return moving instanceof Pawn && to.y() == 0 ? Move.PAWN_PROMOTION : Move.NORMAL;
+    }
+
+    private boolean canQueenSideCastle(Point from) {
+        return canCastle(from, 0);
+    }
+
+    private boolean canKingSideCastle(Point from) {
+        return canCastle(from, Board.BOARD_WIDTH - 1);
+    }
+
+    private boolean canCastle(Point from, int xCoordRook) {
+        if (!from.equals(Point.instance(Board.KING_X_COORD, Board.BOARD_LENGTH - 1))) {
+            return false;
+        }
+        var king = board.getAlliedKing();
+        var rook = board.getBoard(Point.instance(xCoordRook, Board.BOARD_LENGTH - 1));
+        if (hasPieceMoved(king) || hasPieceMoved(rook)) {
+            return false;
+        }
+        int min = Math.min(xCoordRook, board.locateAlliedKing().x());
+        int max = Math.max(xCoordRook, board.locateAlliedKing().x());
+        for (int x = min + 1; x < max; x++) {
+            if (board.getBoard(Point.instance(x, Board.BOARD_LENGTH - 1)) != null) {
+                return false;
+            }
+        }
+        int direction = Integer.signum(xCoordRook - board.locateAlliedKing().x());
+        for (int i = 0; i <= 2; i++) {
+            var tile = Point.instance(Board.KING_X_COORD + i * direction, Board.BOARD_LENGTH - 1);
+            if (king.isKingInCheck(tile) || !king.isNoAdjacentKing(tile)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean hasPieceMoved(Piece piece) {
+        return piece == null || piece.hasMoved();
+    }
+
+    private boolean canPerformEnPassant(Piece moving, Point from) {
+        if (enPassant == null || !(moving instanceof Pawn)) {
+            return false;
+        }
+        var squareAbovePiece = Point.instance(enPassant.x(), enPassant.y() + 1);
+        var isPieceAnEnemy = moving.isWhite() != board.getBoard(squareAbovePiece).isWhite();
+        var diffX = Math.abs(from.x() - enPassant.x());
+        return isPieceAnEnemy && from.y() == enPassant.y() + 1 && diffX == 1
+                && isEnPassantSafe(moving, from, squareAbovePiece);
+    }
+
+    /**
+     * En passant takes a pawn which is not on the destination, so both pawns leave the rank, which
+     * may uncover an attack on the king which the usual test of the destination would miss.
+     */
+    private boolean isEnPassantSafe(Piece moving, Point from, Point captured) {
+        var enemy = board.getBoard(captured);
+        board.setBoard(captured, null);
+        board.setBoard(from, null);
+        board.setBoard(enPassant, moving);
+        boolean isSafe = !board.getAlliedKing().isKingInCheck(board.locateAlliedKing());
+        board.setBoard(enPassant, null);
+        board.setBoard(from, moving);
+        board.setBoard(captured, enemy);
+        return isSafe;
+    }
+}
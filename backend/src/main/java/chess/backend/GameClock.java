@@ -0,0 +1,102 @@
+package chess.backend;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A chess clock which gives each side an amount of time for the whole game, plus an increment
+ * after each of its moves. Only the clock of the side to move runs. The clock is safe to read from
+ * any thread, so that a display may show it while another thread plays the game.
+ */
+public final class GameClock {
+    private final long incrementNanos;
+    private final long[] remainingNanos = new long[2];
+    private boolean isRunning;
+    private boolean isWhiteRunning;
+    private long turnStartNanos;
+
+    /**
+     * @throws IllegalArgumentException if there is no initial time or the increment is negative
+     */
+    public GameClock(long initialNanos, long incrementNanos) {
+        if (initialNanos <= 0 || incrementNanos < 0) {
+            throw new IllegalArgumentException("Clock needs time, and a non-negative increment");
+        }
+        this.incrementNanos = incrementNanos;
+        remainingNanos[0] = initialNanos;
+        remainingNanos[1] = initialNanos;
+    }
+
+    /**
+     * Reads a time control written as the initial time and the increment in seconds, such as
+     * "300+2" or "10+0.1".
+     *
+     * @throws IllegalArgumentException if the text is not a valid time control
+     */
+    public static GameClock parse(String timeControl) {
+        var parts = timeControl.split("\\+", -1);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Expected seconds+increment: " + timeControl);
+        }
+        return new GameClock(seconds(parts[0]), seconds(parts[1]));
+    }
+
+    private static long seconds(String text) {
+        return (long) (Double.parseDouble(text) * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Starts the clock of the given side, if no clock is running yet.
+     */
+    synchronized void start(boolean isWhite) {
+        if (!isRunning) {
+            isRunning = true;
+            isWhiteRunning = isWhite;
+            turnStartNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Ends the turn of the side whose clock runs, which gets its increment if it still had time,
+     * and starts the clock of the other side. A side which ran out of time keeps a clock at zero,
+     * and both clocks stop, after which moves are no longer timed.
+     *
+     * @return whether the side which moved did so in time
+     */
+    synchronized boolean press() {
+        if (!isRunning) {
+            return true;
+        }
+        long now = System.nanoTime();
+        int side = side(isWhiteRunning);
+        remainingNanos[side] -= now - turnStartNanos;
+        if (remainingNanos[side] <= 0) {
+            remainingNanos[side] = 0;
+            isRunning = false;
+            return false;
+        }
+        remainingNanos[side] += incrementNanos;
+        isWhiteRunning = !isWhiteRunning;
+        turnStartNanos = now;
+        return true;
+    }
+
+    /**
+     * @return the time left to the given side, counting the current turn if its clock runs, and
+     * never less than zero
+     */
+    public synchronized long remainingNanos(boolean isWhite) {
+        long remaining = remainingNanos[side(isWhite)];
+        if (isRunning && isWhite == isWhiteRunning) {
+            remaining -= System.nanoTime() - turnStartNanos;
+        }
+        return Math.max(0, remaining);
+    }
+
+    public long incrementNanos() {
+        return incrementNanos;
+    }
+
+    private static int side(boolean isWhite) {
+        return isWhite ? 0 : 1;
+    }
+}
@@ -0,0 +1,111 @@
+package chess.backend;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of the backend. They are disabled unless the recording settings
+ * enable them, such as with {@code chess.Move#enabled=true}, and their fields are only filled in
+ * once {@link Event#shouldCommit()} says they will be recorded, so they cost next to nothing when
+ * disabled. Each event is timed, and holds the {@link Game#positionHash()} and the ply of the
+ * position it is about.
+ */
+final class GameEvents {
+    private static final String CATEGORY = "Chess";
+
+    private GameEvents() {
+    }
+
+    @Name("chess.Move")
+    @Label("Move")
+    @Description("A move applied to a game, with the position after it")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class MoveEvent extends Event {
+        @Label("Position Hash")
+        long positionHash;
+        @Label("Ply")
+        int ply;
+        @Label("Move")
+        String move;
+    }
+
+    @Name("chess.LegalMoves")
+    @Label("Legal Moves")
+    @Description("Generation of the legal moves of one piece, or of every piece if the square "
+            + "is -1")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class LegalMovesEvent extends Event {
+        @Label("Position Hash")
+        long positionHash;
+        @Label("Ply")
+        int ply;
+        @Label("Square")
+        int square;
+        @Label("Moves")
+        int moves;
+    }
+
+    @Name("chess.CheckTest")
+    @Label("Check Test")
+    @Description("A test of whether a king would be in check on a square. The hash leaves out "
+            + "the en passant square, which the board does not know")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class CheckTestEvent extends Event {
+        @Label("Position Hash")
+        long positionHash;
+        @Label("Ply")
+        int ply;
+        @Label("Square")
+        int square;
+        @Label("In Check")
+        boolean isInCheck;
+    }
+
+    @Name("chess.Status")
+    @Label("Game Status")
+    @Description("Evaluation of the status of a game after a move")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class StatusEvent extends Event {
+        @Label("Position Hash")
+        long positionHash;
+        @Label("Ply")
+        int ply;
+        @Label("Status")
+        String status;
+        @Label("Cache Hit")
+        @Description("Whether the status was found in the move cache, rather than evaluated")
+        boolean isCacheHit;
+    }
+
+    @Name("chess.Repetition")
+    @Label("Repetition History")
+    @Description("An update of the history used to detect repeated positions")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class RepetitionEvent extends Event {
+        @Label("Position Hash")
+        long positionHash;
+        @Label("Ply")
+        int ply;
+        @Label("Repetitions")
+        int repetitions;
+        @Label("History Size")
+        int historySize;
+        @Label("Cleared")
+        boolean isCleared;
+    }
+}
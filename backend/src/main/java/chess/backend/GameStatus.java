@@ -8,6 +8,8 @@ public enum GameStatus {
     IN_CHECK("inCheck", ContinueStatus.WARN),
     WHITE_WINS("whiteWins", ContinueStatus.TERMINATE),
     BLACK_WINS("blackWins", ContinueStatus.TERMINATE),
+    WHITE_WINS_ON_TIME("whiteWinsOnTime", ContinueStatus.TERMINATE),
+    BLACK_WINS_ON_TIME("blackWinsOnTime", ContinueStatus.TERMINATE),
     STALEMATE("stalemate", ContinueStatus.TERMINATE),
     TOO_MANY_MOVES("tooManyMoves", ContinueStatus.TERMINATE),
     TOO_MANY_REPETITIONS("boardRepeat", ContinueStatus.TERMINATE),
@@ -24,6 +24,11 @@ final class King extends Piece {
         super(board, isWhite, pixels);
     }
 
+    @Override
+    char symbol() {
+        return 'K';
+    }
+
     @Override
     boolean isActionLegal(Point start, Point end) {
         return Math.abs(end.x() - start.x()) + Math.abs(end.y() - start.y()) != 0
@@ -31,7 +36,7 @@ final class King extends Piece {
                 && canMoveToLocation(end) && isNoAdjacentKing(end) && !isKingInCheck(end);
     }
 
-    private boolean isNoAdjacentKing(Point point) {
+    boolean isNoAdjacentKing(Point point) {
         return isKingNotAt(point.x() - 1, point.y() - 1)
                 && isKingNotAt(point.x(), point.y() - 1)
                 && isKingNotAt(point.x() + 1, point.y() - 1)
@@ -52,6 +57,21 @@ final class King extends Piece {
     }
 
     boolean isKingInCheck(Point point) {
+        BackendMetrics.CHECK_TESTS.increment();
+        var event = new GameEvents.CheckTestEvent();
+        event.begin();
+        boolean isInCheck = isAttacked(point);
+        if (event.shouldCommit()) {
+            event.positionHash = Zobrist.hash(board(), null);
+            event.ply = board().plyCount();
+            event.square = board().squareIndex(point);
+            event.isInCheck = isInCheck;
+            event.commit();
+        }
+        return isInCheck;
+    }
+
+    private boolean isAttacked(Point point) {
         return isCheckFromDiagonalLine(point, -1, -1) || isCheckFromDiagonalLine(point, -1, 1)
                 || isCheckFromDiagonalLine(point, 1, -1) || isCheckFromDiagonalLine(point, 1, 1)
                 || isCheckFromStraightLine(point, 0, -1) || isCheckFromStraightLine(point, 0, 1)
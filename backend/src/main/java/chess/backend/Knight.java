@@ -20,6 +20,11 @@ final class Knight extends Piece {
         super(board, isWhite, pixels);
     }
 
+    @Override
+    char symbol() {
+        return 'N';
+    }
+
     @Override
     boolean isActionLegal(Point start, Point end) {
         boolean isMoveL = (Math.abs(end.x() - start.x()) == 2 && Math.abs(end.y() - start.y()) == 1)
@@ -0,0 +1,50 @@
+package chess.backend;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The legal moves of every piece of the side to move, in the same form as
+ * {@link Game#availableMoves} gives them for one piece. The table cannot be changed once built, so
+ * it may be built on another thread from a {@link Position}, while the game goes on being used.
+ */
+public final class LegalMoveTable {
+    private final Move[][][][] moves = new Move[Board.BOARD_LENGTH][Board.BOARD_WIDTH][][];
+
+    private LegalMoveTable(Game game) {
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var from = Point.instance(j, i);
+                var piece = game.getAlliedPieceAt(from);
+                if (piece != null) {
+                    moves[i][j] = game.availableMoves(piece, from);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the table of the current position of the game on the executor. The position is
+     * copied first, so the game may be played on while the table is built.
+     */
+    public static CompletableFuture<LegalMoveTable> compute(Game game, Executor executor) {
+        var position = game.snapshot();
+        return CompletableFuture.supplyAsync(() -> new LegalMoveTable(position.toGame()), executor);
+    }
+
+    /**
+     * @return a copy of the moves of the piece on the square, or null if there is no piece of the
+     * side to move on it
+     */
+    public Move[][] availableMoves(Point from) {
+        var available = moves[from.y()][from.x()];
+        if (available == null) {
+            return null;
+        }
+        var copy = new Move[Board.BOARD_LENGTH][];
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            copy[i] = available[i].clone();
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,167 @@
+package chess.backend;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the legal moves of positions, and whether they are checkmate, stalemate, check or
+ * insufficient material, so that games which reach the same positions only generate them once.
+ * Positions are told apart by their {@link Game#positionHash()} alone.
+ * <p> The cache may be shared by any amount of threads. Hits only read the map and mark the entry
+ * as used, while misses take a lock to insert the entry and evict older ones with the CLOCK
+ * algorithm: entries wait in a queue, and an entry which reaches its head is evicted unless it was
+ * used since it last got there, in which case it goes to the back. The size of an entry is
+ * estimated from its amount of moves, and the total is kept under the given amount of bytes.
+ */
+public final class MoveCache {
+    private static final int ENTRY_BYTES = 128;
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ArrayDeque<Entry> clock = new ArrayDeque<>();
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long bytes;
+
+    public MoveCache(long maxBytes) {
+        if (maxBytes < ENTRY_BYTES) {
+            throw new IllegalArgumentException("Cache must have room for at least one entry");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The legal moves of a position, and its status before counting moves and repetitions.
+     */
+    public static final class Entry {
+        private final long hash;
+        private final short[] moves;
+        private final GameStatus status;
+        private volatile boolean isUsed;
+
+        private Entry(long hash, short[] moves, GameStatus status) {
+            this.hash = hash;
+            this.moves = moves;
+            this.status = status;
+        }
+
+        public int moveCount() {
+            return moves.length;
+        }
+
+        /**
+         * @return the moves packed as described by {@link EncodedMove}, in the order of
+         * {@link Game#legalMoves}
+         */
+        public short[] moves() {
+            return moves.clone();
+        }
+
+        /**
+         * @return one of {@link GameStatus#WHITE_WINS}, {@link GameStatus#BLACK_WINS},
+         * {@link GameStatus#STALEMATE}, {@link GameStatus#INSUFFICIENT_MATING},
+         * {@link GameStatus#IN_CHECK} or {@link GameStatus#ONGOING}
+         */
+        public GameStatus status() {
+            return status;
+        }
+
+        int copyMoves(short[] destination) {
+            System.arraycopy(moves, 0, destination, 0, moves.length);
+            return moves.length;
+        }
+
+        private long bytes() {
+            return ENTRY_BYTES + (long) Short.BYTES * moves.length;
+        }
+    }
+
+    /**
+     * @return the entry of the current position of the game, generating it if it is not cached
+     */
+    public Entry get(Game game) {
+        long hash = game.positionHash();
+        var entry = find(hash);
+        return (entry != null) ? entry : generate(game, hash);
+    }
+
+    /**
+     * @return the cached entry of the position with the given hash, or null if there is none,
+     * counting the lookup as a hit or a miss
+     */
+    Entry find(long hash) {
+        var entry = entries.get(hash);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        entry.isUsed = true;
+        return entry;
+    }
+
+    /**
+     * Generates and caches the entry of the current position of the game, after a miss.
+     */
+    Entry generate(Game game, long hash) {
+        var buffer = new short[Game.MAX_MOVES];
+        int count = game.generateLegalMoves(buffer);
+        var entry = new Entry(hash, Arrays.copyOf(buffer, count), game.positionState());
+        insert(entry);
+        return entry;
+    }
+
+    private synchronized void insert(Entry entry) {
+        if (entries.putIfAbsent(entry.hash, entry) != null) {
+            return;
+        }
+        clock.addLast(entry);
+        bytes += entry.bytes();
+        while (bytes > maxBytes) {
+            var head = clock.pollFirst();
+            if (head.isUsed) {
+                head.isUsed = false;
+                clock.addLast(head);
+            } else {
+                entries.remove(head.hash);
+                bytes -= head.bytes();
+                evictions.increment();
+            }
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the amount of cached positions
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the estimated amount of bytes used by the cached positions
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d positions, %d bytes, %d hits, %d misses, %d evictions",
+                size(), bytes(), hits(), misses(), evictions());
+    }
+}
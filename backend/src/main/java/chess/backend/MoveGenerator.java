@@ -0,0 +1,409 @@
+package chess.backend;
+
+/**
+ * Generates the legal moves of a {@link Position} with bitboards, which are 64-bit sets of
+ * squares, rather than by asking every piece object whether it may move to every square. It gives
+ * the same moves and states as {@link Game}, possibly in another order, and the rules of
+ * {@link Game} remain the reference which this is checked against.
+ * <p> Sliding pieces find the first blocker of each ray from the lowest or highest set bit of the
+ * occupied squares on it, and a move is legal if the king of the side which moved is not attacked
+ * once the move is played on the bitboards.
+ */
+public final class MoveGenerator {
+    private static final int SQUARES = Board.BOARD_LENGTH * Board.BOARD_WIDTH;
+    private static final int KING_FILE = 4;
+    private static final int NORTH = 0;
+    private static final int NORTH_EAST = 1;
+    private static final int EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int SOUTH_WEST = 5;
+    private static final int WEST = 6;
+    private static final int SOUTH_EAST = 7;
+    private static final int[] DIRECTION_FILES = {0, 1, 1, -1, 0, -1, -1, 1};
+    private static final int[] DIRECTION_RANKS = {1, 1, 0, 1, -1, -1, 0, -1};
+    private static final int[] KNIGHT_FILES = {1, 2, 2, 1, -1, -2, -2, -1};
+    private static final int[] KNIGHT_RANKS = {2, 1, -1, -2, -2, -1, 1, 2};
+    private static final long[][] RAYS = new long[DIRECTION_FILES.length][SQUARES];
+    private static final long[] KNIGHT_ATTACKS = new long[SQUARES];
+    private static final long[] KING_ATTACKS = new long[SQUARES];
+    private static final long[] WHITE_PAWN_ATTACKS = new long[SQUARES];
+    private static final long[] BLACK_PAWN_ATTACKS = new long[SQUARES];
+    private static final PromotionPiece[] PROMOTIONS = PromotionPiece.values();
+
+    static {
+        for (int square = 0; square < SQUARES; square++) {
+            int file = EncodedMove.file(square);
+            int rank = EncodedMove.rank(square);
+            for (int direction = 0; direction < DIRECTION_FILES.length; direction++) {
+                for (int i = 1; ; i++) {
+                    long bit = bit(file + i * DIRECTION_FILES[direction],
+                            rank + i * DIRECTION_RANKS[direction]);
+                    if (bit == 0) {
+                        break;
+                    }
+                    RAYS[direction][square] |= bit;
+                }
+                KING_ATTACKS[square] |= bit(file + DIRECTION_FILES[direction],
+                        rank + DIRECTION_RANKS[direction]);
+            }
+            for (int i = 0; i < KNIGHT_FILES.length; i++) {
+                KNIGHT_ATTACKS[square] |= bit(file + KNIGHT_FILES[i], rank + KNIGHT_RANKS[i]);
+            }
+            WHITE_PAWN_ATTACKS[square] = bit(file - 1, rank + 1) | bit(file + 1, rank + 1);
+            BLACK_PAWN_ATTACKS[square] = bit(file - 1, rank - 1) | bit(file + 1, rank - 1);
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * @return the square as a bitboard, or an empty bitboard if it is off the board
+     */
+    private static long bit(int file, int rank) {
+        if (file < 0 || file >= Board.BOARD_WIDTH || rank < 0 || rank >= Board.BOARD_LENGTH) {
+            return 0;
+        }
+        return 1L << EncodedMove.square(file, rank);
+    }
+
+    /**
+     * The pieces of a position as one bitboard for each {@link PieceCode}, and the squares
+     * occupied by each side.
+     */
+    private static final class Bitboards {
+        private final long[] pieces = new long[2 * PieceCode.BLACK];
+        private final boolean isWhiteTurn;
+        private long white;
+        private long black;
+
+        private Bitboards(Position position) {
+            isWhiteTurn = position.isWhiteTurn();
+            for (int square = 0; square < SQUARES; square++) {
+                int code = position.pieceAt(square);
+                if (code != PieceCode.EMPTY) {
+                    pieces[code] |= 1L << square;
+                    if (PieceCode.isWhite(code)) {
+                        white |= 1L << square;
+                    } else {
+                        black |= 1L << square;
+                    }
+                }
+            }
+        }
+
+        private long occupied() {
+            return white | black;
+        }
+
+        private long pieces(int type, boolean isWhite) {
+            return pieces[isWhite ? type : type | PieceCode.BLACK];
+        }
+
+        /**
+         * @param occupied the occupied squares, which may differ from the position's while a move
+         * is tried
+         * @param removed the squares whose pieces do not count, such as a piece just captured
+         * @return whether a piece of the given side attacks the square
+         */
+        private boolean isAttacked(int square, boolean isByWhite, long occupied, long removed) {
+            long kept = ~removed;
+            var pawnAttacks = isByWhite ? BLACK_PAWN_ATTACKS : WHITE_PAWN_ATTACKS;
+            if ((pawnAttacks[square] & pieces(PieceCode.PAWN, isByWhite) & kept) != 0
+                    || (KNIGHT_ATTACKS[square] & pieces(PieceCode.KNIGHT, isByWhite) & kept) != 0
+                    || (KING_ATTACKS[square] & pieces(PieceCode.KING, isByWhite)) != 0) {
+                return true;
+            }
+            long queens = pieces(PieceCode.QUEEN, isByWhite);
+            long straight = (pieces(PieceCode.ROOK, isByWhite) | queens) & kept;
+            long diagonal = (pieces(PieceCode.BISHOP, isByWhite) | queens) & kept;
+            return (straight != 0 && (rookAttacks(square, occupied) & straight) != 0)
+                    || (diagonal != 0 && (bishopAttacks(square, occupied) & diagonal) != 0);
+        }
+    }
+
+    private static long rayAttacks(int direction, int square, long occupied) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) {
+            return ray;
+        }
+        int blocker = (direction < SOUTH) ? Long.numberOfTrailingZeros(blockers)
+                : Long.SIZE - 1 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[direction][blocker];
+    }
+
+    private static long rookAttacks(int square, long occupied) {
+        return rayAttacks(NORTH, square, occupied) | rayAttacks(EAST, square, occupied)
+                | rayAttacks(SOUTH, square, occupied) | rayAttacks(WEST, square, occupied);
+    }
+
+    private static long bishopAttacks(int square, long occupied) {
+        return rayAttacks(NORTH_EAST, square, occupied) | rayAttacks(NORTH_WEST, square, occupied)
+                | rayAttacks(SOUTH_EAST, square, occupied)
+                | rayAttacks(SOUTH_WEST, square, occupied);
+    }
+
+    /**
+     * Lists every legal move of the side to move, packed as described by {@link EncodedMove}.
+     *
+     * @param legalMoves where the moves are stored, which must have room for every move
+     * @return the amount of moves which were stored
+     */
+    public static int legalMoves(Position position, short[] legalMoves) {
+        return generate(position, new Bitboards(position), legalMoves);
+    }
+
+    /**
+     * @return whether the king of the side to move is attacked
+     */
+    public static boolean isInCheck(Position position) {
+        var bitboards = new Bitboards(position);
+        return isInCheck(bitboards);
+    }
+
+    private static boolean isInCheck(Bitboards bitboards) {
+        boolean isWhite = bitboards.isWhiteTurn;
+        int king = Long.numberOfTrailingZeros(bitboards.pieces(PieceCode.KING, isWhite));
+        return bitboards.isAttacked(king, !isWhite, bitboards.occupied(), 0);
+    }
+
+    /**
+     * @return the same state as {@link Game} finds from the position alone, which is one of
+     * {@link GameStatus#WHITE_WINS}, {@link GameStatus#BLACK_WINS}, {@link GameStatus#STALEMATE},
+     * {@link GameStatus#INSUFFICIENT_MATING}, {@link GameStatus#IN_CHECK} or
+     * {@link GameStatus#ONGOING}
+     */
+    public static GameStatus positionState(Position position) {
+        var bitboards = new Bitboards(position);
+        boolean isInCheck = isInCheck(bitboards);
+        if (generate(position, bitboards, null) == 0) {
+            if (!isInCheck) {
+                return GameStatus.STALEMATE;
+            }
+            return position.isWhiteTurn() ? GameStatus.BLACK_WINS : GameStatus.WHITE_WINS;
+        }
+        if (isInsufficientMatingMaterial(bitboards)) {
+            return GameStatus.INSUFFICIENT_MATING;
+        }
+        return isInCheck ? GameStatus.IN_CHECK : GameStatus.ONGOING;
+    }
+
+    /**
+     * @param repetitionCount how many times the position was repeated, as counted by {@link Game}
+     * @return the status which {@link Game} gives after the move which led to the position
+     */
+    public static GameStatus status(Position position, int repetitionCount) {
+        var state = positionState(position);
+        if (state == GameStatus.WHITE_WINS || state == GameStatus.BLACK_WINS
+                || state == GameStatus.STALEMATE) {
+            return state;
+        }
+        if (position.halfMoveClock() >= Game.MAX_UNPRODUCTIVE_PLIES) {
+            return GameStatus.TOO_MANY_MOVES;
+        }
+        if (repetitionCount >= Game.MAX_REPETITIONS) {
+            return GameStatus.TOO_MANY_REPETITIONS;
+        }
+        return state;
+    }
+
+    /**
+     * @return the part of the position which {@link Game} compares to detect repetitions, which is
+     * where each piece stands and which side is to move, hashed
+     */
+    public static long repetitionKey(Position position) {
+        return Zobrist.hash(position::pieceAt, position.isWhiteTurn(), 0, -1);
+    }
+
+    /**
+     * Same rule as {@link Game}: a lone king against a lone king, a king and a knight, a king and
+     * a bishop, or a king and two knights.
+     */
+    private static boolean isInsufficientMatingMaterial(Bitboards bitboards) {
+        long kings = bitboards.pieces(PieceCode.KING, true)
+                | bitboards.pieces(PieceCode.KING, false);
+        long white = bitboards.white & ~kings;
+        long black = bitboards.black & ~kings;
+        if (white != 0 && black != 0) {
+            return false;
+        }
+        long group = white | black;
+        boolean isWhite = white != 0;
+        long knights = bitboards.pieces(PieceCode.KNIGHT, isWhite);
+        long bishops = bitboards.pieces(PieceCode.BISHOP, isWhite);
+        switch (Long.bitCount(group)) {
+            case 0:
+                return true;
+            case 1:
+                return (group & (knights | bishops)) != 0;
+            case 2:
+                return (group & ~knights) == 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param legalMoves where the moves are stored, or null to stop at the first legal move
+     * @return the amount of legal moves, which is at most one if they are not stored
+     */
+    private static int generate(Position position, Bitboards bitboards, short[] legalMoves) {
+        boolean isWhite = bitboards.isWhiteTurn;
+        long own = isWhite ? bitboards.white : bitboards.black;
+        long enemy = isWhite ? bitboards.black : bitboards.white;
+        long occupied = own | enemy;
+        int king = Long.numberOfTrailingZeros(bitboards.pieces(PieceCode.KING, isWhite));
+        int count = 0;
+        for (long remaining = own; remaining != 0; remaining &= remaining - 1) {
+            int from = Long.numberOfTrailingZeros(remaining);
+            int type = PieceCode.type(position.pieceAt(from));
+            long targets;
+            switch (type) {
+                case PieceCode.PAWN:
+                    count = addPawnMoves(position, bitboards, legalMoves, count, from, king);
+                    if (legalMoves == null && count > 0) {
+                        return count;
+                    }
+                    continue;
+                case PieceCode.KNIGHT:
+                    targets = KNIGHT_ATTACKS[from];
+                    break;
+                case PieceCode.BISHOP:
+                    targets = bishopAttacks(from, occupied);
+                    break;
+                case PieceCode.ROOK:
+                    targets = rookAttacks(from, occupied);
+                    break;
+                case PieceCode.QUEEN:
+                    targets = rookAttacks(from, occupied) | bishopAttacks(from, occupied);
+                    break;
+                default:
+                    targets = KING_ATTACKS[from];
+                    break;
+            }
+            for (targets &= ~own; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                int kingAfter = (from == king) ? to : king;
+                if (isLegal(bitboards, from, to, to, kingAfter)) {
+                    if (legalMoves == null) {
+                        return 1;
+                    }
+                    legalMoves[count++] = EncodedMove.encode(from, to, Move.NORMAL, null);
+                }
+            }
+        }
+        return addCastling(position, bitboards, legalMoves, count, king);
+    }
+
+    /**
+     * @param captured the square whose piece is taken, which only differs from the destination for
+     * en passant
+     */
+    private static boolean isLegal(Bitboards bitboards, int from, int to, int captured, int king) {
+        long occupied = (bitboards.occupied() & ~(1L << from) & ~(1L << captured)) | 1L << to;
+        return !bitboards.isAttacked(king, !bitboards.isWhiteTurn, occupied, 1L << captured);
+    }
+
+    private static int addPawnMoves(Position position, Bitboards bitboards, short[] legalMoves,
+                                    int count, int from, int king) {
+        boolean isWhite = bitboards.isWhiteTurn;
+        long occupied = bitboards.occupied();
+        long enemy = isWhite ? bitboards.black : bitboards.white;
+        int forward = isWhite ? Board.BOARD_WIDTH : -Board.BOARD_WIDTH;
+        int startRank = isWhite ? 1 : Board.BOARD_LENGTH - 2;
+        int one = from + forward;
+        if ((occupied & 1L << one) == 0) {
+            count = addPawnMove(bitboards, legalMoves, count, from, one, king);
+            int two = one + forward;
+            if (EncodedMove.rank(from) == startRank && (occupied & 1L << two) == 0
+                    && isLegal(bitboards, from, two, two, king)) {
+                if (legalMoves == null) {
+                    return count + 1;
+                }
+                legalMoves[count++] = EncodedMove.encode(from, two, Move.NORMAL, null);
+            }
+        }
+        long attacks = isWhite ? WHITE_PAWN_ATTACKS[from] : BLACK_PAWN_ATTACKS[from];
+        for (long targets = attacks & enemy; targets != 0; targets &= targets - 1) {
+            count = addPawnMove(bitboards, legalMoves, count, from,
+                    Long.numberOfTrailingZeros(targets), king);
+        }
+        int enPassant = position.enPassantSquare();
+        if (enPassant >= 0 && (attacks & 1L << enPassant) != 0
+                && isLegal(bitboards, from, enPassant, enPassant - forward, king)) {
+            if (legalMoves == null) {
+                return count + 1;
+            }
+            legalMoves[count++] = EncodedMove.encode(from, enPassant, Move.EN_PASSANT, null);
+        }
+        return count;
+    }
+
+    private static int addPawnMove(Bitboards bitboards, short[] legalMoves, int count, int from,
+                                   int to, int king) {
+        if (!isLegal(bitboards, from, to, to, king)) {
+            return count;
+        }
+        if (legalMoves == null) {
+            return count + 1;
+        }
+        int rank = EncodedMove.rank(to);
+        if (rank != 0 && rank != Board.BOARD_LENGTH - 1) {
+            legalMoves[count++] = EncodedMove.encode(from, to, Move.NORMAL, null);
+            return count;
+        }
+        for (var promotion : PROMOTIONS) {
+            legalMoves[count++] = EncodedMove.encode(from, to, Move.PAWN_PROMOTION, promotion);
+        }
+        return count;
+    }
+
+    /**
+     * Castling is allowed if the king and the rook have not moved, the squares between them are
+     * empty, and the king is not attacked on its square, the square it crosses or the square it
+     * lands on. The move is stored as the king moving to the square of the rook.
+     */
+    private static int addCastling(Position position, Bitboards bitboards, short[] legalMoves,
+                                   int count, int king) {
+        boolean isWhite = bitboards.isWhiteTurn;
+        int home = isWhite ? 0 : SQUARES - Board.BOARD_WIDTH;
+        int rights = position.castlingRights();
+        int kingSide = isWhite ? Board.WHITE_KING_SIDE : Board.BLACK_KING_SIDE;
+        int queenSide = isWhite ? Board.WHITE_QUEEN_SIDE : Board.BLACK_QUEEN_SIDE;
+        if (king != home + KING_FILE || (rights & (kingSide | queenSide)) == 0) {
+            return count;
+        }
+        if ((rights & kingSide) != 0
+                && canCastle(bitboards, king, home + Board.BOARD_WIDTH - 1, 1)) {
+            if (legalMoves == null) {
+                return count + 1;
+            }
+            legalMoves[count++] = EncodedMove.encode(king, home + Board.BOARD_WIDTH - 1,
+                    Move.KING_SIDE_CASTLE, null);
+        }
+        if ((rights & queenSide) != 0 && canCastle(bitboards, king, home, -1)) {
+            if (legalMoves == null) {
+                return count + 1;
+            }
+            legalMoves[count++] = EncodedMove.encode(king, home, Move.QUEEN_SIDE_CASTLE, null);
+        }
+        return count;
+    }
+
+    private static boolean canCastle(Bitboards bitboards, int king, int rook, int direction) {
+        long occupied = bitboards.occupied();
+        for (int square = king + direction; square != rook; square += direction) {
+            if ((occupied & 1L << square) != 0) {
+                return false;
+            }
+        }
+        for (int i = 0; i <= 2; i++) {
+            if (bitboards.isAttacked(king + i * direction, !bitboards.isWhiteTurn, occupied, 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -18,6 +18,11 @@ final class Pawn extends Piece {
         super(board, isWhite, pixels);
     }
 
+    @Override
+    char symbol() {
+        return 'P';
+    }
+
     @Override
     boolean isActionLegal(Point start, Point end) {
         boolean isForward = board().getBoard(end) == null && end.x() == start.x();
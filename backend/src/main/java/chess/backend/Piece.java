@@ -7,26 +7,44 @@ import java.awt.Color;
  */
 public abstract class Piece {
     private static final int PIECE_SIZE = 6;
-    private final Color[][] image = new Color[PIECE_SIZE][PIECE_SIZE];
+    private final int[][] pixels;
     private final Board board;
     private final boolean isWhite;
+    private Color[][] image;
     private boolean hasMoved;
 
     Piece(Board board, boolean isWhite, int[][] pixels) {
         this.board = board;
         this.isWhite = isWhite;
-        for (int i = 0; i < pixels.length; i++) {
-            for (int j = 0; j < pixels.length; j++) {
-                if (pixels[i][j] != 0) {
-                    image[i][j] = isWhite() ? Color.WHITE : Color.BLACK;
-                }
-            }
-        }
+        this.pixels = pixels;
     }
 
     abstract boolean isActionLegal(Point start, Point end);
 
+    /**
+     * @return the upper case letter which represents this piece in algebraic notation
+     */
+    abstract char symbol();
+
+    final int code() {
+        return PieceCode.of(symbol(), isWhite);
+    }
+
+    /**
+     * The image is only needed by the graphical user interface, so it is created on first use
+     * rather than for every piece which is placed on a board.
+     */
     final Color[][] getPieceImage() {
+        if (image == null) {
+            image = new Color[PIECE_SIZE][PIECE_SIZE];
+            for (int i = 0; i < pixels.length; i++) {
+                for (int j = 0; j < pixels.length; j++) {
+                    if (pixels[i][j] != 0) {
+                        image[i][j] = isWhite() ? Color.WHITE : Color.BLACK;
+                    }
+                }
+            }
+        }
         return image;
     }
 
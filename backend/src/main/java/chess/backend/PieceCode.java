@@ -0,0 +1,42 @@
+package chess.backend;
+
+/**
+ * Identifies a piece by a 4-bit code, so that positions can be stored compactly. The lower three
+ * bits are the type of piece, from 1 for a pawn to 6 for a king, and the highest bit is set for
+ * black pieces. Zero is an empty square.
+ */
+public final class PieceCode {
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+    public static final int BLACK = 8;
+    private static final String SYMBOLS = " PNBRQK";
+
+    private PieceCode() {
+    }
+
+    public static int type(int code) {
+        return code & (BLACK - 1);
+    }
+
+    public static boolean isWhite(int code) {
+        return code != EMPTY && (code & BLACK) == 0;
+    }
+
+    /**
+     * @return the letter which represents the piece in Forsyth-Edwards Notation, which is upper
+     * case for white pieces and lower case for black pieces
+     */
+    public static char symbol(int code) {
+        char symbol = SYMBOLS.charAt(type(code));
+        return isWhite(code) ? symbol : Character.toLowerCase(symbol);
+    }
+
+    static int of(char symbol, boolean isWhite) {
+        return SYMBOLS.indexOf(symbol) | (isWhite ? 0 : BLACK);
+    }
+}
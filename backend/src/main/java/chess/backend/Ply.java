@@ -0,0 +1,46 @@
+package chess.backend;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The state associated with a ply, which is an action taken by either white or black. Squares are
+ * compared by the {@link PieceCode} on them rather than by which piece object stands there, so
+ * that two pieces of the same kind which swap squares still repeat the position. The side to move
+ * is kept too, since the same pieces with the other side to move are another position.
+ */
+final class Ply {
+    private static final int SQUARES = Board.BOARD_LENGTH * Board.BOARD_WIDTH;
+
+    private final byte[] pieces = new byte[SQUARES];
+    private final Point enPassant;
+    private final boolean isWhiteTurn;
+    private final int hash;
+
+    Ply(Board board, Point enPassant) {
+        for (int square = 0; square < SQUARES; square++) {
+            pieces[square] = (byte) Fen.code(board, square);
+        }
+        this.enPassant = enPassant;
+        isWhiteTurn = board.isWhiteTurn();
+        hash = 31 * Objects.hash(this.enPassant, isWhiteTurn) + Arrays.hashCode(pieces);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Ply)) {
+            return false;
+        }
+        var history = (Ply) o;
+        return isWhiteTurn == history.isWhiteTurn && Arrays.equals(pieces, history.pieces)
+                && Objects.equals(enPassant, history.enPassant);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
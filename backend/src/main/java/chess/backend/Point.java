@@ -3,22 +3,28 @@ package chess.backend;
 import java.util.Objects;
 
 /**
- * An immutable point class.
+ * An immutable point class. Every point on the board, and one square beyond each edge, is created
+ * when the class is loaded, so the pool is never written afterwards and may be shared by threads.
  */
 public final class Point {
     private static final Point[][] pool = new Point[Board.BOARD_LENGTH + 2][Board.BOARD_WIDTH + 2];
     private final int x;
     private final int y;
 
+    static {
+        for (int i = 0; i < pool.length; i++) {
+            for (int j = 0; j < pool[i].length; j++) {
+                pool[i][j] = new Point(j - 1, i - 1);
+            }
+        }
+    }
+
     private Point(int x, int y) {
         this.x = x;
         this.y = y;
     }
 
     public static Point instance(int x, int y) {
-        if (pool[y + 1][x + 1] == null) {
-            pool[y + 1][x + 1] = new Point(x, y);
-        }
         return pool[y + 1][x + 1];
     }
 
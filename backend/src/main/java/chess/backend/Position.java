@@ -0,0 +1,216 @@
+package chess.backend;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of a position, which may be shared between threads and cached without
+ * copying. The pieces are stored as one {@link PieceCode} per square, so playing a move on a
+ * position copies 64 bytes rather than a board of pieces. The hash is only computed when first
+ * asked for, since a search plays many moves on positions it never hashes.
+ * <p> Squares are numbered from 0 for a1 to 63 for h8, as in {@link EncodedMove}.
+ */
+public final class Position {
+    private static final int SQUARES = Board.BOARD_LENGTH * Board.BOARD_WIDTH;
+    private static final int KING_FILE = 4;
+
+    private final byte[] squares;
+    private final boolean isWhiteTurn;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfMoveClock;
+    private final int fullMoveNumber;
+    private volatile long hash;
+
+    private Position(byte[] squares, boolean isWhiteTurn, int castlingRights,
+                     int enPassantSquare, int halfMoveClock, int fullMoveNumber) {
+        this.squares = squares;
+        this.isWhiteTurn = isWhiteTurn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfMoveClock = halfMoveClock;
+        this.fullMoveNumber = fullMoveNumber;
+    }
+
+    static Position of(Game game) {
+        var squares = new byte[SQUARES];
+        for (int i = 0; i < SQUARES; i++) {
+            squares[i] = (byte) game.pieceAt(i);
+        }
+        return new Position(squares, game.isWhiteTurn(), game.castlingRights(),
+                game.enPassantSquare(), game.halfMoveClock(), game.fullMoveNumber());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a valid position
+     */
+    public static Position fromFen(CharSequence fen) {
+        return of(Fen.parse(fen));
+    }
+
+    /**
+     * @return the piece on the square as a {@link PieceCode}
+     */
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    public boolean isWhiteTurn() {
+        return isWhiteTurn;
+    }
+
+    /**
+     * @return the castling rights, as a combination of the castling constants of {@link Board}
+     */
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square behind a pawn which just moved two squares, or -1 if there is none
+     */
+    public int enPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int halfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int fullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    /**
+     * @return the same hash as {@link Game#positionHash()} gives for this position
+     */
+    public long hash() {
+        long known = hash;
+        if (known == 0) {
+            known = Zobrist.hash(this::pieceAt, isWhiteTurn, castlingRights, enPassantSquare);
+            hash = known;
+        }
+        return known;
+    }
+
+    /**
+     * Plays a move without checking that it is legal, so it must be one of the moves listed by
+     * {@link Game#legalMoves} for this position.
+     *
+     * @return the position after the move, while this position is left unchanged
+     */
+    public Position play(short move) {
+        var next = squares.clone();
+        int from = EncodedMove.from(move);
+        int to = EncodedMove.to(move);
+        int piece = next[from];
+        boolean isIrreversible = PieceCode.type(piece) == PieceCode.PAWN || next[to] != 0;
+        int enPassant = -1;
+        next[from] = PieceCode.EMPTY;
+        switch (EncodedMove.move(move)) {
+            case QUEEN_SIDE_CASTLE:
+            case KING_SIDE_CASTLE:
+                boolean isKingSide = EncodedMove.file(to) > KING_FILE;
+                int rank = EncodedMove.rank(from);
+                next[EncodedMove.square(KING_FILE + (isKingSide ? 1 : -1), rank)] = next[to];
+                next[EncodedMove.square(KING_FILE + (isKingSide ? 2 : -2), rank)] = (byte) piece;
+                next[to] = PieceCode.EMPTY;
+                isIrreversible = false;
+                break;
+            case EN_PASSANT:
+                next[EncodedMove.square(EncodedMove.file(to), EncodedMove.rank(from))] =
+                        PieceCode.EMPTY;
+                next[to] = (byte) piece;
+                break;
+            case PAWN_PROMOTION:
+                next[to] = (byte) (promotionType(EncodedMove.promotion(move))
+                        | (piece & PieceCode.BLACK));
+                break;
+            default:
+                next[to] = (byte) piece;
+                if (PieceCode.type(piece) == PieceCode.PAWN
+                        && Math.abs(EncodedMove.rank(to) - EncodedMove.rank(from)) == 2) {
+                    enPassant = (from + to) / 2;
+                }
+                break;
+        }
+        int rights = castlingRights & ~lostCastlingRights(from) & ~lostCastlingRights(to);
+        return new Position(next, !isWhiteTurn, rights, enPassant,
+                isIrreversible ? 0 : halfMoveClock + 1,
+                isWhiteTurn ? fullMoveNumber : fullMoveNumber + 1);
+    }
+
+    private static int promotionType(PromotionPiece promotion) {
+        switch (promotion) {
+            case QUEEN:
+                return PieceCode.QUEEN;
+            case KNIGHT:
+                return PieceCode.KNIGHT;
+            case ROOK:
+                return PieceCode.ROOK;
+            case BISHOP:
+                return PieceCode.BISHOP;
+            default:
+                throw new IllegalStateException("Invalid promotion piece");
+        }
+    }
+
+    /**
+     * @return the castling rights which are lost when a piece moves from or to the square
+     */
+    private static int lostCastlingRights(int square) {
+        switch (square) {
+            case 0:
+                return Board.WHITE_QUEEN_SIDE;
+            case KING_FILE:
+                return Board.WHITE_QUEEN_SIDE | Board.WHITE_KING_SIDE;
+            case Board.BOARD_WIDTH - 1:
+                return Board.WHITE_KING_SIDE;
+            case SQUARES - Board.BOARD_WIDTH:
+                return Board.BLACK_QUEEN_SIDE;
+            case SQUARES - Board.BOARD_WIDTH + KING_FILE:
+                return Board.BLACK_QUEEN_SIDE | Board.BLACK_KING_SIDE;
+            case SQUARES - 1:
+                return Board.BLACK_KING_SIDE;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * @return a game starting from this position, which does not know which moves led to it
+     */
+    public Game toGame() {
+        return Game.fromFen(toFen());
+    }
+
+    public String toFen() {
+        return Fen.write(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Position)) {
+            return false;
+        }
+        var position = (Position) o;
+        return hash() == position.hash() && isWhiteTurn == position.isWhiteTurn
+                && castlingRights == position.castlingRights
+                && enPassantSquare == position.enPassantSquare
+                && halfMoveClock == position.halfMoveClock
+                && fullMoveNumber == position.fullMoveNumber
+                && Arrays.equals(squares, position.squares);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash());
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
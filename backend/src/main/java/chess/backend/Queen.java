@@ -20,6 +20,11 @@ final class Queen extends Piece {
         super(board, isWhite, pixels);
     }
 
+    @Override
+    char symbol() {
+        return 'Q';
+    }
+
     @Override
     boolean isActionLegal(Point start, Point end) {
         var bishop = new Bishop(board(), isWhite());
@@ -19,6 +19,11 @@ final class Rook extends Piece {
         super(board, isWhite, pixels);
     }
 
+    @Override
+    char symbol() {
+        return 'R';
+    }
+
     @Override
     boolean isActionLegal(Point start, Point end) {
         return isRookActionLegal(start, end) && wouldNotPutAlliedKingIntoCheck(start, end);
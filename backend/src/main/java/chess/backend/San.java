@@ -0,0 +1,160 @@
+package chess.backend;
+
+/**
+ * Resolves moves written in standard algebraic notation against the legal moves of a game. The
+ * move is read from a range of characters in place, so that a whole game can be kept as one
+ * sequence of text while its moves are played.
+ */
+final class San {
+    private static final int ANY = -1;
+
+    private San() {
+    }
+
+    static GameStatus play(Game game, CharSequence text, int start, int end) {
+        while (end > start && isAnnotation(text.charAt(end - 1))) {
+            end--;
+        }
+        if (isCastle(text, start, end, 2)) {
+            return castle(game, text, start, end, Board.BOARD_WIDTH - 1, Move.KING_SIDE_CASTLE);
+        }
+        if (isCastle(text, start, end, 3)) {
+            return castle(game, text, start, end, 0, Move.QUEEN_SIDE_CASTLE);
+        }
+        PromotionPiece promotion = null;
+        if (end - start > 2 && isPromotionSymbol(text.charAt(end - 1))) {
+            promotion = promotionPiece(text.charAt(end - 1));
+            end--;
+            if (text.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end - start < 2) {
+            throw invalid("Illegal move", text, start, end);
+        }
+        int file = text.charAt(end - 2) - 'a';
+        int rank = text.charAt(end - 1) - '1';
+        if (!isFile(file) || !isRank(rank)) {
+            throw invalid("Illegal move", text, start, end);
+        }
+        char symbol = 'P';
+        int index = start;
+        if (text.charAt(index) >= 'A' && text.charAt(index) <= 'Z') {
+            symbol = text.charAt(index);
+            index++;
+        }
+        int fromFile = ANY;
+        int fromRank = ANY;
+        for (; index < end - 2; index++) {
+            char c = text.charAt(index);
+            if (isFile(c - 'a')) {
+                fromFile = c - 'a';
+            } else if (isRank(c - '1')) {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw invalid("Illegal move", text, start, end);
+            }
+        }
+        return resolve(game, text, start, end, symbol, fromFile, fromRank,
+                game.square(file, rank), promotion);
+    }
+
+    private static GameStatus resolve(Game game, CharSequence text, int start, int end,
+                                      char symbol, int fromFile, int fromRank, Point to,
+                                      PromotionPiece promotion) {
+        Piece moving = null;
+        Point from = null;
+        Move move = Move.NONE;
+        for (int rank = 0; rank < Board.BOARD_LENGTH; rank++) {
+            for (int file = 0; file < Board.BOARD_WIDTH; file++) {
+                boolean isOtherFile = fromFile != ANY && file != fromFile;
+                if (isOtherFile || (fromRank != ANY && rank != fromRank)) {
+                    continue;
+                }
+                var point = game.square(file, rank);
+                var piece = game.getAlliedPieceAt(point);
+                if (piece == null || piece.symbol() != symbol) {
+                    continue;
+                }
+                var type = game.availableMove(piece, point, to);
+                if (type == Move.NONE || (type == Move.PAWN_PROMOTION) != (promotion != null)) {
+                    continue;
+                }
+                if (moving != null) {
+                    throw invalid("Ambiguous move", text, start, end);
+                }
+                moving = piece;
+                from = point;
+                move = type;
+            }
+        }
+        if (moving == null) {
+            throw invalid("Illegal move", text, start, end);
+        }
+        return game.apply(moving, from, to, move, promotion);
+    }
+
+    private static GameStatus castle(Game game, CharSequence text, int start, int end,
+                                     int xCoordRook, Move move) {
+        var from = Point.instance(Board.KING_X_COORD, Board.BOARD_LENGTH - 1);
+        var to = Point.instance(xCoordRook, Board.BOARD_LENGTH - 1);
+        var king = game.getAlliedPieceAt(from);
+        if (king == null || game.availableMove(king, from, to) != move) {
+            throw invalid("Illegal move", text, start, end);
+        }
+        return game.apply(king, from, to, move, null);
+    }
+
+    /**
+     * Castling is written as "O-O" or "O-O-O", and some sources use zeros instead of letters.
+     */
+    private static boolean isCastle(CharSequence text, int start, int end, int parts) {
+        if (end - start != 2 * parts - 1) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            boolean isExpected = (i - start) % 2 == 0 ? c == 'O' || c == '0' : c == '-';
+            if (!isExpected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAnnotation(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static boolean isPromotionSymbol(char c) {
+        return c == 'Q' || c == 'N' || c == 'R' || c == 'B';
+    }
+
+    private static PromotionPiece promotionPiece(char c) {
+        switch (c) {
+            case 'Q':
+                return PromotionPiece.QUEEN;
+            case 'N':
+                return PromotionPiece.KNIGHT;
+            case 'R':
+                return PromotionPiece.ROOK;
+            case 'B':
+                return PromotionPiece.BISHOP;
+            default:
+                throw new IllegalStateException("Invalid promotion piece");
+        }
+    }
+
+    private static boolean isFile(int file) {
+        return file >= 0 && file < Board.BOARD_WIDTH;
+    }
+
+    private static boolean isRank(int rank) {
+        return rank >= 0 && rank < Board.BOARD_LENGTH;
+    }
+
+    private static IllegalArgumentException invalid(String reason, CharSequence text, int start,
+                                                    int end) {
+        return new IllegalArgumentException(reason + ": " + text.subSequence(start, end));
+    }
+}
@@ -0,0 +1,119 @@
+package chess.backend;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads the state of a game in a small binary format. Instead of the repetition history
+ * itself, it holds the position after the last capture, pawn move or castling, which is where the
+ * history was last cleared, and the moves played since then. Replaying those moves rebuilds the
+ * history, so repetitions and the fifty-move rule carry on exactly as in the saved game.
+ * <p> Whether each piece has moved follows from the position, as it does when reading FEN: pawns
+ * have moved unless they are on their starting rank, and kings and rooks have moved unless they
+ * still have a castling right. No other piece depends on it.
+ * <p> The format is, in big-endian order:
+ * <p> 1 byte: the format {@link #VERSION}
+ * <p> 8 bytes: a mask of the occupied squares, with bit 0 for a1 and bit 63 for h8
+ * <p> 4 bits each, two to a byte, lowest square first: the {@link PieceCode} of each occupied
+ * square
+ * <p> 1 byte: one if black is to move, plus the castling rights shifted left by one
+ * <p> 1 byte: the en passant square, or -1 if there is none
+ * <p> 2 bytes each: the half-move clock and the full-move number
+ * <p> 2 bytes: the amount of moves which follow, and 2 bytes for each move
+ */
+final class SavedGame {
+    static final int VERSION = 1;
+    private static final int MAX_SHORT = 0xFFFF;
+
+    private SavedGame() {
+    }
+
+    static byte[] write(Position base, short[] moves, int from, int to) {
+        long occupied = occupied(base);
+        int count = to - from;
+        int pieceBytes = (Long.bitCount(occupied) + 1) / 2;
+        var buffer = ByteBuffer.allocate(1 + Long.BYTES + pieceBytes + 8 + 2 * count);
+        buffer.put((byte) VERSION);
+        buffer.putLong(occupied);
+        int pair = -1;
+        for (long bits = occupied; bits != 0; bits &= bits - 1) {
+            int code = base.pieceAt(Long.numberOfTrailingZeros(bits));
+            if (pair < 0) {
+                pair = code;
+            } else {
+                buffer.put((byte) (pair | code << 4));
+                pair = -1;
+            }
+        }
+        if (pair >= 0) {
+            buffer.put((byte) pair);
+        }
+        buffer.put((byte) ((base.isWhiteTurn() ? 0 : 1) | base.castlingRights() << 1));
+        buffer.put((byte) base.enPassantSquare());
+        buffer.putShort(toShort(base.halfMoveClock(), "half-move clock"));
+        buffer.putShort(toShort(base.fullMoveNumber(), "full-move number"));
+        buffer.putShort(toShort(count, "amount of moves"));
+        for (int i = from; i < to; i++) {
+            buffer.putShort(moves[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes do not hold a game of a known version, or hold
+     * an invalid position or an illegal move
+     */
+    static Game read(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        try {
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown saved game version " + version);
+            }
+            long occupied = buffer.getLong();
+            var codes = new int[Board.BOARD_LENGTH * Board.BOARD_WIDTH];
+            int pair = 0;
+            boolean isHigh = false;
+            for (long bits = occupied; bits != 0; bits &= bits - 1) {
+                if (!isHigh) {
+                    pair = buffer.get();
+                }
+                codes[Long.numberOfTrailingZeros(bits)] = isHigh ? (pair >> 4) & 0xF : pair & 0xF;
+                isHigh = !isHigh;
+            }
+            int flags = buffer.get();
+            int enPassantSquare = buffer.get();
+            int halfMoveClock = Short.toUnsignedInt(buffer.getShort());
+            int fullMoveNumber = Short.toUnsignedInt(buffer.getShort());
+            var game = Game.fromFen(Fen.write(square -> codes[square], (flags & 1) == 0,
+                    (flags >> 1) & 0xF, enPassantSquare, halfMoveClock, fullMoveNumber));
+            int count = Short.toUnsignedInt(buffer.getShort());
+            for (int i = 0; i < count; i++) {
+                game.play(buffer.getShort());
+            }
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Saved game has trailing bytes");
+            }
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Saved game is truncated", e);
+        }
+    }
+
+    private static long occupied(Position position) {
+        long occupied = 0;
+        for (int square = 0; square < Board.BOARD_LENGTH * Board.BOARD_WIDTH; square++) {
+            if (position.pieceAt(square) != PieceCode.EMPTY) {
+                occupied |= 1L << square;
+            }
+        }
+        return occupied;
+    }
+
+    private static short toShort(int value, String name) {
+        if (value < 0 || value > MAX_SHORT) {
+            throw new IllegalStateException("The " + name + " is too large to save: " + value);
+        }
+        return (short) value;
+    }
+}
@@ -0,0 +1,87 @@
+package chess.backend;
+
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Hashes positions into 64 bits by combining a random number for each piece on each square, for the
+ * side to move, for the castling rights and for the file of the en passant square. The numbers come
+ * from a fixed seed, so that hashes may be stored and compared across runs.
+ */
+final class Zobrist {
+    private static final int SQUARES = Board.BOARD_LENGTH * Board.BOARD_WIDTH;
+    private static final long[][] PIECES = new long[2 * PieceCode.BLACK][SQUARES];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[Board.BOARD_WIDTH];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        var random = new SplittableRandom(0x2F6A_91C4_D35E_0B87L);
+        for (var piece : PIECES) {
+            for (int i = 0; i < SQUARES; i++) {
+                piece[i] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int code, int square) {
+        return PIECES[code][square];
+    }
+
+    static long castling(int castlingRights) {
+        return CASTLING[castlingRights];
+    }
+
+    static long enPassant(int file) {
+        return EN_PASSANT[file];
+    }
+
+    static long side(boolean isWhiteTurn) {
+        return isWhiteTurn ? 0 : BLACK_TO_MOVE;
+    }
+
+    static long hash(Board board, Point enPassant) {
+        int enPassantSquare = (enPassant == null) ? -1 : board.squareIndex(enPassant);
+        return hash(square -> Fen.code(board, square), board.isWhiteTurn(),
+                board.castlingRights(), enPassantSquare);
+    }
+
+    /**
+     * The en passant square is only part of the hash if a pawn could capture there, so that the
+     * same position reached through different move orders has the same hash.
+     *
+     * @param pieceAt gives the {@link PieceCode} on each square, from 0 for a1 to 63 for h8
+     * @param enPassantSquare the en passant square, or -1 if there is none
+     */
+    static long hash(IntUnaryOperator pieceAt, boolean isWhiteTurn, int castlingRights,
+                     int enPassantSquare) {
+        long hash = side(isWhiteTurn) ^ castling(castlingRights);
+        for (int square = 0; square < SQUARES; square++) {
+            int code = pieceAt.applyAsInt(square);
+            if (code != PieceCode.EMPTY) {
+                hash ^= piece(code, square);
+            }
+        }
+        if (enPassantSquare >= 0) {
+            int file = EncodedMove.file(enPassantSquare);
+            int rank = EncodedMove.rank(enPassantSquare) + (isWhiteTurn ? -1 : 1);
+            int pawn = PieceCode.PAWN | (isWhiteTurn ? 0 : PieceCode.BLACK);
+            if ((file > 0 && pieceAt.applyAsInt(EncodedMove.square(file - 1, rank)) == pawn)
+                    || (file < Board.BOARD_WIDTH - 1
+                    && pieceAt.applyAsInt(EncodedMove.square(file + 1, rank)) == pawn)) {
+                hash ^= enPassant(file);
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,50 @@
+package chess.engine;
+
+import chess.backend.Board;
+import chess.backend.EncodedMove;
+import chess.backend.PieceCode;
+import chess.backend.Position;
+
+/**
+ * Scores a position by its material, with a small bonus for pieces near the centre of the board.
+ * Scores are in hundredths of a pawn, from the point of view of the side to move.
+ */
+final class Evaluation {
+    private static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 0};
+    private static final int CENTRE_BONUS = 4;
+
+    private Evaluation() {
+    }
+
+    static int evaluate(Position position) {
+        int score = 0;
+        for (int square = 0; square < Board.BOARD_LENGTH * Board.BOARD_WIDTH; square++) {
+            int code = position.pieceAt(square);
+            if (code == PieceCode.EMPTY) {
+                continue;
+            }
+            int type = PieceCode.type(code);
+            int value = PIECE_VALUES[type];
+            if (type != PieceCode.KING && type != PieceCode.QUEEN) {
+                value += CENTRE_BONUS * centrality(square);
+            }
+            score += PieceCode.isWhite(code) ? value : -value;
+        }
+        return position.isWhiteTurn() ? score : -score;
+    }
+
+    static int pieceValue(int code) {
+        return PIECE_VALUES[PieceCode.type(code)];
+    }
+
+    /**
+     * @return from 0 on the edge of the board to 3 on the four central squares
+     */
+    private static int centrality(int square) {
+        int file = EncodedMove.file(square);
+        int rank = EncodedMove.rank(square);
+        int fileDistance = Math.min(file, Board.BOARD_WIDTH - 1 - file);
+        int rankDistance = Math.min(rank, Board.BOARD_LENGTH - 1 - rank);
+        return Math.min(fileDistance, rankDistance);
+    }
+}
@@ -0,0 +1,336 @@
+package chess.engine;
+
+import chess.backend.EncodedMove;
+import chess.backend.Game;
+import chess.backend.GameStatus;
+import chess.backend.MoveGenerator;
+import chess.backend.PieceCode;
+import chess.backend.Position;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Command line tool which checks {@link MoveGenerator} against the rules of {@link Game}, which
+ * are the reference. Each thread plays games through both side by side, with random moves or with
+ * the engine, and after every ply compares the legal moves, the status, the repetition count and
+ * the position hash. The first divergence stops the run, and is shrunk to a reproducer by
+ * starting from as late a position as possible, and then removing every piece which is not needed
+ * for the divergence to show.
+ * <p> Usage: MoveGeneratorFuzzer [seconds] [threads] [seed] [engine-games-per-100]
+ */
+public final class MoveGeneratorFuzzer {
+    private static final int DEFAULT_SECONDS = 60;
+    private static final int DEFAULT_ENGINE_PERCENT = 5;
+    private static final int ENGINE_NODES = 100;
+    private static final String INITIAL_POSITION = new Game().toFen();
+
+    private final long seed;
+    private final int enginePercent;
+    private final long deadline;
+    private final AtomicLong nextGame = new AtomicLong();
+    private final AtomicLong plies = new AtomicLong();
+    private final AtomicReference<Divergence> divergence = new AtomicReference<>();
+
+    private MoveGeneratorFuzzer(long seed, int enginePercent, long deadline) {
+        this.seed = seed;
+        this.enginePercent = enginePercent;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 4) {
+            System.err.println("Usage: MoveGeneratorFuzzer [seconds] [threads] [seed]"
+                    + " [engine-games-per-100]");
+            System.exit(2);
+        }
+        int seconds = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_SECONDS;
+        int threads = (args.length > 1)
+                ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : System.nanoTime();
+        int enginePercent = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_ENGINE_PERCENT;
+        if (seconds < 1 || threads < 1 || enginePercent < 0 || enginePercent > 100) {
+            throw new IllegalArgumentException("Invalid duration, thread count or engine share");
+        }
+        long start = System.nanoTime();
+        var fuzzer = new MoveGeneratorFuzzer(seed, enginePercent,
+                start + TimeUnit.SECONDS.toNanos(seconds));
+        var workers = new ArrayList<Thread>();
+        for (int i = 0; i < threads; i++) {
+            var worker = new Thread(fuzzer::run, "fuzzer-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (var worker : workers) {
+            worker.join();
+        }
+        double minutes = (System.nanoTime() - start) / (double) TimeUnit.MINUTES.toNanos(1);
+        System.out.printf("seed %d: %d games, %d plies, %.0f plies/min on %d threads%n", seed,
+                fuzzer.nextGame.get(), fuzzer.plies.get(), fuzzer.plies.get() / minutes, threads);
+        var found = fuzzer.divergence.get();
+        if (found != null) {
+            System.out.println(found.shrink());
+            System.exit(1);
+        }
+    }
+
+    private void run() {
+        while (System.nanoTime() < deadline && divergence.get() == null) {
+            long index = nextGame.getAndIncrement();
+            var random = new SplittableRandom(seed + index);
+            var policy = (random.nextInt(100) < enginePercent)
+                    ? MovePolicy.engine(ENGINE_NODES, random.split())
+                    : MovePolicy.random(random.split());
+            var found = play(policy);
+            if (found != null) {
+                divergence.compareAndSet(null, found);
+            }
+        }
+    }
+
+    private Divergence play(MovePolicy policy) {
+        var twins = new Twins(INITIAL_POSITION);
+        var moves = new ArrayList<Short>();
+        var status = GameStatus.ONGOING;
+        while (!status.isGameOver() && moves.size() < Simulator.MAX_PLIES) {
+            var difference = twins.compareMoves();
+            if (difference == null) {
+                short move = policy.choose(twins.game);
+                moves.add(move);
+                status = twins.game.play(move);
+                difference = twins.play(move, status);
+                plies.incrementAndGet();
+            }
+            if (difference != null) {
+                return new Divergence(INITIAL_POSITION, moves, difference);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A game played by {@link Game} and by {@link MoveGenerator} on a {@link Position} at the
+     * same time, with a history of positions which counts repetitions the way {@link Game} does.
+     */
+    private static final class Twins {
+        private final Game game;
+        private final Map<Long, Integer> history = new HashMap<>();
+        private final short[] expected = new short[Search.MAX_MOVES];
+        private final short[] actual = new short[Search.MAX_MOVES];
+        private Position position;
+
+        private Twins(String fen) {
+            game = Game.fromFen(fen);
+            position = Position.fromFen(fen);
+        }
+
+        /**
+         * @return what differs between the legal moves of both, or null if they are the same
+         */
+        private String compareMoves() {
+            int expectedCount = game.legalMoves(expected);
+            int actualCount = MoveGenerator.legalMoves(position, actual);
+            Arrays.sort(expected, 0, expectedCount);
+            Arrays.sort(actual, 0, actualCount);
+            if (Arrays.equals(expected, 0, expectedCount, actual, 0, actualCount)) {
+                return null;
+            }
+            var missing = new ArrayList<String>();
+            var extra = new ArrayList<String>();
+            for (int i = 0, j = 0; i < expectedCount || j < actualCount; ) {
+                if (j == actualCount || (i < expectedCount && expected[i] < actual[j])) {
+                    missing.add(EncodedMove.toString(expected[i++]));
+                } else if (i == expectedCount || actual[j] < expected[i]) {
+                    extra.add(EncodedMove.toString(actual[j++]));
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+            return "legal moves differ, missing " + missing + ", extra " + extra;
+        }
+
+        /**
+         * Plays on the position the move which was just played on the game.
+         *
+         * @return what differs after the move, or null if nothing does
+         */
+        private String play(short move, GameStatus expectedStatus) {
+            var before = position;
+            position = before.play(move);
+            boolean isPawnMove =
+                    PieceCode.type(before.pieceAt(EncodedMove.from(move))) == PieceCode.PAWN;
+            int repetitions = 0;
+            // Castling is stored as the king moving onto its rook, so it clears the history too
+            if (isPawnMove || before.pieceAt(EncodedMove.to(move)) != PieceCode.EMPTY) {
+                history.clear();
+            } else {
+                repetitions = history.merge(MoveGenerator.repetitionKey(before), 1, Integer::sum);
+            }
+            var status = MoveGenerator.status(position, repetitions);
+            if (status != expectedStatus) {
+                return "status after " + EncodedMove.toString(move) + " is " + status
+                        + " rather than " + expectedStatus;
+            }
+            if (repetitions != game.repetitionCount()) {
+                return "repetition count after " + EncodedMove.toString(move) + " is "
+                        + repetitions + " rather than " + game.repetitionCount();
+            }
+            if (position.hash() != game.positionHash()) {
+                return "position after " + EncodedMove.toString(move) + " is " + position
+                        + " rather than " + game.toFen();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Moves from a starting position after which both implementations disagree.
+     */
+    private static final class Divergence {
+        private final String fen;
+        private final List<Short> moves;
+        private final String difference;
+
+        private Divergence(String fen, List<Short> moves, String difference) {
+            this.fen = fen;
+            this.moves = moves;
+            this.difference = difference;
+        }
+
+        /**
+         * @return the difference found by replaying the moves, or null if there is none, or if a
+         * move is not legal in the reference
+         */
+        private static String replay(String fen, List<Short> moves) {
+            Twins twins;
+            try {
+                twins = new Twins(fen);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            for (short move : moves) {
+                var difference = twins.compareMoves();
+                if (difference != null) {
+                    return difference;
+                }
+                GameStatus status;
+                try {
+                    status = twins.game.play(move);
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+                difference = twins.play(move, status);
+                if (difference != null) {
+                    return difference;
+                }
+            }
+            return twins.compareMoves();
+        }
+
+        /**
+         * @return a divergence which starts from the latest position that still shows it, with
+         * every piece removed from that position which is not needed to show it
+         */
+        private Divergence shrink() {
+            var fens = new ArrayList<String>();
+            var game = Game.fromFen(fen);
+            fens.add(game.toFen());
+            for (short move : moves) {
+                game.play(move);
+                fens.add(game.toFen());
+            }
+            var shrunk = this;
+            for (int start = moves.size(); start >= 0; start--) {
+                var tail = moves.subList(start, moves.size());
+                var difference = replay(fens.get(start), tail);
+                if (difference != null) {
+                    shrunk = new Divergence(fens.get(start), new ArrayList<>(tail), difference);
+                    break;
+                }
+            }
+            for (boolean isShrinking = true; isShrinking; ) {
+                isShrinking = false;
+                for (int square = 0; square < 64; square++) {
+                    var fewer = withoutPiece(shrunk.fen, square);
+                    if (fewer == null) {
+                        continue;
+                    }
+                    var difference = replay(fewer, shrunk.moves);
+                    if (difference != null && kind(difference).equals(kind(shrunk.difference))) {
+                        shrunk = new Divergence(fewer, shrunk.moves, difference);
+                        isShrinking = true;
+                    }
+                }
+            }
+            return shrunk;
+        }
+
+        /**
+         * @return which of the compared things differs, such as the legal moves or the status
+         */
+        private static String kind(String difference) {
+            return difference.substring(0, difference.indexOf(' '));
+        }
+
+        /**
+         * @return the position with the piece on the square removed, or null if there is no piece
+         * other than a king on it
+         */
+        private static String withoutPiece(String fen, int square) {
+            int end = fen.indexOf(' ');
+            var rows = fen.substring(0, end).split("/");
+            int rank = EncodedMove.rank(square);
+            int file = EncodedMove.file(square);
+            var row = new StringBuilder();
+            for (char c : rows[7 - rank].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    row.append(" ".repeat(c - '0'));
+                } else {
+                    row.append(c);
+                }
+            }
+            char piece = row.charAt(file);
+            if (piece == ' ' || Character.toUpperCase(piece) == 'K') {
+                return null;
+            }
+            row.setCharAt(file, ' ');
+            var packed = new StringBuilder();
+            int empty = 0;
+            for (int i = 0; i < row.length(); i++) {
+                if (row.charAt(i) == ' ') {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    packed.append(empty);
+                    empty = 0;
+                }
+                packed.append(row.charAt(i));
+            }
+            if (empty > 0) {
+                packed.append(empty);
+            }
+            rows[7 - rank] = packed.toString();
+            return String.join("/", rows) + fen.substring(end);
+        }
+
+        @Override
+        public String toString() {
+            var text = new StringBuilder("Divergence: ").append(difference).append('\n');
+            text.append("Position: ").append(fen).append('\n');
+            text.append("Moves:");
+            for (short move : moves) {
+                text.append(' ').append(EncodedMove.toString(move));
+            }
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package chess.engine;
+
+import chess.backend.Game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Chooses the move to play in a game which is not driven by a user. A policy may keep state between
+ * moves, so it must only be used by one thread at a time.
+ */
+public interface MovePolicy {
+    int OPENING_PLIES = 8;
+    int ENGINE_MAX_DEPTH = 8;
+
+    /**
+     * @return the move to play, packed as by {@link chess.backend.EncodedMove}, for a game which
+     * has at least one legal move
+     */
+    short choose(Game game);
+
+    /**
+     * @return a policy which plays a uniformly random legal move
+     */
+    static MovePolicy random(SplittableRandom random) {
+        var moves = new short[Search.MAX_MOVES];
+        return game -> moves[random.nextInt(game.legalMoves(moves))];
+    }
+
+    /**
+     * @return a policy which plays random moves for the first {@link #OPENING_PLIES} plies, so that
+     * games differ from each other, and then the best move found by a search of the given amount of
+     * nodes
+     */
+    static MovePolicy engine(long nodes, SplittableRandom random) {
+        var opening = random(random);
+        var search = new Search(ENGINE_MAX_DEPTH, nodes);
+        return game -> (game.plyCount() < OPENING_PLIES)
+                ? opening.choose(game) : search.search(game).move();
+    }
+}
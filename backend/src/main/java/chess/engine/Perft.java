@@ -0,0 +1,40 @@
+package chess.engine;
+
+import chess.backend.MoveGenerator;
+import chess.backend.Position;
+
+/**
+ * Counts the positions reached by every sequence of legal moves of a given length, which is the
+ * usual way to check a move generator against known totals and to measure its speed. The last ply
+ * is counted from the amount of legal moves rather than by playing them.
+ */
+public final class Perft {
+    private Perft() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the depth is negative
+     */
+    public static long count(Position position, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative");
+        }
+        if (depth == 0) {
+            return 1;
+        }
+        return count(position, depth, new short[depth][Search.MAX_MOVES]);
+    }
+
+    private static long count(Position position, int depth, short[][] moves) {
+        var plyMoves = moves[depth - 1];
+        int count = MoveGenerator.legalMoves(position, plyMoves);
+        if (depth == 1) {
+            return count;
+        }
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += count(position.play(plyMoves[i]), depth - 1, moves);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,406 @@
+package chess.engine;
+
+import chess.backend.EncodedMove;
+import chess.backend.MoveGenerator;
+import chess.backend.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line tool which runs a deep perft, or the analysis of many positions, over worker
+ * processes, so that the work is not bound by the heap and the garbage collector of one JVM.
+ * <p> A perft is split by root move, and further into subtrees until there are enough tasks for
+ * every process to get several. Each {@link PerftWorker} gets one task at a time over a local
+ * socket, so that faster workers take more of them. Once no task is left to hand out, a task which
+ * has run much longer than the average is also given to an idle worker, and whichever finishes
+ * first counts. The tasks of a worker which dies are handed out again, and the worker is replaced.
+ * The coordinator only listens on the loopback address, so workers started by hand must run on
+ * the same host, and connect to the port which is printed at start. The protocol is made of lines
+ * of text over TCP, so workers on other hosts could take part once the coordinator listens beyond
+ * loopback.
+ * <p> Usage: PerftCoordinator perft depth [processes] [fen]
+ * <br> Usage: PerftCoordinator analyse positions-file nodes [processes]
+ */
+public final class PerftCoordinator {
+    private static final String INITIAL_POSITION =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int TASKS_PER_PROCESS = 16;
+    private static final int STRAGGLER_FACTOR = 4;
+    private static final long MIN_STRAGGLER_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long CHECK_MILLIS = 100;
+    private static final int MAX_COPIES = 2;
+    private static final int MAX_RESPAWNS_PER_PROCESS = 3;
+
+    private final ServerSocket server;
+    private final int processes;
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private final ArrayDeque<Connection> idle = new ArrayDeque<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private final List<Process> workerProcesses = new ArrayList<>();
+    private int remaining;
+    private int respawns;
+    private long completedNanos;
+    private int completed;
+    private String failure;
+
+    private PerftCoordinator(int processes) throws IOException {
+        this.processes = processes;
+        server = new ServerSocket(0, processes, InetAddress.getLoopbackAddress());
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || args.length > 4
+                || !(args[0].equals("perft") || args[0].equals("analyse"))) {
+            System.err.println("Usage: PerftCoordinator perft depth [processes] [fen]");
+            System.err.println("Usage: PerftCoordinator analyse positions-file nodes [processes]");
+            System.exit(2);
+        }
+        boolean isPerft = args[0].equals("perft");
+        int processes = (args.length > (isPerft ? 2 : 3))
+                ? Integer.parseInt(args[isPerft ? 2 : 3])
+                : Runtime.getRuntime().availableProcessors();
+        if (processes < 1) {
+            throw new IllegalArgumentException("Invalid process count");
+        }
+        var coordinator = new PerftCoordinator(processes);
+        System.err.println("Workers may connect to port " + coordinator.server.getLocalPort());
+        long start = System.nanoTime();
+        if (isPerft) {
+            var fen = (args.length > 3) ? args[3] : INITIAL_POSITION;
+            coordinator.perft(Position.fromFen(fen), Integer.parseInt(args[1]));
+        } else {
+            coordinator.analyse(Files.readAllLines(Path.of(args[1])), Long.parseLong(args[2]));
+        }
+        double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("%.1f s on %d processes, %d respawned%n", seconds, processes,
+                coordinator.respawns);
+    }
+
+    private void perft(Position root, int depth) throws IOException, InterruptedException {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+        var moves = new short[Search.MAX_MOVES];
+        int count = MoveGenerator.legalMoves(root, moves);
+        var subtrees = new ArrayList<Subtree>();
+        for (int i = 0; i < count; i++) {
+            subtrees.add(new Subtree(moves[i], root.play(moves[i])));
+        }
+        // Splits subtrees one ply further until there are enough tasks to balance the work
+        int left = depth - 1;
+        for (; left > 1 && subtrees.size() < processes * TASKS_PER_PROCESS; left--) {
+            var deeper = new ArrayList<Subtree>();
+            for (var subtree : subtrees) {
+                count = MoveGenerator.legalMoves(subtree.position, moves);
+                for (int i = 0; i < count; i++) {
+                    deeper.add(new Subtree(subtree.rootMove, subtree.position.play(moves[i])));
+                }
+            }
+            subtrees = deeper;
+        }
+        var tasks = new ArrayList<String>();
+        for (var subtree : subtrees) {
+            tasks.add(PerftWorker.PERFT + ' ' + left + ' ' + subtree.position.toFen());
+        }
+        var results = run(tasks);
+        var divide = new LinkedHashMap<String, Long>();
+        long total = 0;
+        for (int i = 0; i < subtrees.size(); i++) {
+            long nodes = Long.parseLong(results[i]);
+            divide.merge(EncodedMove.toString(subtrees.get(i).rootMove), nodes, Long::sum);
+            total += nodes;
+        }
+        divide.forEach((move, nodes) -> System.out.println(move + ": " + nodes));
+        System.out.println("Nodes: " + total);
+    }
+
+    private void analyse(List<String> lines, long nodes) throws IOException, InterruptedException {
+        var fens = new ArrayList<String>();
+        for (var line : lines) {
+            if (!line.isBlank()) {
+                fens.add(Position.fromFen(line.strip()).toFen());
+            }
+        }
+        var tasks = new ArrayList<String>();
+        for (var fen : fens) {
+            tasks.add(PerftWorker.ANALYSE + ' ' + nodes + ' ' + fen);
+        }
+        var results = run(tasks);
+        for (int i = 0; i < fens.size(); i++) {
+            System.out.println(fens.get(i) + " ; " + results[i]);
+        }
+    }
+
+    /**
+     * Hands the tasks out to worker processes until every one has a result.
+     *
+     * @param tasks the tasks without their "TASK id" prefix
+     * @return the result of each task, without its "RESULT id" prefix
+     * @throws IllegalStateException if a task fails, or if no worker is left
+     */
+    private String[] run(List<String> tasks) throws IOException, InterruptedException {
+        var all = new ArrayList<Task>();
+        synchronized (this) {
+            for (int i = 0; i < tasks.size(); i++) {
+                var task = new Task(i, tasks.get(i));
+                all.add(task);
+                queue.add(task);
+            }
+            remaining = tasks.size();
+        }
+        var acceptor = new Thread(this::accept, "perft-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        for (int i = 0; i < processes; i++) {
+            spawn();
+        }
+        try {
+            synchronized (this) {
+                while (remaining > 0 && failure == null) {
+                    wait(CHECK_MILLIS);
+                    replaceDeadProcesses();
+                    rebalance();
+                }
+                if (failure != null) {
+                    throw new IllegalStateException(failure);
+                }
+            }
+        } finally {
+            shutDown();
+        }
+        var results = new String[all.size()];
+        for (var task : all) {
+            results[task.id] = task.result;
+        }
+        return results;
+    }
+
+    private void spawn() throws IOException {
+        var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        var process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                PerftWorker.class.getName(), InetAddress.getLoopbackAddress().getHostAddress(),
+                Integer.toString(server.getLocalPort()))
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        synchronized (this) {
+            workerProcesses.add(process);
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                var socket = server.accept();
+                socket.setTcpNoDelay(true);
+                var connection = new Connection(socket);
+                var reader = new Thread(() -> read(connection), "perft-reader");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                // Closing the server socket ends the loop
+            }
+        }
+    }
+
+    private void read(Connection connection) {
+        try (connection.socket) {
+            var hello = connection.in.readLine();
+            if (hello == null || !hello.startsWith(PerftWorker.HELLO + ' ')) {
+                return;
+            }
+            connection.name = "worker " + hello.substring(PerftWorker.HELLO.length() + 1);
+            synchronized (this) {
+                connections.add(connection);
+                idle.add(connection);
+                dispatch();
+            }
+            for (var line = connection.in.readLine(); line != null;
+                 line = connection.in.readLine()) {
+                var fields = line.split(" ", 3);
+                synchronized (this) {
+                    if (isResultOf(connection.task, fields)) {
+                        complete(connection, fields[2]);
+                    } else {
+                        failure = connection.name + ": " + line;
+                    }
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            // A worker which cannot be read from is handled as a dead one
+        } finally {
+            synchronized (this) {
+                drop(connection);
+            }
+        }
+    }
+
+    /**
+     * @return whether the line is the result of the task which the worker was given, since any
+     * other line breaks the protocol
+     */
+    private static boolean isResultOf(Task task, String[] fields) {
+        return task != null && fields.length == 3 && fields[0].equals(PerftWorker.RESULT)
+                && fields[1].equals(Integer.toString(task.id));
+    }
+
+    private void complete(Connection connection, String result) {
+        var task = connection.task;
+        connection.task = null;
+        task.copies--;
+        if (task.result == null) {
+            task.result = result;
+            remaining--;
+            completed++;
+            completedNanos += System.nanoTime() - task.started;
+        }
+        idle.add(connection);
+        dispatch();
+    }
+
+    private void drop(Connection connection) {
+        if (!connections.remove(connection)) {
+            return;
+        }
+        idle.remove(connection);
+        var task = connection.task;
+        if (task != null && task.result == null && --task.copies == 0) {
+            System.err.println(connection.name + " died, task " + task.id + " handed out again");
+            queue.addFirst(task);
+            dispatch();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Starts a new worker for every one which ended before all tasks were done.
+     */
+    private void replaceDeadProcesses() throws IOException {
+        for (int i = 0; i < workerProcesses.size(); i++) {
+            if (!workerProcesses.get(i).isAlive()) {
+                workerProcesses.remove(i--);
+                respawns++;
+                if (respawns > processes * MAX_RESPAWNS_PER_PROCESS) {
+                    failure = "Workers keep dying";
+                    return;
+                }
+                spawn();
+            }
+        }
+    }
+
+    private void dispatch() {
+        while (!idle.isEmpty() && !queue.isEmpty()) {
+            var task = queue.poll();
+            if (task.result == null) {
+                send(idle.poll(), task);
+            }
+        }
+    }
+
+    /**
+     * Gives the slowest running task to an idle worker too, once no task is waiting.
+     */
+    private void rebalance() {
+        if (idle.isEmpty() || !queue.isEmpty() || completed == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long threshold =
+                Math.max(MIN_STRAGGLER_NANOS, STRAGGLER_FACTOR * completedNanos / completed);
+        Task slowest = null;
+        for (var connection : connections) {
+            var task = connection.task;
+            if (task != null && task.result == null && task.copies < MAX_COPIES
+                    && now - task.started > threshold
+                    && (slowest == null || task.started < slowest.started)) {
+                slowest = task;
+            }
+        }
+        if (slowest != null) {
+            System.err.println("Task " + slowest.id + " is slow, also handed to another worker");
+            send(idle.poll(), slowest);
+        }
+    }
+
+    private void send(Connection connection, Task task) {
+        connection.task = task;
+        // A copy of a slow task keeps the start of the first, which the average is taken from
+        if (task.copies++ == 0) {
+            task.started = System.nanoTime();
+        }
+        connection.out.println(PerftWorker.TASK + ' ' + task.id + ' ' + task.command);
+        connection.out.flush();
+    }
+
+    private void shutDown() throws InterruptedException, IOException {
+        List<Process> started;
+        synchronized (this) {
+            for (var connection : connections) {
+                connection.out.println(PerftWorker.QUIT);
+                connection.out.flush();
+            }
+            started = new ArrayList<>(workerProcesses);
+        }
+        server.close();
+        for (var process : started) {
+            // A worker still busy with a copy of a finished task is not waited for
+            if (!process.waitFor(CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static final class Subtree {
+        private final short rootMove;
+        private final Position position;
+
+        private Subtree(short rootMove, Position position) {
+            this.rootMove = rootMove;
+            this.position = position;
+        }
+    }
+
+    private static final class Task {
+        private final int id;
+        private final String command;
+        private String result;
+        private int copies;
+        private long started;
+
+        private Task(int id, String command) {
+            this.id = id;
+            this.command = command;
+        }
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+        private String name;
+        private Task task;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package chess.engine;
+
+import chess.backend.EncodedMove;
+import chess.backend.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Command line tool which connects to a {@link PerftCoordinator} and works on the tasks it is sent,
+ * one at a time, until it is told to quit or the connection is closed.
+ * <p> The protocol is made of lines of text, so that it works the same between processes of one
+ * host as between hosts:
+ * <p> The worker first sends "HELLO pid".
+ * <p> The coordinator sends "TASK id PERFT depth fen", answered by "RESULT id nodes", or
+ * "TASK id ANALYSE nodes fen", answered by "RESULT id move score depth nodes", where the move is
+ * in coordinate notation, or "none" if there is no legal move. A task which fails is answered by
+ * "ERROR id message".
+ * <p> The coordinator sends "QUIT" once it needs no more work.
+ * <p> Usage: PerftWorker host port
+ */
+public final class PerftWorker {
+    static final String HELLO = "HELLO";
+    static final String TASK = "TASK";
+    static final String PERFT = "PERFT";
+    static final String ANALYSE = "ANALYSE";
+    static final String RESULT = "RESULT";
+    static final String ERROR = "ERROR";
+    static final String QUIT = "QUIT";
+    static final String NO_MOVE = "none";
+
+    private PerftWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: PerftWorker host port");
+            System.exit(2);
+        }
+        try (var socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            var in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            var out = new PrintWriter(socket.getOutputStream(), false, StandardCharsets.UTF_8);
+            out.println(HELLO + ' ' + ProcessHandle.current().pid());
+            out.flush();
+            for (var line = in.readLine(); line != null && !line.equals(QUIT);
+                 line = in.readLine()) {
+                out.println(handle(line));
+                out.flush();
+            }
+        }
+    }
+
+    /**
+     * @return the answer to a task line
+     */
+    static String handle(String line) {
+        var fields = line.split(" ", 5);
+        if (fields.length < 5 || !fields[0].equals(TASK)) {
+            return ERROR + " -1 Expected: TASK id PERFT|ANALYSE amount fen";
+        }
+        var id = fields[1];
+        try {
+            var position = Position.fromFen(fields[4]);
+            long amount = Long.parseLong(fields[3]);
+            switch (fields[2]) {
+                case PERFT:
+                    return RESULT + ' ' + id + ' ' + Perft.count(position, Math.toIntExact(amount));
+                case ANALYSE:
+                    var result = new Search(MovePolicy.ENGINE_MAX_DEPTH, amount)
+                            .search(position.toGame());
+                    var move = (result.move() == EncodedMove.NONE)
+                            ? NO_MOVE : EncodedMove.toString(result.move());
+                    return RESULT + ' ' + id + ' ' + move + ' ' + result.score() + ' '
+                            + result.depth() + ' ' + result.nodes();
+                default:
+                    return ERROR + ' ' + id + " Unknown task: " + fields[2];
+            }
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return ERROR + ' ' + id + ' ' + e.getMessage();
+        }
+    }
+}
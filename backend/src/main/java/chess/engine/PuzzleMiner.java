@@ -0,0 +1,170 @@
+package chess.engine;
+
+import chess.archive.GameRecordReader;
+import chess.backend.EncodedMove;
+import chess.backend.MoveGenerator;
+import chess.backend.Position;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Command line tool which finds tactical puzzles in a game record file, replaying the games on
+ * every core. Each position is searched shallowly for its two best moves, and is a candidate if the
+ * best move wins material, and is better than any other move by a clear margin. Candidates are
+ * searched again more deeply, and those which still pass are written as a line of CSV holding the
+ * position in FEN and the solution in coordinate notation. Recaptures on the square of the previous
+ * move are skipped, since they win back material rather than win it.
+ * <p> The solution goes on for as long as the solving side has a single clearly best move, with the
+ * opponent playing its best reply in between.
+ * <p> Usage: PuzzleMiner games.cgr puzzles.csv [threads]
+ */
+public final class PuzzleMiner {
+    private static final int SHALLOW_DEPTH = 2;
+    private static final int DEEP_DEPTH = 4;
+    private static final long DEEP_NODES = 50_000;
+    private static final int MARGIN = 250;
+    private static final int MIN_PLY = 10;
+    private static final int MAX_SOLUTION_PLIES = 7;
+    private static final int PROGRESS_SECONDS = 10;
+
+    private final GameRecordReader reader;
+    private final BufferedWriter writer;
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final LongAdder positions = new LongAdder();
+    private final LongAdder puzzles = new LongAdder();
+
+    private PuzzleMiner(GameRecordReader reader, BufferedWriter writer) {
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: PuzzleMiner games.cgr puzzles.csv [threads]");
+            System.exit(2);
+        }
+        int threads = (args.length > 2)
+                ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        try (var reader = new GameRecordReader(Path.of(args[0]));
+             var writer = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.US_ASCII)) {
+            new PuzzleMiner(reader, writer).run(threads);
+        }
+    }
+
+    private void run(int threads) throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(threads);
+        var workers = new ArrayList<Future<?>>(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(this::mineGames));
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(PROGRESS_SECONDS, TimeUnit.SECONDS)) {
+            report(start);
+        }
+        for (var worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Mining thread failed", e.getCause());
+            }
+        }
+        report(start);
+    }
+
+    private void report(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long searched = positions.sum();
+        System.out.printf("%d positions in %.1f s (%.0f positions/s), %d puzzles%n",
+                searched, seconds, searched / seconds, puzzles.sum());
+    }
+
+    private void mineGames() {
+        var shallow = new Search(SHALLOW_DEPTH, Long.MAX_VALUE);
+        var deep = new Search(DEEP_DEPTH, DEEP_NODES);
+        for (int id = nextGame.getAndIncrement(); id < reader.size();
+                id = nextGame.getAndIncrement()) {
+            var recorded = reader.get(id);
+            var position = recorded.replay(0).snapshot();
+            for (int ply = 0; ply < recorded.plyCount(); ply++) {
+                if (ply >= MIN_PLY) {
+                    positions.increment();
+                    var result = shallow.searchTopTwo(position);
+                    int lastTo = EncodedMove.to(recorded.moveAt(ply - 1));
+                    if (isPuzzle(position, result) && EncodedMove.to(result.move()) != lastTo) {
+                        var solution = solve(position, deep);
+                        if (solution != null) {
+                            write(position.toFen() + ',' + solution);
+                            puzzles.increment();
+                        }
+                    }
+                }
+                position = position.play(recorded.moveAt(ply));
+            }
+        }
+    }
+
+    /**
+     * @return whether the best move gains material over the current evaluation, or mates, and no
+     * other move comes close
+     */
+    private static boolean isPuzzle(Position position, Search.Result result) {
+        return result.score() - result.secondScore() >= MARGIN
+                && result.score() - Evaluation.evaluate(position) >= MARGIN;
+    }
+
+    /**
+     * @return the solution as moves separated by spaces, or null if the deep search finds that the
+     * position is not a puzzle after all
+     */
+    private static String solve(Position position, Search deep) {
+        var result = deep.searchTopTwo(position);
+        if (!isPuzzle(position, result)) {
+            return null;
+        }
+        var solution = new StringBuilder(EncodedMove.toString(result.move()));
+        var line = position.play(result.move());
+        for (int ply = 1; ply < MAX_SOLUTION_PLIES && !isGameOver(line); ply += 2) {
+            var reply = deep.search(line).move();
+            var next = line.play(reply);
+            if (isGameOver(next)) {
+                break;
+            }
+            result = deep.searchTopTwo(next);
+            if (result.score() - result.secondScore() < MARGIN) {
+                break;
+            }
+            solution.append(' ').append(EncodedMove.toString(reply))
+                    .append(' ').append(EncodedMove.toString(result.move()));
+            line = next.play(result.move());
+        }
+        return solution.toString();
+    }
+
+    private static boolean isGameOver(Position position) {
+        return MoveGenerator.status(position, 0).isGameOver();
+    }
+
+    private void write(String puzzle) {
+        synchronized (writer) {
+            try {
+                writer.write(puzzle);
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
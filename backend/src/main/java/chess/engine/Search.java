@@ -0,0 +1,247 @@
+package chess.engine;
+
+import chess.backend.EncodedMove;
+import chess.backend.Game;
+import chess.backend.GameStatus;
+import chess.backend.MoveGenerator;
+import chess.backend.PieceCode;
+import chess.backend.Position;
+import chess.metrics.MetricsRegistry;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the best move by iterative deepening alpha-beta search, limited by a depth and an amount of
+ * nodes, and optionally by a {@link TimeBudget}. Nodes are immutable {@link Position} snapshots,
+ * whose moves come from {@link MoveGenerator}, so playing a move copies 64 bytes. Positions do not
+ * know which moves led to them, so repetitions are not detected inside the search, while the fifty
+ * move rule is. A search keeps buffers for the moves of each ply, so it must only be used by one
+ * thread at a time.
+ */
+public final class Search {
+    public static final int MATE_SCORE = 100_000;
+    static final int MAX_MOVES = 256;
+    private static final int PROMOTION_ORDER = 1_000;
+    private static final int CLOCK_CHECK_MASK = 63;
+    private static final LongAdder NODES = MetricsRegistry.global().counter(
+            "chess_search_nodes_total", "Nodes searched by the engine");
+
+    private final int maxDepth;
+    private final long nodeLimit;
+    private final short[][] moves;
+    private final int[][] orderKeys;
+    private long nodes;
+    private long hardDeadlineNanos;
+    private boolean isStopped;
+
+    public Search(int maxDepth, long nodeLimit) {
+        if (maxDepth < 1 || nodeLimit < 1) {
+            throw new IllegalArgumentException("Search must allow at least one ply and one node");
+        }
+        this.maxDepth = maxDepth;
+        this.nodeLimit = nodeLimit;
+        moves = new short[maxDepth + 1][MAX_MOVES];
+        orderKeys = new int[maxDepth + 1][MAX_MOVES];
+    }
+
+    /**
+     * The result of a search. The score is in hundredths of a pawn from the point of view of the
+     * side to move, and mates are scored as {@link #MATE_SCORE} minus the plies until mate.
+     */
+    public static final class Result {
+        private final short move;
+        private final int score;
+        private final int secondScore;
+        private final int depth;
+        private final long nodes;
+
+        Result(short move, int score, int secondScore, int depth, long nodes) {
+            this.move = move;
+            this.score = score;
+            this.secondScore = secondScore;
+            this.depth = depth;
+            this.nodes = nodes;
+        }
+
+        /**
+         * @return the best move, or {@link EncodedMove#NONE} if there is no legal move
+         */
+        public short move() {
+            return move;
+        }
+
+        public int score() {
+            return score;
+        }
+
+        /**
+         * @return the score of the second best move if found by {@link #searchTopTwo}, or one less
+         * than minus {@link #MATE_SCORE} otherwise or if there is only one legal move
+         */
+        public int secondScore() {
+            return secondScore;
+        }
+
+        public int depth() {
+            return depth;
+        }
+
+        public long nodes() {
+            return nodes;
+        }
+    }
+
+    /**
+     * Searches one ply deeper at a time until the depth or node limit is reached. The first ply is
+     * always searched completely, so there is a move even if the node limit is very small.
+     */
+    public Result search(Game game) {
+        return search(game.snapshot(), false, null);
+    }
+
+    /**
+     * Same as {@link #search(Game)}, for a position on its own.
+     */
+    public Result search(Position position) {
+        return search(position, false, null);
+    }
+
+    /**
+     * Searches like {@link #search}, but also stops when the budget says so. The clock is only read
+     * every few dozen nodes, and at the root, where even the first ply is cut short once the
+     * hard deadline has passed.
+     */
+    public Result search(Game game, TimeBudget budget) {
+        var result = search(game.snapshot(), false, budget);
+        budget.record();
+        return result;
+    }
+
+    /**
+     * Searches like {@link #search}, but also finds the exact score of the second best move, which
+     * costs more nodes since fewer root moves can be cut off.
+     */
+    public Result searchTopTwo(Game game) {
+        return search(game.snapshot(), true, null);
+    }
+
+    /**
+     * Same as {@link #searchTopTwo(Game)}, for a position on its own.
+     */
+    public Result searchTopTwo(Position position) {
+        return search(position, true, null);
+    }
+
+    private Result search(Position position, boolean isTopTwo, TimeBudget budget) {
+        nodes = 0;
+        hardDeadlineNanos = (budget == null) ? Long.MAX_VALUE : budget.hardDeadlineNanos();
+        isStopped = false;
+        int stableIterations = 0;
+        short bestMove = EncodedMove.NONE;
+        int bestScore = Evaluation.evaluate(position);
+        int secondScore = -MATE_SCORE - 1;
+        int completedDepth = 0;
+        var rootMoves = moves[0];
+        int count = orderMoves(position, 0, EncodedMove.NONE);
+        for (int depth = 1; depth <= maxDepth && count > 0 && !isStopped; depth++) {
+            short iterationMove = EncodedMove.NONE;
+            int alpha = -MATE_SCORE - 1;
+            int second = -MATE_SCORE - 1;
+            for (int i = 0; i < count && !isStopped; i++) {
+                int bound = isTopTwo ? second : alpha;
+                int score = searchMove(position, rootMoves[i], depth, -MATE_SCORE - 1, -bound, 0);
+                if (isStopped && depth > 1) {
+                    break;
+                }
+                if (score > alpha) {
+                    second = alpha;
+                    alpha = score;
+                    iterationMove = rootMoves[i];
+                } else if (score > second) {
+                    second = score;
+                }
+            }
+            if (!isStopped || depth == 1) {
+                stableIterations = (iterationMove == bestMove) ? stableIterations + 1 : 0;
+                bestMove = iterationMove;
+                bestScore = alpha;
+                secondScore = isTopTwo ? second : -MATE_SCORE - 1;
+                completedDepth = depth;
+                count = orderMoves(position, 0, bestMove);
+            }
+            if (budget != null && budget.isIterationTooLate(stableIterations)) {
+                break;
+            }
+        }
+        NODES.add(nodes);
+        return new Result(bestMove, bestScore, secondScore, completedDepth, nodes);
+    }
+
+    private int searchMove(Position position, short move, int depth, int alpha, int beta,
+                           int ply) {
+        nodes++;
+        if (nodes >= nodeLimit && ply > 0) {
+            isStopped = true;
+        }
+        if (((nodes & CLOCK_CHECK_MASK) == 0 || ply == 0)
+                && hardDeadlineNanos != Long.MAX_VALUE && System.nanoTime() >= hardDeadlineNanos) {
+            isStopped = true;
+        }
+        var child = position.play(move);
+        var status = MoveGenerator.status(child, 0);
+        if (status == GameStatus.WHITE_WINS || status == GameStatus.BLACK_WINS) {
+            return MATE_SCORE - ply - 1;
+        }
+        if (status.isGameOver()) {
+            return 0;
+        }
+        if (depth <= 1 || isStopped) {
+            return -Evaluation.evaluate(child);
+        }
+        return -negamax(child, depth - 1, alpha, beta, ply + 1);
+    }
+
+    private int negamax(Position position, int depth, int alpha, int beta, int ply) {
+        int count = orderMoves(position, ply, EncodedMove.NONE);
+        for (int i = 0; i < count && !isStopped; i++) {
+            int score = searchMove(position, moves[ply][i], depth, -beta, -alpha, ply);
+            if (score >= beta) {
+                return score;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        return alpha;
+    }
+
+    /**
+     * Lists the legal moves with the given move first, followed by promotions and then captures
+     * of the most valuable pieces, since those are most likely to cause a cutoff.
+     */
+    private int orderMoves(Position position, int ply, short first) {
+        var plyMoves = moves[ply];
+        var keys = orderKeys[ply];
+        int count = MoveGenerator.legalMoves(position, plyMoves);
+        for (int i = 0; i < count; i++) {
+            short move = plyMoves[i];
+            int captured = position.pieceAt(EncodedMove.to(move));
+            boolean isCapture = captured != PieceCode.EMPTY
+                    && PieceCode.isWhite(captured) != position.isWhiteTurn();
+            int key = isCapture ? Evaluation.pieceValue(captured) : 0;
+            if (EncodedMove.promotion(move) != null) {
+                key += PROMOTION_ORDER;
+            }
+            if (move == first) {
+                key = Integer.MAX_VALUE;
+            }
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                plyMoves[j + 1] = plyMoves[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            plyMoves[j + 1] = move;
+            keys[j + 1] = key;
+        }
+        return count;
+    }
+}
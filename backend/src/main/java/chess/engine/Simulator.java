@@ -0,0 +1,230 @@
+package chess.engine;
+
+import chess.backend.EncodedMove;
+import chess.backend.Game;
+import chess.backend.GameStatus;
+import chess.backend.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Command line tool which plays many independent games without a user interface, for stress testing
+ * the backend and for counting how often each rule comes into play. Games are split between the
+ * threads of a work stealing pool, so that threads which finish short games take over the games of
+ * busier threads. Each task gathers its own statistics, which are merged as tasks are joined.
+ * <p> The simulation is run once for each given thread count, and the speed of each run is printed.
+ * <p> Usage: Simulator games random|engine [nodes] [threads,...] [seed]
+ */
+public final class Simulator {
+    public static final int MAX_PLIES = 2_000;
+    private static final int DEFAULT_NODES = 500;
+
+    private final int games;
+    private final long seed;
+    private final LongFunction<MovePolicy> policies;
+
+    private Simulator(int games, long seed, LongFunction<MovePolicy> policies) {
+        this.games = games;
+        this.seed = seed;
+        this.policies = policies;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println("Usage: Simulator games random|engine [nodes] [threads,...] [seed]");
+            System.exit(2);
+        }
+        int games = Integer.parseInt(args[0]);
+        long nodes = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_NODES;
+        LongFunction<MovePolicy> policies;
+        switch (args[1]) {
+            case "random":
+                policies = seed -> MovePolicy.random(new SplittableRandom(seed));
+                break;
+            case "engine":
+                policies = seed -> MovePolicy.engine(nodes, new SplittableRandom(seed));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown move policy: " + args[1]);
+        }
+        var threadCounts = (args.length > 3)
+                ? parseThreadCounts(args[3]) : defaultThreadCounts();
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+        Statistics statistics = null;
+        System.out.println("threads    games/s    plies/s");
+        for (int threads : threadCounts) {
+            long start = System.nanoTime();
+            statistics = run(games, threads, seed, policies);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%7d %10.1f %10.0f%n",
+                    threads, games / seconds, statistics.plies() / seconds);
+        }
+        System.out.print(statistics);
+    }
+
+    private static List<Integer> parseThreadCounts(String text) {
+        var threadCounts = new ArrayList<Integer>();
+        for (var count : text.split(",")) {
+            threadCounts.add(Integer.parseInt(count));
+        }
+        return threadCounts;
+    }
+
+    private static List<Integer> defaultThreadCounts() {
+        var threadCounts = new ArrayList<Integer>();
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        threadCounts.add(cores);
+        return threadCounts;
+    }
+
+    /**
+     * Plays the given amount of games. Game number i is played by the policy made from a seed which
+     * only depends on the given seed and i, so a run gives the same games for any thread count.
+     *
+     * @param policies makes the policy which plays both sides of a game, from a seed
+     */
+    public static Statistics run(int games, int threads, long seed,
+                                 LongFunction<MovePolicy> policies) {
+        if (games < 0 || threads < 1) {
+            throw new IllegalArgumentException("Invalid amount of games or threads");
+        }
+        var pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new Simulator(games, seed, policies).new Games(0, games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a range of games, by splitting it in two until only one game is left.
+     */
+    private final class Games extends RecursiveTask<Statistics> {
+        private static final long serialVersionUID = 1L;
+        private final int first;
+        private final int end;
+
+        private Games(int first, int end) {
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        protected Statistics compute() {
+            if (end - first <= 1) {
+                var statistics = new Statistics();
+                if (end > first) {
+                    play(first, statistics);
+                }
+                return statistics;
+            }
+            int middle = (first + end) >>> 1;
+            var second = new Games(middle, end);
+            second.fork();
+            var statistics = new Games(first, middle).compute();
+            statistics.merge(second.join());
+            return statistics;
+        }
+    }
+
+    private void play(int index, Statistics statistics) {
+        var policy = policies.apply(new SplittableRandom(seed + index).nextLong());
+        var game = new Game();
+        var status = GameStatus.ONGOING;
+        while (!status.isGameOver() && game.plyCount() < MAX_PLIES) {
+            short move = policy.choose(game);
+            statistics.moves[EncodedMove.move(move).ordinal()]++;
+            status = game.play(move);
+            if (status == GameStatus.IN_CHECK) {
+                statistics.checks++;
+            }
+        }
+        statistics.add(status, game.plyCount());
+    }
+
+    /**
+     * The outcomes of a set of games, and how often each type of move was played. Games which reach
+     * {@link #MAX_PLIES} are counted as {@link GameStatus#ONGOING}.
+     */
+    public static final class Statistics {
+        private final long[] outcomes = new long[GameStatus.values().length];
+        private final long[] moves = new long[Move.values().length];
+        private long games;
+        private long plies;
+        private long checks;
+        private int minPlies = Integer.MAX_VALUE;
+        private int maxPlies;
+
+        private void add(GameStatus outcome, int gamePlies) {
+            outcomes[outcome.ordinal()]++;
+            games++;
+            plies += gamePlies;
+            minPlies = Math.min(minPlies, gamePlies);
+            maxPlies = Math.max(maxPlies, gamePlies);
+        }
+
+        private void merge(Statistics other) {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] += other.outcomes[i];
+            }
+            for (int i = 0; i < moves.length; i++) {
+                moves[i] += other.moves[i];
+            }
+            games += other.games;
+            plies += other.plies;
+            checks += other.checks;
+            minPlies = Math.min(minPlies, other.minPlies);
+            maxPlies = Math.max(maxPlies, other.maxPlies);
+        }
+
+        public long games() {
+            return games;
+        }
+
+        public long plies() {
+            return plies;
+        }
+
+        public long outcomes(GameStatus outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        public long moves(Move move) {
+            return moves[move.ordinal()];
+        }
+
+        /**
+         * @return how many moves left the opponent in check without ending the game
+         */
+        public long checks() {
+            return checks;
+        }
+
+        @Override
+        public String toString() {
+            var builder = new StringBuilder();
+            builder.append(String.format("%d games, %d plies (min %d, mean %.1f, max %d)%n",
+                    games, plies, (games == 0) ? 0 : minPlies, plies / (double) games, maxPlies));
+            for (var outcome : GameStatus.values()) {
+                if (outcome != GameStatus.IN_CHECK) {
+                    builder.append(String.format("%-20s %10d%n", outcome, outcomes(outcome)));
+                }
+            }
+            for (var move : Move.values()) {
+                if (move != Move.NONE) {
+                    builder.append(String.format("%-20s %10d%n", move, moves(move)));
+                }
+            }
+            builder.append(String.format("%-20s %10d%n", "CHECKS", checks));
+            return builder.toString();
+        }
+    }
+}
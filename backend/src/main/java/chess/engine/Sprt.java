@@ -0,0 +1,109 @@
+package chess.engine;
+
+/**
+ * Sequential probability ratio test of whether an engine is stronger than its opponent by at least
+ * one elo bound, or at most another. Results are added as games finish, and the test accepts one of
+ * the hypotheses as soon as the log-likelihood ratio leaves the bounds given by the error rates.
+ * <p> The log-likelihood ratio is the normal approximation of the generalized test on the score,
+ * with the variance estimated from the wins, draws and losses seen so far.
+ */
+public final class Sprt {
+    /**
+     * The outcome of the test so far.
+     */
+    public enum Decision {
+        CONTINUE,
+        ACCEPT_ELO0,
+        ACCEPT_ELO1
+    }
+
+    private final double score0;
+    private final double score1;
+    private final double lowerBound;
+    private final double upperBound;
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * @param elo0 the elo difference of the null hypothesis
+     * @param elo1 the elo difference of the alternative hypothesis, which must be larger
+     * @param alpha the chance of accepting elo1 when elo0 is true
+     * @param beta the chance of accepting elo0 when elo1 is true
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo0 >= elo1 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("Invalid SPRT bounds");
+        }
+        score0 = expectedScore(elo0);
+        score1 = expectedScore(elo1);
+        lowerBound = Math.log(beta / (1 - alpha));
+        upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Adds the result of a game, from the point of view of the engine under test.
+     *
+     * @param result 1 for a win, 0 for a draw and -1 for a loss
+     */
+    public synchronized void add(int result) {
+        if (result > 0) {
+            wins++;
+        } else if (result < 0) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    public synchronized double llr() {
+        int games = wins + draws + losses;
+        if (games == 0) {
+            return 0;
+        }
+        double score = score();
+        double variance = (wins * square(1 - score) + draws * square(0.5 - score)
+                + losses * square(score)) / games;
+        if (variance == 0) {
+            return 0;
+        }
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    public synchronized Decision decision() {
+        double llr = llr();
+        if (llr >= upperBound) {
+            return Decision.ACCEPT_ELO1;
+        }
+        if (llr <= lowerBound) {
+            return Decision.ACCEPT_ELO0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    /**
+     * @return the elo difference of the engine under test estimated from its score, which is
+     * infinite if it won or lost every game
+     */
+    public synchronized double elo() {
+        return -400 * Math.log10(1 / score() - 1);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d games: +%d =%d -%d, elo %.1f, LLR %.2f (%.2f, %.2f)",
+                wins + draws + losses, wins, draws, losses, elo(), llr(), lowerBound, upperBound);
+    }
+
+    private double score() {
+        return (wins + draws / 2.0) / (wins + draws + losses);
+    }
+
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
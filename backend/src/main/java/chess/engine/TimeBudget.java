@@ -0,0 +1,132 @@
+package chess.engine;
+
+import chess.backend.Game;
+import chess.metrics.LatencyHistogram;
+import chess.metrics.MetricsRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * How long the engine may think about one move under a clock, taken from the time left and the
+ * increment when the move is asked for. The target is the share of the time left for one of the
+ * moves which remain, plus most of the increment. No new iteration of the search starts after half
+ * the target, since the next one usually takes as long as all the earlier ones, or after a quarter
+ * of it once the best move has stayed the same for a few iterations. The hard deadline stops the
+ * search in the middle of an iteration, and leaves time for playing the move, pressing the clock,
+ * and pauses of the host or the garbage collector.
+ * <p> The think time of every move is compared to its target, and how far it strays either way is
+ * counted in histograms shared by all budgets, as is how far it went past the hard deadline.
+ */
+public final class TimeBudget {
+    private static final int MOVES_TO_GO = 30;
+    private static final int INCREMENT_SHARE_PERCENT = 75;
+    private static final int HARD_TARGET_FACTOR = 4;
+    private static final int HARD_REMAINING_DIVISOR = 2;
+    private static final long MOVE_OVERHEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+    private static final int STABLE_ITERATIONS = 3;
+    private static final LatencyHistogram OVER_TARGET = new LatencyHistogram();
+    private static final LatencyHistogram UNDER_TARGET = new LatencyHistogram();
+    private static final LatencyHistogram OVER_HARD_DEADLINE = new LatencyHistogram();
+    private static final LongAdder HARD_DEADLINE_OVERRUNS = MetricsRegistry.global().counter(
+            "chess_think_hard_deadline_overruns_total",
+            "Engine moves which took longer than their hard deadline");
+
+    static {
+        var registry = MetricsRegistry.global();
+        registry.gauge("chess_think_over_target_p99_seconds",
+                "99th percentile of how much longer than their target engine moves took",
+                () -> OVER_TARGET.percentile(99) / 1e9);
+        registry.gauge("chess_think_over_target_max_seconds",
+                "Most time an engine move took beyond its target",
+                () -> OVER_TARGET.max() / 1e9);
+        registry.gauge("chess_think_under_target_p99_seconds",
+                "99th percentile of how much shorter than their target engine moves took",
+                () -> UNDER_TARGET.percentile(99) / 1e9);
+    }
+
+    private final LongSupplier nanoTime;
+    private final long startNanos;
+    private final long targetNanos;
+    private final long hardNanos;
+
+    private TimeBudget(LongSupplier nanoTime, long targetNanos, long hardNanos) {
+        this.nanoTime = nanoTime;
+        this.startNanos = nanoTime.getAsLong();
+        this.targetNanos = targetNanos;
+        this.hardNanos = hardNanos;
+    }
+
+    /**
+     * @param remainingNanos the time left on the clock of the side to move
+     * @param incrementNanos the time added after each move
+     */
+    public static TimeBudget of(long remainingNanos, long incrementNanos) {
+        return of(remainingNanos, incrementNanos, System::nanoTime);
+    }
+
+    /**
+     * @param nanoTime where the time is read from, in the same units as {@link System#nanoTime}
+     */
+    static TimeBudget of(long remainingNanos, long incrementNanos, LongSupplier nanoTime) {
+        long usable = Math.max(0, remainingNanos - MOVE_OVERHEAD_NANOS);
+        long target = remainingNanos / MOVES_TO_GO + incrementNanos * INCREMENT_SHARE_PERCENT / 100;
+        long hard = Math.min(target * HARD_TARGET_FACTOR, usable / HARD_REMAINING_DIVISOR);
+        return new TimeBudget(nanoTime, Math.min(target, hard), hard);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the game has no clock
+     */
+    public static TimeBudget forMove(Game game) {
+        var clock = game.clock();
+        if (clock == null) {
+            throw new IllegalArgumentException("Game has no clock");
+        }
+        return of(clock.remainingNanos(game.isWhiteTurn()), clock.incrementNanos());
+    }
+
+    public long targetNanos() {
+        return targetNanos;
+    }
+
+    public long hardDeadlineNanos() {
+        return startNanos + hardNanos;
+    }
+
+    /**
+     * @param stableIterations how many iterations in a row found the same best move as the one
+     * before them
+     * @return whether the search should not start another iteration
+     */
+    boolean isIterationTooLate(int stableIterations) {
+        long elapsed = nanoTime.getAsLong() - startNanos;
+        return elapsed >= targetNanos / 2
+                || (stableIterations >= STABLE_ITERATIONS && elapsed >= targetNanos / 4);
+    }
+
+    /**
+     * Counts how far the time since the budget was made strays from the target.
+     */
+    void record() {
+        long elapsed = nanoTime.getAsLong() - startNanos;
+        if (elapsed >= targetNanos) {
+            OVER_TARGET.record(elapsed - targetNanos);
+        } else {
+            UNDER_TARGET.record(targetNanos - elapsed);
+        }
+        if (elapsed > hardNanos) {
+            OVER_HARD_DEADLINE.record(elapsed - hardNanos);
+            HARD_DEADLINE_OVERRUNS.increment();
+        }
+    }
+
+    /**
+     * @return how far the think time of moves strayed from their target, in one line each
+     */
+    public static String report() {
+        return "Over target: " + OVER_TARGET + "\nUnder target: " + UNDER_TARGET
+                + "\nOver hard deadline: " + OVER_HARD_DEADLINE;
+    }
+}
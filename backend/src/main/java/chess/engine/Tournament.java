@@ -0,0 +1,187 @@
+package chess.engine;
+
+import chess.backend.Game;
+import chess.backend.GameClock;
+import chess.backend.GameStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command line tool which plays a match between two engine configurations on every core, to check
+ * whether a change makes the engine stronger. Each opening is played twice with the colors swapped,
+ * and the match stops as soon as the {@link Sprt} accepts either elo bound.
+ * <p> Openings are read from a file with one position in FEN per line, or are otherwise made by
+ * random moves, keeping only those which a shallow search finds to be roughly balanced. Engines are
+ * given as a node limit, optionally followed by a colon and a depth limit. Both may instead be
+ * given the same time control, written as seconds+increment, in which case each game is played
+ * under a {@link GameClock} and a side whose time runs out loses. How far the think time of
+ * each move strays from its target is then reported at the end.
+ * <p> Usage: Tournament test-nodes[:depth] base-nodes[:depth] pairs [elo0 elo1] [threads]
+ * [openings.fen]
+ */
+public final class Tournament {
+    private static final double ERROR_RATE = 0.05;
+    private static final int MAX_PLIES = 400;
+    private static final int DEFAULT_DEPTH = 64;
+    private static final int OPENING_PLIES = 8;
+    private static final int OPENING_DEPTH = 3;
+    private static final int BALANCED_SCORE = 60;
+    private static final int REPORT_PAIRS = 50;
+
+    private final String[] engines;
+    private final String timeControl;
+    private final int pairs;
+    private final List<String> openings;
+    private final Sprt sprt;
+    private final AtomicInteger nextPair = new AtomicInteger();
+    private final AtomicInteger playedPairs = new AtomicInteger();
+    private final AtomicInteger timeLosses = new AtomicInteger();
+    private volatile boolean isStopped;
+
+    private Tournament(String test, String base, int pairs, List<String> openings, Sprt sprt) {
+        engines = new String[] {test, base};
+        timeControl = timeControl(test);
+        if (!Objects.equals(timeControl, timeControl(base))) {
+            throw new IllegalArgumentException("Both engines must have the same time control");
+        }
+        if (timeControl != null) {
+            GameClock.parse(timeControl);
+        }
+        this.pairs = pairs;
+        this.openings = openings;
+        this.sprt = sprt;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 3 || args.length == 4 || args.length > 7) {
+            System.err.println("Usage: Tournament test-nodes[:depth] base-nodes[:depth] pairs"
+                    + " [elo0 elo1] [threads] [openings.fen]");
+            System.exit(2);
+        }
+        int pairs = Integer.parseInt(args[2]);
+        double elo0 = (args.length > 3) ? Double.parseDouble(args[3]) : 0;
+        double elo1 = (args.length > 4) ? Double.parseDouble(args[4]) : 5;
+        int threads = (args.length > 5)
+                ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        List<String> openings = null;
+        if (args.length > 6) {
+            openings = new ArrayList<>();
+            for (var line : Files.readAllLines(Path.of(args[6]))) {
+                if (!line.isBlank()) {
+                    openings.add(line.strip());
+                }
+            }
+        }
+        var sprt = new Sprt(elo0, elo1, ERROR_RATE, ERROR_RATE);
+        var tournament = new Tournament(args[0], args[1], pairs, openings, sprt);
+        tournament.run(threads);
+        System.out.println(sprt);
+        System.out.println(sprt.decision());
+        if (tournament.timeControl != null) {
+            System.out.println("Games lost on time: " + tournament.timeLosses);
+            System.out.println(TimeBudget.report());
+        }
+    }
+
+    private void run(int threads) throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(threads);
+        var workers = new ArrayList<Future<?>>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(this::playPairs));
+        }
+        executor.shutdown();
+        for (var worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Match thread failed", e.getCause());
+            }
+        }
+    }
+
+    private void playPairs() {
+        var test = search(engines[0]);
+        var base = search(engines[1]);
+        var openingSearch = new Search(OPENING_DEPTH, Long.MAX_VALUE);
+        for (int pair = nextPair.getAndIncrement(); !isStopped && pair < pairs;
+                pair = nextPair.getAndIncrement()) {
+            var opening = (openings == null)
+                    ? randomOpening(new SplittableRandom(pair), openingSearch)
+                    : openings.get(pair % openings.size());
+            sprt.add(play(opening, test, base, timeControl));
+            sprt.add(-play(opening, base, test, timeControl));
+            if (sprt.decision() != Sprt.Decision.CONTINUE) {
+                isStopped = true;
+            }
+            if (playedPairs.incrementAndGet() % REPORT_PAIRS == 0) {
+                System.out.println(sprt);
+            }
+        }
+    }
+
+    /**
+     * @return the time control of the engine, or null if it is limited by nodes
+     */
+    private static String timeControl(String engine) {
+        var limit = engine.split(":")[0];
+        return limit.contains("+") ? limit : null;
+    }
+
+    private static Search search(String engine) {
+        var limits = engine.split(":");
+        long nodes = (timeControl(engine) == null) ? Long.parseLong(limits[0]) : Long.MAX_VALUE;
+        int depth = (limits.length > 1) ? Integer.parseInt(limits[1]) : DEFAULT_DEPTH;
+        return new Search(depth, nodes);
+    }
+
+    private static String randomOpening(SplittableRandom random, Search search) {
+        var moves = new short[Search.MAX_MOVES];
+        while (true) {
+            var game = new Game();
+            var status = GameStatus.ONGOING;
+            for (int ply = 0; ply < OPENING_PLIES && !status.isGameOver(); ply++) {
+                status = game.play(moves[random.nextInt(game.legalMoves(moves))]);
+            }
+            if (!status.isGameOver() && Math.abs(search.search(game).score()) <= BALANCED_SCORE) {
+                return game.toFen();
+            }
+        }
+    }
+
+    /**
+     * @param timeControl the time control of the game, or null if it is not timed
+     * @return 1 if white wins, -1 if black wins and 0 for a draw, where games which reach
+     * {@link #MAX_PLIES} are adjudicated as draws
+     */
+    private int play(String opening, Search white, Search black, String timeControl) {
+        var game = Game.fromFen(opening);
+        if (timeControl != null) {
+            game.useClock(GameClock.parse(timeControl));
+        }
+        var status = GameStatus.ONGOING;
+        for (int ply = 0; ply < MAX_PLIES && !status.isGameOver(); ply++) {
+            var search = game.isWhiteTurn() ? white : black;
+            var result = (timeControl == null)
+                    ? search.search(game) : search.search(game, TimeBudget.forMove(game));
+            status = game.play(result.move());
+        }
+        if (status == GameStatus.WHITE_WINS_ON_TIME || status == GameStatus.BLACK_WINS_ON_TIME) {
+            timeLosses.incrementAndGet();
+        }
+        if (status == GameStatus.WHITE_WINS || status == GameStatus.WHITE_WINS_ON_TIME) {
+            return 1;
+        }
+        return (status == GameStatus.BLACK_WINS || status == GameStatus.BLACK_WINS_ON_TIME)
+                ? -1 : 0;
+    }
+}
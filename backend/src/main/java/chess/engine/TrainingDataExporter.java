@@ -0,0 +1,138 @@
+package chess.engine;
+
+import chess.backend.Game;
+import chess.backend.GameStatus;
+import chess.backend.Position;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Command line tool which plays self-play games on every core, and appends each position reached
+ * after the opening to a file as a {@link TrainingRecord}. The opening moves are random, so that
+ * the games are not all the same. Each position is searched and recorded as a {@link Position}
+ * snapshot, while the game itself is kept to detect repetitions. Each thread reuses one buffer for
+ * the records of its game, which are written together once the result is known.
+ * <p> Usage: TrainingDataExporter output.bin games [nodes] [threads] [seed]
+ */
+public final class TrainingDataExporter {
+    private static final int RANDOM_OPENING_PLIES = 8;
+    private static final int MAX_PLIES = 400;
+    private static final int MAX_DEPTH = 8;
+    private static final int DEFAULT_NODES = 2_000;
+    private static final int PROGRESS_SECONDS = 10;
+
+    private final FileChannel channel;
+    private final AtomicInteger remainingGames;
+    private final LongAdder positions = new LongAdder();
+    private final long nodes;
+
+    private TrainingDataExporter(FileChannel channel, int games, long nodes) {
+        this.channel = channel;
+        this.nodes = nodes;
+        remainingGames = new AtomicInteger(games);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2 || args.length > 5) {
+            System.err.println(
+                    "Usage: TrainingDataExporter output.bin games [nodes] [threads] [seed]");
+            System.exit(2);
+        }
+        int games = Integer.parseInt(args[1]);
+        long nodes = (args.length > 2) ? Long.parseLong(args[2]) : DEFAULT_NODES;
+        int threads = (args.length > 3)
+                ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 4) ? Long.parseLong(args[4]) : System.nanoTime();
+        try (var channel = FileChannel.open(Path.of(args[0]), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            new TrainingDataExporter(channel, games, nodes).run(threads, seed);
+        }
+    }
+
+    private void run(int threads, long seed) throws InterruptedException {
+        var executor = Executors.newFixedThreadPool(threads);
+        var workers = new ArrayList<Future<?>>(threads);
+        var random = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            var threadRandom = random.split();
+            workers.add(executor.submit(() -> playGames(threadRandom)));
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(PROGRESS_SECONDS, TimeUnit.SECONDS)) {
+            report(start);
+        }
+        for (var worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Self-play thread failed", e.getCause());
+            }
+        }
+        report(start);
+    }
+
+    private void report(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long written = positions.sum();
+        System.out.printf("%d positions in %.1f s (%.0f positions/s)%n",
+                written, seconds, written / seconds);
+    }
+
+    private void playGames(SplittableRandom random) {
+        var search = new Search(MAX_DEPTH, nodes);
+        var buffer = ByteBuffer.allocateDirect(MAX_PLIES * TrainingRecord.BYTES);
+        var legalMoves = new short[Search.MAX_MOVES];
+        while (remainingGames.getAndDecrement() > 0) {
+            buffer.clear();
+            var game = new Game();
+            var status = GameStatus.ONGOING;
+            int records = 0;
+            for (int ply = 0; ply < MAX_PLIES && !status.isGameOver(); ply++) {
+                short move;
+                if (ply < RANDOM_OPENING_PLIES) {
+                    move = legalMoves[random.nextInt(game.legalMoves(legalMoves))];
+                } else {
+                    var position = game.snapshot();
+                    var result = search.search(position);
+                    TrainingRecord.write(buffer, position, result.score());
+                    records++;
+                    move = result.move();
+                }
+                status = game.play(move);
+            }
+            int result = TrainingRecord.result(status);
+            for (int i = 0; i < records; i++) {
+                TrainingRecord.setResult(buffer, i, result);
+            }
+            buffer.flip();
+            write(buffer);
+            positions.add(records);
+        }
+    }
+
+    private void write(ByteBuffer buffer) {
+        synchronized (channel) {
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
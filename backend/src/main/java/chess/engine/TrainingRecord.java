@@ -0,0 +1,85 @@
+package chess.engine;
+
+import chess.backend.Board;
+import chess.backend.GameStatus;
+import chess.backend.PieceCode;
+import chess.backend.Position;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs a position into a fixed-size record of 32 bytes, so that training data can be streamed and
+ * indexed without parsing. All values are big-endian.
+ * <p> 8 bytes: occupancy, where bit n is set if square n is occupied, from 0 for a1 to 63 for h8
+ * <p> 16 bytes: the {@link PieceCode} of each occupied square in ascending order, two per byte,
+ * with the first square in the low half of the byte
+ * <p> 1 byte: the castling rights of {@link Position#castlingRights} in the low bits, and the
+ * highest bit set if black is to move
+ * <p> 1 byte: the file of the en passant square plus one, or zero if there is none
+ * <p> 1 byte: the half-move clock, at most 255
+ * <p> 1 byte: the result, which is 1 if white won, -1 if black won, and 0 otherwise
+ * <p> 2 bytes: the search score in hundredths of a pawn, from the point of view of the side to move
+ * <p> 2 bytes: the full-move number, at most 65535
+ */
+final class TrainingRecord {
+    static final int BYTES = 32;
+    private static final int RESULT_OFFSET = 27;
+    private static final int MAX_PIECES = 32;
+    private static final int SQUARES = Board.BOARD_LENGTH * Board.BOARD_WIDTH;
+
+    private TrainingRecord() {
+    }
+
+    static void write(ByteBuffer buffer, Position position, int score) {
+        long occupancy = 0;
+        long lowCodes = 0;
+        long highCodes = 0;
+        int pieces = 0;
+        for (int square = 0; square < SQUARES; square++) {
+            int code = position.pieceAt(square);
+            if (code == PieceCode.EMPTY) {
+                continue;
+            }
+            if (pieces == MAX_PIECES) {
+                throw new IllegalArgumentException("Position has more than 32 pieces");
+            }
+            occupancy |= 1L << square;
+            if (pieces < MAX_PIECES / 2) {
+                lowCodes |= (long) code << 4 * pieces;
+            } else {
+                highCodes |= (long) code << 4 * (pieces - MAX_PIECES / 2);
+            }
+            pieces++;
+        }
+        buffer.putLong(occupancy);
+        buffer.putLong(Long.reverseBytes(lowCodes));
+        buffer.putLong(Long.reverseBytes(highCodes));
+        buffer.put((byte) (position.castlingRights() | (position.isWhiteTurn() ? 0 : 0x80)));
+        int enPassant = position.enPassantSquare();
+        buffer.put((byte) ((enPassant < 0) ? 0 : enPassant % Board.BOARD_WIDTH + 1));
+        buffer.put((byte) Math.min(position.halfMoveClock(), 0xFF));
+        buffer.put((byte) 0);
+        buffer.putShort((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score)));
+        buffer.putShort((short) Math.min(position.fullMoveNumber(), 0xFFFF));
+    }
+
+    /**
+     * @return the result of a game which ended with the status, from the point of view of white
+     */
+    static int result(GameStatus status) {
+        if (status == GameStatus.WHITE_WINS || status == GameStatus.WHITE_WINS_ON_TIME) {
+            return 1;
+        }
+        if (status == GameStatus.BLACK_WINS || status == GameStatus.BLACK_WINS_ON_TIME) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * The result is only known once the game is over, so it is filled in afterwards.
+     */
+    static void setResult(ByteBuffer buffer, int record, int result) {
+        buffer.put(record * BYTES + RESULT_OFFSET, (byte) result);
+    }
+}
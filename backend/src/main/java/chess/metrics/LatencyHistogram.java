@@ -0,0 +1,107 @@
+package chess.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts durations in nanoseconds in buckets which grow with the duration, so that every
+ * duration is known to within one part in sixteen, from one nanosecond up to about half an hour,
+ * in a fixed amount of memory. Each power of two is split into the same amount of equal buckets.
+ * Recording only increments a bucket, without locking, so any thread may record while others
+ * read; a report taken while recording goes on may miss the latest durations.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BIT = 40;
+    static final long MAX_NANOS = (1L << (MAX_BIT + 1)) - 1;
+    static final int BUCKETS = (MAX_BIT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration, which is clamped to the range of the histogram.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_NANOS));
+        counts.incrementAndGet(bucket(value));
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Records the time since the given start, as given by {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the highest duration in the bucket holding the given percentile of the recorded
+     * durations, which is at most one part in sixteen above the real one, or zero if nothing was
+     * recorded
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+        }
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(lowestValue(i + 1) - 1, max());
+            }
+        }
+        return max();
+    }
+
+    /**
+     * @return the amount of durations and their percentiles in microseconds, in one line
+     */
+    @Override
+    public String toString() {
+        return String.format("n=%d p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f us", count(),
+                micros(percentile(50)), micros(percentile(90)), micros(percentile(99)),
+                micros(percentile(99.9)), micros(max()));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,233 @@
+package chess.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named counters and gauges of a process, which may be read from JConsole once
+ * {@link #register registered} as an MBean, or scraped as text in the Prometheus format.
+ * <p> Counters are {@link LongAdder}s, so counting only adds to a cell of the calling thread and
+ * stays cheap on hot paths used by many threads. Every counter also has a rate per second, which
+ * is sampled once a second after the registry is registered, and is named after the counter with
+ * "_total" replaced by "_per_second". Gauges are read only when the registry is.
+ * <p> Names should be made of letters, digits and underscores, and counter names should end with
+ * "_total".
+ */
+public final class MetricsRegistry implements DynamicMBean {
+    public static final String OBJECT_NAME = "chess:type=Metrics";
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+    private static final String COUNTER_SUFFIX = "_total";
+    private static final String RATE_SUFFIX = "_per_second";
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+    private ScheduledExecutorService sampler;
+
+    private static final class Counter {
+        private final String description;
+        private final LongAdder adder = new LongAdder();
+        private long sampledCount;
+        private long sampledNanos;
+        private volatile double rate;
+
+        private Counter(String description) {
+            this.description = description;
+        }
+
+        private void sample(long nanos) {
+            long count = adder.sum();
+            if (sampledNanos != 0) {
+                rate = (count - sampledCount) * 1e9 / (nanos - sampledNanos);
+            }
+            sampledCount = count;
+            sampledNanos = nanos;
+        }
+    }
+
+    private static final class Gauge {
+        private final String description;
+        private final DoubleSupplier value;
+
+        private Gauge(String description, DoubleSupplier value) {
+            this.description = description;
+            this.value = value;
+        }
+    }
+
+    /**
+     * @return the registry which the backend, the engine and the server count in
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @return the counter with the given name, which is created with the description if there
+     * is none yet
+     */
+    public LongAdder counter(String name, String description) {
+        if (!name.endsWith(COUNTER_SUFFIX)) {
+            throw new IllegalArgumentException("Counter name must end with " + COUNTER_SUFFIX
+                    + ": " + name);
+        }
+        return counters.computeIfAbsent(name, key -> new Counter(description)).adder;
+    }
+
+    /**
+     * Adds a gauge, or replaces the gauge which had the same name.
+     */
+    public void gauge(String name, String description, DoubleSupplier value) {
+        gauges.put(name, new Gauge(description, value));
+    }
+
+    /**
+     * Registers the registry with the platform MBean server under {@link #OBJECT_NAME}, and starts
+     * sampling the rates of the counters.
+     *
+     * @throws IllegalStateException if it is already registered
+     */
+    public synchronized void register() {
+        if (sampler != null) {
+            throw new IllegalStateException("Metrics are already registered");
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics", e);
+        }
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+
+    private void sample() {
+        long nanos = System.nanoTime();
+        for (var counter : counters.values()) {
+            counter.sample(nanos);
+        }
+    }
+
+    /**
+     * @return every counter, rate and gauge in the Prometheus text format, sorted by name
+     */
+    public String scrape() {
+        var text = new StringBuilder();
+        for (var entry : counters.entrySet()) {
+            var name = entry.getKey();
+            var counter = entry.getValue();
+            append(text, name, "counter", counter.description, counter.adder.sum());
+            append(text, rateName(name), "gauge", counter.description + " per second",
+                    counter.rate);
+        }
+        for (var entry : gauges.entrySet()) {
+            var gauge = entry.getValue();
+            append(text, entry.getKey(), "gauge", gauge.description, gauge.value.getAsDouble());
+        }
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, String name, String type, String description,
+                               Number value) {
+        text.append("# HELP ").append(name).append(' ').append(description).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        text.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String rateName(String counterName) {
+        return counterName.substring(0, counterName.length() - COUNTER_SUFFIX.length())
+                + RATE_SUFFIX;
+    }
+
+    @Override
+    public Object getAttribute(String name) throws AttributeNotFoundException {
+        var counter = counters.get(name);
+        if (counter != null) {
+            return counter.adder.sum();
+        }
+        if (name.endsWith(RATE_SUFFIX)) {
+            var rated = counters.get(name.substring(0, name.length() - RATE_SUFFIX.length())
+                    + COUNTER_SUFFIX);
+            if (rated != null) {
+                return rated.rate;
+            }
+        }
+        var gauge = gauges.get(name);
+        if (gauge != null) {
+            return gauge.value.getAsDouble();
+        }
+        throw new AttributeNotFoundException(name);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        var attributes = new AttributeList();
+        for (var name : names) {
+            try {
+                attributes.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // Attributes which cannot be read are left out, as the interface asks
+            }
+        }
+        return attributes;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("Metrics have no operations: " + actionName);
+    }
+
+    /**
+     * @return the attributes of the counters, rates and gauges registered so far, which JConsole
+     * reads again when it reconnects
+     */
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        var attributes = new ArrayList<MBeanAttributeInfo>();
+        for (var entry : counters.entrySet()) {
+            var description = entry.getValue().description;
+            attributes.add(attribute(entry.getKey(), Long.class, description));
+            attributes.add(attribute(rateName(entry.getKey()), Double.class,
+                    description + " per second"));
+        }
+        for (var entry : gauges.entrySet()) {
+            attributes.add(attribute(entry.getKey(), Double.class, entry.getValue().description));
+        }
+        return new MBeanInfo(getClass().getName(), "Counters and gauges of the chess backend",
+                attributes.toArray(new MBeanAttributeInfo[0]), null,
+                new MBeanOperationInfo[0], null);
+    }
+
+    private static MBeanAttributeInfo attribute(String name, Class<?> type, String description) {
+        return new MBeanAttributeInfo(name, type.getName(), description, true, false, false);
+    }
+}
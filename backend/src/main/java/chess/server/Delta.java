@@ -0,0 +1,166 @@
+package chess.server;
+
+import chess.backend.GameClock;
+import chess.backend.GameStatus;
+import chess.backend.Position;
+
+/**
+ * The squares which changed in a game, sent to spectators instead of the whole board. A delta may
+ * cover several moves when updates are coalesced, in which case it holds the latest piece of every
+ * square changed by any of them.
+ * <p> The changed squares are kept as a bit mask, with the new pieces in the order of the squares,
+ * so that merging two deltas only visits the squares which they change.
+ * <p> If the game has a clock, the delta also holds the time left to each side when it was made.
+ * <p> A delta may change no square, when the game ended without a move because a side ran out of
+ * time, or when the session was closed, in which case it is the last delta of the game.
+ */
+public final class Delta {
+    public static final long NO_CLOCK = -1;
+    private static final int SQUARES = 64;
+
+    private final int ply;
+    private final GameStatus status;
+    private final long squares;
+    private final byte[] pieces;
+    private final long whiteRemainingNanos;
+    private final long blackRemainingNanos;
+    private final long publishedNanos;
+    private final boolean isClosed;
+
+    private Delta(int ply, GameStatus status, long squares, byte[] pieces,
+                  long whiteRemainingNanos, long blackRemainingNanos, long publishedNanos,
+                  boolean isClosed) {
+        this.ply = ply;
+        this.status = status;
+        this.squares = squares;
+        this.pieces = pieces;
+        this.whiteRemainingNanos = whiteRemainingNanos;
+        this.blackRemainingNanos = blackRemainingNanos;
+        this.publishedNanos = publishedNanos;
+        this.isClosed = isClosed;
+    }
+
+    private Delta(int ply, GameStatus status, long squares, byte[] pieces, GameClock clock) {
+        this(ply, status, squares, pieces,
+                (clock == null) ? NO_CLOCK : clock.remainingNanos(true),
+                (clock == null) ? NO_CLOCK : clock.remainingNanos(false), System.nanoTime(),
+                false);
+    }
+
+    /**
+     * @param clock the clock of the game, or null if it has none
+     * @return a delta which changes every square, for a spectator which has no board yet
+     */
+    static Delta full(Position position, int ply, GameStatus status, GameClock clock) {
+        var pieces = new byte[SQUARES];
+        for (int i = 0; i < SQUARES; i++) {
+            pieces[i] = (byte) position.pieceAt(i);
+        }
+        return new Delta(ply, status, -1L, pieces, clock);
+    }
+
+    /**
+     * @param clock the clock of the game, or null if it has none
+     */
+    static Delta between(Position before, Position after, int ply, GameStatus status,
+                         GameClock clock) {
+        long squares = 0;
+        for (int i = 0; i < SQUARES; i++) {
+            if (before.pieceAt(i) != after.pieceAt(i)) {
+                squares |= 1L << i;
+            }
+        }
+        var pieces = new byte[Long.bitCount(squares)];
+        int index = 0;
+        for (long remaining = squares; remaining != 0; remaining &= remaining - 1) {
+            pieces[index++] = (byte) after.pieceAt(Long.numberOfTrailingZeros(remaining));
+        }
+        return new Delta(ply, status, squares, pieces, clock);
+    }
+
+    /**
+     * @return a delta with the changes and the clock of both, where the later one wins, and which
+     * is as old as this one
+     */
+    Delta merge(Delta later) {
+        long merged = squares | later.squares;
+        var mergedPieces = new byte[Long.bitCount(merged)];
+        int index = 0;
+        for (long remaining = merged; remaining != 0; remaining &= remaining - 1) {
+            long square = remaining & -remaining;
+            var source = ((later.squares & square) != 0) ? later : this;
+            mergedPieces[index++] = source.pieces[Long.bitCount(source.squares & (square - 1))];
+        }
+        return new Delta(later.ply, later.status, merged, mergedPieces,
+                later.whiteRemainingNanos, later.blackRemainingNanos, publishedNanos,
+                later.isClosed);
+    }
+
+    /**
+     * @return the same delta, marked as the last one because the session was closed
+     */
+    Delta closing() {
+        return new Delta(ply, status, squares, pieces, whiteRemainingNanos, blackRemainingNanos,
+                publishedNanos, true);
+    }
+
+    /**
+     * @return the amount of plies played in the game once the delta is applied
+     */
+    public int ply() {
+        return ply;
+    }
+
+    public GameStatus status() {
+        return status;
+    }
+
+    /**
+     * @return the changed squares, as a mask where bit 0 is a1 and bit 63 is h8
+     */
+    public long squares() {
+        return squares;
+    }
+
+    /**
+     * @return the piece now on the square, as a {@link chess.backend.PieceCode}
+     * @throws IllegalArgumentException if the delta does not change the square
+     */
+    public int pieceAt(int square) {
+        long bit = 1L << square;
+        if ((squares & bit) == 0) {
+            throw new IllegalArgumentException("Square " + square + " did not change");
+        }
+        return pieces[Long.bitCount(squares & (bit - 1))];
+    }
+
+    /**
+     * @return the time left to white when the delta was made, as given by
+     * {@link GameClock#remainingNanos}, or {@link #NO_CLOCK} if the game has no clock
+     */
+    public long whiteRemainingNanos() {
+        return whiteRemainingNanos;
+    }
+
+    /**
+     * @return the time left to black when the delta was made, or {@link #NO_CLOCK} if the game has
+     * no clock
+     */
+    public long blackRemainingNanos() {
+        return blackRemainingNanos;
+    }
+
+    /**
+     * @return whether the session was closed, so that no delta follows this one
+     */
+    public boolean isClosed() {
+        return isClosed;
+    }
+
+    /**
+     * @return the value of {@link System#nanoTime()} when the oldest move in the delta was played
+     */
+    public long publishedNanos() {
+        return publishedNanos;
+    }
+}
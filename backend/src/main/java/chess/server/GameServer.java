@@ -0,0 +1,235 @@
+package chess.server;
+
+import chess.backend.Board;
+import chess.backend.GameClock;
+import chess.backend.Move;
+import chess.backend.Point;
+import chess.backend.PromotionPiece;
+import chess.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line tool which serves a {@link GameService} over HTTP, with plain text bodies:
+ * <p> POST /games starts a game, and answers with its session id. If the body holds a time control
+ * as read by {@link GameClock#parse}, such as "300+2", the game is timed by a clock.
+ * <p> GET /games/{id} answers with the position in FEN, and the status of the last move
+ * <p> GET /games/{id}?ply=N answers with the position after N plies in FEN
+ * <p> POST /games/{id} plays the move in the body, and answers with the status of the game
+ * <p> DELETE /games/{id} ends the game
+ * <p> GET /metrics answers with the counters of the process in the Prometheus text format, which
+ * are also registered as the MBean {@value MetricsRegistry#OBJECT_NAME} for JConsole
+ * <p> A move is written as "fromX fromY toX toY MOVE [PROMOTION]", such as "4 6 4 4 NORMAL", where
+ * the points are in the same coordinates as the frontend uses, which means that the side to move is
+ * at the bottom, and MOVE and PROMOTION are the names of {@link Move} and {@link PromotionPiece}.
+ * <p> Requests are handled by a fixed pool of threads, and sessions which are idle for too long are
+ * closed.
+ * <p> If a journal directory is given, games are recorded in a {@link MoveJournal}, and the games
+ * which were going on when the server last stopped are resumed.
+ * <p> Usage: GameServer [port] [threads] [max-sessions] [idle-minutes] [journal-directory]
+ */
+public final class GameServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_MAX_SESSIONS = 10_000;
+    private static final int DEFAULT_IDLE_MINUTES = 30;
+    private static final long JOURNAL_FLUSH_MILLIS = 10;
+    private static final long JOURNAL_SEGMENT_BYTES = 1L << 26;
+    private static final int MAX_BODY_BYTES = 64;
+    private static final String PATH = "/games";
+    private static final String PLY_QUERY = "ply=";
+    private static final String METRICS_PATH = "/metrics";
+
+    private final GameService service;
+
+    private GameServer(GameService service) {
+        this.service = service;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 5) {
+            System.err.println("Usage: GameServer [port] [threads] [max-sessions] [idle-minutes]"
+                    + " [journal-directory]");
+            System.exit(2);
+        }
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = (args.length > 1)
+                ? Integer.parseInt(args[1]) : 4 * Runtime.getRuntime().availableProcessors();
+        int maxSessions = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_MAX_SESSIONS;
+        int idleMinutes = (args.length > 3) ? Integer.parseInt(args[3]) : DEFAULT_IDLE_MINUTES;
+        MoveJournal journal = null;
+        if (args.length > 4) {
+            journal = new MoveJournal(Path.of(args[4]), JOURNAL_FLUSH_MILLIS,
+                    JOURNAL_SEGMENT_BYTES);
+            var closed = journal;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    closed.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close the move journal: " + e);
+                }
+            }));
+        }
+        var service = new GameService(maxSessions, journal);
+        var metrics = MetricsRegistry.global();
+        registerGauges(metrics, service);
+        metrics.register();
+        var server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PATH, new GameServer(service)::handle);
+        server.createContext(METRICS_PATH, exchange -> scrape(exchange, metrics));
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        var evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long idleNanos = TimeUnit.MINUTES.toNanos(idleMinutes);
+        evictor.scheduleWithFixedDelay(() -> service.evictIdle(idleNanos), 1, 1, TimeUnit.MINUTES);
+        server.start();
+        System.out.println("Serving games on port " + server.getAddress().getPort());
+    }
+
+    private static void registerGauges(MetricsRegistry metrics, GameService service) {
+        var cache = service.moveCache();
+        metrics.gauge("chess_sessions", "Games being played", service::size);
+        metrics.gauge("chess_move_cache_hits", "Positions found in the move cache", cache::hits);
+        metrics.gauge("chess_move_cache_misses", "Positions missing from the move cache",
+                cache::misses);
+        metrics.gauge("chess_move_cache_evictions", "Positions evicted from the move cache",
+                cache::evictions);
+        metrics.gauge("chess_move_cache_hit_ratio", "Share of positions found in the move cache",
+                () -> {
+                    long hits = cache.hits();
+                    long lookups = hits + cache.misses();
+                    return (lookups == 0) ? 0 : hits / (double) lookups;
+                });
+        metrics.gauge("chess_move_cache_bytes", "Estimated size of the move cache", cache::bytes);
+    }
+
+    private static void scrape(HttpExchange exchange, MetricsRegistry metrics) throws IOException {
+        try {
+            if (exchange.getRequestMethod().equals("GET")) {
+                respond(exchange, 200, metrics.scrape());
+            } else {
+                respond(exchange, 405, "Method not allowed");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            var path = exchange.getRequestURI().getPath();
+            var method = exchange.getRequestMethod();
+            if (path.equals(PATH) || path.equals(PATH + "/")) {
+                if (method.equals("POST")) {
+                    create(exchange);
+                } else {
+                    respond(exchange, 405, "Method not allowed");
+                }
+                return;
+            }
+            var id = path.substring(PATH.length() + 1);
+            switch (method) {
+                case "GET":
+                    get(exchange, id);
+                    break;
+                case "POST":
+                    respond(exchange, 200, play(id, readBody(exchange)));
+                    break;
+                case "DELETE":
+                    respond(exchange, service.close(id) ? 204 : 404, "");
+                    break;
+                default:
+                    respond(exchange, 405, "Method not allowed");
+                    break;
+            }
+        } catch (NoSuchElementException e) {
+            respond(exchange, 404, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            respond(exchange, 409, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void get(HttpExchange exchange, String id) throws IOException {
+        var query = exchange.getRequestURI().getQuery();
+        if (query == null) {
+            respond(exchange, 200, service.fenAndStatus(id));
+        } else if (query.startsWith(PLY_QUERY)) {
+            respond(exchange, 200, service.fen(id, parsePly(query)));
+        } else {
+            respond(exchange, 400, "Unknown query: " + query);
+        }
+    }
+
+    private static int parsePly(String query) {
+        try {
+            return Integer.parseInt(query.substring(PLY_QUERY.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ply: " + query);
+        }
+    }
+
+    private void create(HttpExchange exchange) throws IOException {
+        var timeControl = readBody(exchange).strip();
+        var clock = timeControl.isEmpty() ? null : GameClock.parse(timeControl);
+        String id;
+        try {
+            id = service.create(clock);
+        } catch (IllegalStateException e) {
+            respond(exchange, 503, e.getMessage());
+            return;
+        }
+        respond(exchange, 201, id);
+    }
+
+    private String play(String id, String body) {
+        var fields = body.strip().split(" +");
+        if (fields.length < 5 || fields.length > 6) {
+            throw new IllegalArgumentException("Expected: fromX fromY toX toY MOVE [PROMOTION]");
+        }
+        var from = point(fields[0], fields[1]);
+        var to = point(fields[2], fields[3]);
+        var move = Move.valueOf(fields[4]);
+        var promotion = (fields.length > 5) ? PromotionPiece.valueOf(fields[5]) : null;
+        return service.play(id, from, to, move, promotion).toString();
+    }
+
+    private static Point point(String x, String y) {
+        int column = Integer.parseInt(x);
+        int row = Integer.parseInt(y);
+        if (column < 0 || column >= Board.BOARD_WIDTH || row < 0 || row >= Board.BOARD_LENGTH) {
+            throw new IllegalArgumentException("Point is not on the board");
+        }
+        return Point.instance(column, row);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        var body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Request is too long");
+        }
+        return new String(body, StandardCharsets.US_ASCII);
+    }
+
+    private static void respond(HttpExchange exchange, int code, String text) throws IOException {
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, (code == 204) ? -1 : bytes.length);
+        if (code != 204) {
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package chess.server;
+
+import chess.backend.Game;
+import chess.backend.GameClock;
+import chess.backend.GameStatus;
+import chess.backend.Move;
+import chess.backend.MoveCache;
+import chess.backend.Point;
+import chess.backend.PromotionPiece;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many games at once without a user interface, each identified by a random session id. Moves
+ * are given in the same form as the frontend plays them. The amount of sessions is bounded, and
+ * sessions which are not used for a while may be evicted, so the memory used stays bounded.
+ * <p> A game may be timed by a {@link GameClock}. Clocks are not recorded in the journal, so games
+ * resumed from it are not timed.
+ */
+public final class GameService {
+    private static final int ID_BYTES = 16;
+    private static final long MOVE_CACHE_BYTES = 1L << 26;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final SecureRandom random = new SecureRandom();
+    private final int maxSessions;
+    private final MoveJournal journal;
+    private final MoveCache moveCache;
+
+    public GameService(int maxSessions) {
+        this(maxSessions, null);
+    }
+
+    public GameService(int maxSessions, MoveJournal journal) {
+        this(maxSessions, journal, new MoveCache(MOVE_CACHE_BYTES));
+    }
+
+    /**
+     * Hosts games which are recorded in the journal, starting with the games left in it by an
+     * earlier run, which are replayed in parallel. Every recovered game is hosted, even if there
+     * are more of them than the amount of sessions allowed, so that none is lost. New games are
+     * then refused until enough of them have ended.
+     *
+     * @param journal where moves are recorded, or null if they are not
+     * @param moveCache where the games share their legal moves, since they often reach the same
+     * positions, or null if they are not cached
+     * @throws IllegalStateException if the journal holds an illegal move
+     */
+    public GameService(int maxSessions, MoveJournal journal, MoveCache moveCache) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("There must be room for at least one session");
+        }
+        this.maxSessions = maxSessions;
+        this.journal = journal;
+        this.moveCache = moveCache;
+        if (journal != null) {
+            journal.recovered().entrySet().parallelStream().forEach(entry -> {
+                var game = newGame();
+                var status = GameStatus.ONGOING;
+                for (var move : entry.getValue()) {
+                    try {
+                        status = game.play(move);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalStateException("Journal of session " + entry.getKey()
+                                + " has an illegal move at ply " + game.plyCount(), e);
+                    }
+                }
+                sessions.put(entry.getKey(), new Session(entry.getKey(), game, status, journal));
+            });
+            size.set(sessions.size());
+        }
+    }
+
+    /**
+     * @return the cache of legal moves shared by the games, or null if they are not cached
+     */
+    public MoveCache moveCache() {
+        return moveCache;
+    }
+
+    private Game newGame() {
+        var game = new Game();
+        game.useMoveCache(moveCache);
+        return game;
+    }
+
+    /**
+     * Starts a game from the initial position.
+     *
+     * @return the id of the new session
+     * @throws IllegalStateException if there are already as many sessions as allowed
+     */
+    public String create() {
+        return create(null);
+    }
+
+    /**
+     * Starts a game from the initial position, timed by the clock, which starts for white.
+     *
+     * @param clock the clock of the game, or null if it is not timed
+     * @return the id of the new session
+     * @throws IllegalStateException if there are already as many sessions as allowed, or if the
+     * journal failed
+     */
+    public String create(GameClock clock) {
+        if (size.incrementAndGet() > maxSessions) {
+            size.decrementAndGet();
+            throw new IllegalStateException("Too many sessions");
+        }
+        var bytes = new byte[ID_BYTES];
+        random.nextBytes(bytes);
+        var id = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        if (journal != null) {
+            try {
+                journal.create(id);
+            } catch (RuntimeException e) {
+                size.decrementAndGet();
+                throw e;
+            }
+        }
+        var game = newGame();
+        game.useClock(clock);
+        sessions.put(id, new Session(id, game, GameStatus.ONGOING, journal));
+        return id;
+    }
+
+    /**
+     * Plays a move as described by {@link chess.backend.Game#play(Point, Point, Move,
+     * PromotionPiece)}.
+     *
+     * @throws NoSuchElementException if there is no such session
+     * @throws IllegalArgumentException if the move is illegal
+     * @throws IllegalStateException if the game is already over
+     */
+    public GameStatus play(String id, Point from, Point to, Move move, PromotionPiece promotion) {
+        return session(id).play(from, to, move, promotion);
+    }
+
+    /**
+     * Plays a move packed as described by {@link chess.backend.EncodedMove}.
+     *
+     * @throws NoSuchElementException if there is no such session
+     * @throws IllegalArgumentException if the move is illegal
+     * @throws IllegalStateException if the game is already over
+     */
+    public GameStatus play(String id, short move) {
+        return session(id).play(move);
+    }
+
+    /**
+     * Starts watching a game. The first update holds the whole board, and each later update holds
+     * the squares changed by a move. An update which changes no square tells that a side ran out
+     * of time, or that the session was closed, which is the last update.
+     *
+     * @param capacity how many updates are queued before they are merged together
+     * @throws NoSuchElementException if there is no such session
+     */
+    public Subscription subscribe(String id, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("There must be room for at least one update");
+        }
+        return session(id).subscribe(capacity);
+    }
+
+    /**
+     * @throws NoSuchElementException if there is no such session
+     */
+    public String fen(String id) {
+        return session(id).fen();
+    }
+
+    /**
+     * @return the position after the given amount of plies, in FEN
+     * @throws NoSuchElementException if there is no such session
+     * @throws IllegalArgumentException if the ply has not been played
+     */
+    public String fen(String id, int ply) {
+        return session(id).fen(ply);
+    }
+
+    /**
+     * @return the status returned by the last move, or {@link GameStatus#ONGOING} if no move
+     * was played yet, unless the side to move has since run out of time
+     * @throws NoSuchElementException if there is no such session
+     */
+    public GameStatus status(String id) {
+        return session(id).status();
+    }
+
+    /**
+     * @return the position in FEN and the status of the last move on two lines, as they were
+     * after the same move
+     * @throws NoSuchElementException if there is no such session
+     */
+    public String fenAndStatus(String id) {
+        return session(id).fenAndStatus();
+    }
+
+    /**
+     * @return whether there was such a session
+     */
+    public boolean close(String id) {
+        var session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        ended(session);
+        return true;
+    }
+
+    private void ended(Session session) {
+        size.decrementAndGet();
+        session.close();
+    }
+
+    /**
+     * Closes every session which was not used during the given amount of nanoseconds. Spectators of
+     * a closed session receive a last update marked by {@link Delta#isClosed}.
+     *
+     * @return the amount of closed sessions
+     */
+    public int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (var entry : sessions.entrySet()) {
+            if (now - entry.getValue().lastAccess() > idleNanos
+                    && sessions.remove(entry.getKey(), entry.getValue())) {
+                ended(entry.getValue());
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private Session session(String id) {
+        var session = sessions.get(id);
+        if (session == null) {
+            throw new NoSuchElementException("No session " + id);
+        }
+        return session;
+    }
+}
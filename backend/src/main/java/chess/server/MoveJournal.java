@@ -0,0 +1,346 @@
+package chess.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * An append-only journal of the games hosted by a {@link GameService}, so that games in progress
+ * survive a restart. Each record is {@link #RECORD_BYTES} long, and holds the session id, the ply,
+ * the move packed as by {@link chess.backend.EncodedMove}, the type of record and a timestamp.
+ * <p> Records are appended to a buffer, which a background thread writes and forces to the disk at
+ * a fixed interval, so that one force covers every move of the interval and no move waits for the
+ * disk. Moves played during the last interval before a crash may therefore be lost.
+ * <p> Records which could not be written stay in the buffer, and are written again by the next
+ * flush. Once writing or forcing has failed, the journal is marked as failed, and new games and
+ * moves are rejected with an {@link IllegalStateException}, rather than played without being
+ * recorded.
+ * <p> The journal is split into segments, and a new segment is started once the current one is
+ * large enough. Once there are several full segments, they are compacted into one which only holds
+ * the records of games which are still going on, and the ends of games whose other records are in
+ * the segments being deleted. Replaying skips moves which were already applied, so a compaction
+ * which is interrupted before the old segments are deleted loses nothing, and revives no game.
+ */
+public final class MoveJournal implements Closeable {
+    static final int RECORD_BYTES = 32;
+    private static final byte CREATE = 1;
+    private static final byte MOVE = 2;
+    private static final byte END = 3;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int COMPACT_SEGMENTS = 4;
+    private static final String PREFIX = "moves-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Set<String> liveGames = ConcurrentHashMap.newKeySet();
+    private final Map<String, short[]> recovered = new HashMap<>();
+    private final List<Path> sealed = new ArrayList<>();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+    private FileChannel channel;
+    private Path segment;
+    private int nextSegment;
+    private IOException failure;
+
+    /**
+     * Opens the journal in the directory, reading the games left by earlier runs, and starts a new
+     * segment for the records of this run.
+     *
+     * @param flushMillis how often records are written and forced to the disk
+     * @param segmentBytes the size after which a new segment is started
+     */
+    public MoveJournal(Path directory, long flushMillis, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> existing;
+        try (var files = Files.list(directory)) {
+            existing = files.filter(MoveJournal::isSegment).sorted().collect(Collectors.toList());
+        }
+        for (var path : existing) {
+            replay(path);
+            nextSegment = Math.max(nextSegment, segmentNumber(path) + 1);
+        }
+        sealed.addAll(existing);
+        liveGames.addAll(recovered.keySet());
+        openSegment();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private static boolean isSegment(Path path) {
+        var name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static int segmentNumber(Path path) {
+        var name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Reads the records of a segment into the recovered games. A record which was only partly
+     * written before a crash is ignored.
+     */
+    private void replay(Path path) throws IOException {
+        var record = ByteBuffer.allocate(RECORD_BYTES);
+        try (var input = FileChannel.open(path, StandardOpenOption.READ)) {
+            var data = input.map(FileChannel.MapMode.READ_ONLY, 0, input.size());
+            while (data.remaining() >= RECORD_BYTES) {
+                data.get(record.clear().array());
+                var id = encodeId(record.getLong(0), record.getLong(8));
+                int ply = record.getInt(16);
+                short move = record.getShort(20);
+                byte type = record.get(22);
+                var moves = recovered.get(id);
+                if (type == CREATE && moves == null) {
+                    recovered.put(id, new short[0]);
+                } else if (type == MOVE && moves != null && ply == moves.length) {
+                    moves = Arrays.copyOf(moves, ply + 1);
+                    moves[ply] = move;
+                    recovered.put(id, moves);
+                } else if (type == END) {
+                    recovered.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the moves of every game which was journaled by an earlier run and had not ended
+     */
+    public Map<String, short[]> recovered() {
+        return recovered;
+    }
+
+    /**
+     * The game counts as live before its first record is appended, so that a compaction which
+     * runs as soon as the record is written keeps it.
+     *
+     * @throws IllegalStateException if the journal failed
+     */
+    public void create(String id) {
+        liveGames.add(id);
+        try {
+            append(id, 0, (short) 0, CREATE);
+        } catch (IllegalStateException e) {
+            liveGames.remove(id);
+            throw e;
+        }
+    }
+
+    /**
+     * @param ply the amount of plies played before the move
+     * @throws IllegalStateException if the journal failed
+     */
+    public void move(String id, int ply, short move) {
+        append(id, ply, move, MOVE);
+    }
+
+    /**
+     * Marks the game as ended, so that it is not recovered, and its records are compacted away. If
+     * the journal failed, the end is not recorded, and the game is recovered after a restart as if
+     * it were still going on.
+     */
+    public void end(String id) {
+        liveGames.remove(id);
+        try {
+            append(id, 0, (short) 0, END);
+        } catch (IllegalStateException e) {
+            // Recovering an ended game loses nothing, unlike playing on without a journal
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if writing or forcing the journal failed, so that moves can no
+     * longer be recorded
+     */
+    public synchronized void checkWritable() {
+        if (failure != null) {
+            throw new IllegalStateException("Move journal failed", failure);
+        }
+    }
+
+    private synchronized void append(String id, int ply, short move, byte type) {
+        checkWritable();
+        if (buffer.remaining() < RECORD_BYTES) {
+            try {
+                write();
+            } catch (IOException e) {
+                failure = e;
+                checkWritable();
+            }
+        }
+        var bytes = ByteBuffer.wrap(Base64.getUrlDecoder().decode(id));
+        buffer.putLong(bytes.getLong());
+        buffer.putLong(bytes.getLong());
+        buffer.putInt(ply);
+        buffer.putShort(move);
+        buffer.put(type);
+        buffer.put((byte) 0);
+        buffer.putLong(System.currentTimeMillis());
+    }
+
+    private static String encodeId(long high, long low) {
+        var bytes = ByteBuffer.allocate(2 * Long.BYTES).putLong(high).putLong(low).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Writes the buffered records, keeping those which could not be written for the next try.
+     */
+    private void write() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        segment = directory.resolve(String.format("%s%08d%s", PREFIX, nextSegment++, SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Could not flush the move journal: " + e);
+        }
+    }
+
+    /**
+     * Writes and forces every record appended so far. Appends may go on while the disk is forced.
+     *
+     * @throws IOException if the records could not be written or forced, after which the journal
+     * is failed
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            FileChannel written;
+            boolean isFull;
+            synchronized (this) {
+                try {
+                    write();
+                    written = channel;
+                    isFull = channel.size() >= segmentBytes;
+                    if (isFull) {
+                        sealed.add(segment);
+                        openSegment();
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+            }
+            try {
+                written.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                }
+                throw e;
+            }
+            if (isFull) {
+                written.close();
+                if (sealed.size() >= COMPACT_SEGMENTS) {
+                    compact();
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the records of the games which are still going on from every full segment into one,
+     * which replaces the newest full segment, and then deletes the others. The end of a game which
+     * has earlier records in the deleted segments is kept too, since a crash before they are
+     * deleted would otherwise replay the game without its end.
+     */
+    private void compact() throws IOException {
+        var live = Set.copyOf(liveGames);
+        var target = sealed.get(sealed.size() - 1);
+        var temporary = directory.resolve(target.getFileName() + ".compacting");
+        var record = ByteBuffer.allocate(RECORD_BYTES);
+        var stranded = new HashSet<String>();
+        try (var output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var path : sealed) {
+                boolean isDeleted = !path.equals(target);
+                try (var input = FileChannel.open(path, StandardOpenOption.READ)) {
+                    var data = input.map(FileChannel.MapMode.READ_ONLY, 0, input.size());
+                    while (data.remaining() >= RECORD_BYTES) {
+                        data.get(record.clear().array());
+                        var id = encodeId(record.getLong(0), record.getLong(8));
+                        byte type = record.get(22);
+                        boolean isKept = live.contains(id);
+                        if (!isKept && type == END) {
+                            isKept = stranded.contains(id);
+                        } else if (!isKept && isDeleted) {
+                            stranded.add(id);
+                        }
+                        if (isKept) {
+                            while (record.hasRemaining()) {
+                                output.write(record);
+                            }
+                        }
+                    }
+                }
+            }
+            output.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        for (var path : sealed.subList(0, sealed.size() - 1)) {
+            Files.delete(path);
+        }
+        sealed.clear();
+        sealed.add(target);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (flushLock) {
+            synchronized (this) {
+                write();
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+}
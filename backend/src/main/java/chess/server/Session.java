@@ -0,0 +1,172 @@
+package chess.server;
+
+import chess.backend.Game;
+import chess.backend.GameStatus;
+import chess.backend.Move;
+import chess.backend.Point;
+import chess.backend.Position;
+import chess.backend.PromotionPiece;
+
+/**
+ * One game hosted by the {@link GameService}. The game is only ever touched while holding the lock
+ * of its session, so requests for different sessions run in parallel, while requests for the same
+ * session are applied one at a time. Each move is published to the spectators of the game as the
+ * squares which it changed, and is recorded in the journal if there is one. The end of the game is
+ * recorded once, whether the game was over or the session was closed first.
+ * <p> A side whose clock runs out loses as soon as the session is next used, rather than only when
+ * it moves, so that its opponent and the spectators learn of it.
+ */
+final class Session {
+    private final String id;
+    private final Game game;
+    private final MoveJournal journal;
+    private final Spectators spectators = new Spectators();
+    private Position position;
+    private GameStatus status;
+    private boolean isEnded;
+    private boolean isClosed;
+    private volatile long lastAccess = System.nanoTime();
+
+    /**
+     * @param status the status returned by the last move of the game
+     * @param journal where moves are recorded, or null if they are not
+     */
+    Session(String id, Game game, GameStatus status, MoveJournal journal) {
+        this.id = id;
+        this.game = game;
+        this.status = status;
+        this.journal = journal;
+        position = game.snapshot();
+    }
+
+    synchronized GameStatus play(Point from, Point to, Move move, PromotionPiece promotion) {
+        checkOngoing();
+        return played(game.legalMove(from, to, move, promotion));
+    }
+
+    synchronized GameStatus play(short move) {
+        checkOngoing();
+        return played(game.legalMove(move));
+    }
+
+    /**
+     * @throws IllegalStateException if the session is closed, if the game is over, or if the
+     * journal failed, so that the move would not be recorded
+     */
+    private void checkOngoing() {
+        lastAccess = System.nanoTime();
+        if (isClosed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        checkTime();
+        if (status.isGameOver()) {
+            throw new IllegalStateException("Game is over");
+        }
+        if (journal != null) {
+            journal.checkWritable();
+        }
+    }
+
+    /**
+     * Records a legal move in the journal before playing it, so that the game never holds a move
+     * which would be lost after a restart.
+     *
+     * @throws IllegalStateException if the journal failed while recording the move, in which case
+     * the move is neither played nor published, and the client is not told that it was played
+     */
+    private GameStatus played(short move) {
+        if (journal != null) {
+            journal.move(id, game.plyCount(), move);
+        }
+        var status = game.play(move);
+        this.status = status;
+        if (status.isGameOver()) {
+            end();
+        }
+        var next = game.snapshot();
+        spectators.publish(Delta.between(position, next, game.plyCount(), status, game.clock()));
+        position = next;
+        return status;
+    }
+
+    synchronized Subscription subscribe(int capacity) {
+        checkTime();
+        var first = Delta.full(position, game.plyCount(), status, game.clock());
+        return spectators.subscribe(isClosed ? first.closing() : first, capacity);
+    }
+
+    synchronized String fen() {
+        lastAccess = System.nanoTime();
+        return game.toFen();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the ply has not been played
+     */
+    synchronized String fen(int ply) {
+        lastAccess = System.nanoTime();
+        if (ply < 0 || ply > game.plyCount()) {
+            throw new IllegalArgumentException("Ply " + ply + " has not been played");
+        }
+        return game.snapshot(ply).toFen();
+    }
+
+    synchronized GameStatus status() {
+        lastAccess = System.nanoTime();
+        checkTime();
+        return status;
+    }
+
+    /**
+     * @return the position in FEN and the status of the last move on two lines, which are read
+     * together so that they belong to the same move
+     */
+    synchronized String fenAndStatus() {
+        lastAccess = System.nanoTime();
+        checkTime();
+        return game.toFen() + '\n' + status;
+    }
+
+    /**
+     * Ends the game if the side to move ran out of time without moving.
+     */
+    private void checkTime() {
+        if (status.isGameOver()) {
+            return;
+        }
+        var timeStatus = game.timeStatus();
+        if (timeStatus.isGameOver()) {
+            status = timeStatus;
+            end();
+            spectators.publish(Delta.between(position, position, game.plyCount(), status,
+                    game.clock()));
+        }
+    }
+
+    /**
+     * Ends the session, after settling a loss on time, and sends the spectators a last update.
+     */
+    synchronized void close() {
+        checkTime();
+        isClosed = true;
+        end();
+        spectators.publish(Delta.between(position, position, game.plyCount(), status,
+                game.clock()).closing());
+    }
+
+    /**
+     * Records in the journal that the game ended, unless that was already done.
+     */
+    private void end() {
+        if (!isEnded) {
+            isEnded = true;
+            if (journal != null) {
+                journal.end(id);
+            }
+        }
+    }
+
+    long lastAccess() {
+        return lastAccess;
+    }
+}
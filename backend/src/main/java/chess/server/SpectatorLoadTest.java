@@ -0,0 +1,163 @@
+package chess.server;
+
+import chess.backend.Game;
+import chess.backend.GameStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command line tool which measures how long moves take to reach the spectators of a game. One
+ * thread plays random moves at a fixed pace, while a few threads poll the subscriptions of many
+ * spectators. A share of the spectators is slow, and only polls now and then, which must neither
+ * delay the moves nor the other spectators.
+ * <p> Usage: SpectatorLoadTest [spectators] [moves] [slow-percent] [threads]
+ */
+public final class SpectatorLoadTest {
+    private static final int QUEUE_CAPACITY = 16;
+    private static final int SLOW_POLL_PASSES = 200;
+    private static final long MOVE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final boolean[] isSlow;
+    private final AtomicLong received = new AtomicLong();
+    private volatile boolean isDone;
+
+    private SpectatorLoadTest(GameService service, String id, int spectators, int slowPercent) {
+        isSlow = new boolean[spectators];
+        for (int i = 0; i < spectators; i++) {
+            subscriptions.add(service.subscribe(id, QUEUE_CAPACITY));
+            isSlow[i] = i % 100 < slowPercent;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 4) {
+            System.err.println("Usage: SpectatorLoadTest [spectators] [moves] [slow-percent]"
+                    + " [threads]");
+            System.exit(2);
+        }
+        int spectators = (args.length > 0) ? Integer.parseInt(args[0]) : 10_000;
+        int moves = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        int slowPercent = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int threads = (args.length > 3)
+                ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        for (boolean isWarmUp : new boolean[] {true, false}) {
+            var service = new GameService(1);
+            var id = service.create();
+            new SpectatorLoadTest(service, id, spectators, slowPercent)
+                    .run(service, id, moves, threads, isWarmUp);
+        }
+    }
+
+    /**
+     * Runs the test, and prints the results unless it is the warm-up run, which lets the compiler
+     * optimize the code before it is measured.
+     */
+    private void run(GameService service, String id, int moves, int threads, boolean isWarmUp)
+            throws InterruptedException {
+        var consumers = new Thread[threads];
+        var latencies = new long[threads][];
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            consumers[i] = new Thread(() -> latencies[thread] = consume(thread, threads));
+            consumers[i].start();
+        }
+        var moveNanos = play(service, id, moves);
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(10 * MOVE_INTERVAL_NANOS));
+        isDone = true;
+        long coalesced = 0;
+        for (var consumer : consumers) {
+            consumer.join();
+        }
+        for (var subscription : subscriptions) {
+            coalesced += subscription.coalesced();
+            subscription.close();
+        }
+        if (isWarmUp) {
+            return;
+        }
+        System.out.printf("%d spectators, %d moves, %d updates received, %d coalesced%n",
+                subscriptions.size(), moveNanos.length, received.get(), coalesced);
+        report("fan-out latency of fast spectators", concat(latencies));
+        report("move latency", moveNanos);
+    }
+
+    private long[] play(GameService service, String id, int moves) {
+        var game = new Game();
+        var random = new SplittableRandom(1);
+        var legalMoves = new short[Game.MAX_MOVES];
+        var moveNanos = new long[moves];
+        var status = GameStatus.ONGOING;
+        int played = 0;
+        long next = System.nanoTime();
+        while (played < moves && !status.isGameOver()) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            next += MOVE_INTERVAL_NANOS;
+            short move = legalMoves[random.nextInt(game.legalMoves(legalMoves))];
+            long start = System.nanoTime();
+            status = service.play(id, move);
+            moveNanos[played++] = System.nanoTime() - start;
+            game.play(move);
+        }
+        return Arrays.copyOf(moveNanos, played);
+    }
+
+    private long[] consume(int thread, int threads) {
+        var latencies = new long[1024];
+        int size = 0;
+        for (long pass = 0; !isDone; pass++) {
+            long before = received.get();
+            for (int i = thread; i < subscriptions.size(); i += threads) {
+                if (isSlow[i] && pass % SLOW_POLL_PASSES != 0) {
+                    continue;
+                }
+                for (var delta = subscriptions.get(i).poll(); delta != null;
+                        delta = subscriptions.get(i).poll()) {
+                    received.incrementAndGet();
+                    if (!isSlow[i]) {
+                        if (size == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, 2 * size);
+                        }
+                        latencies[size++] = System.nanoTime() - delta.publishedNanos();
+                    }
+                }
+            }
+            if (received.get() == before) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+        return Arrays.copyOf(latencies, size);
+    }
+
+    private static long[] concat(long[][] arrays) {
+        var all = new long[0];
+        for (var array : arrays) {
+            int size = all.length;
+            all = Arrays.copyOf(all, size + array.length);
+            System.arraycopy(array, 0, all, size, array.length);
+        }
+        return all;
+    }
+
+    private static void report(String name, long[] nanos) {
+        if (nanos.length == 0) {
+            System.out.println(name + ": no samples");
+            return;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%s: p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n", name,
+                percentile(nanos, 0.5), percentile(nanos, 0.99), percentile(nanos, 0.999),
+                nanos[nanos.length - 1] / 1e3);
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        return sorted[(int) Math.min(sorted.length - 1, fraction * sorted.length)] / 1e3;
+    }
+}
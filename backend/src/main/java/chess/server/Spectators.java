@@ -0,0 +1,54 @@
+package chess.server;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends the updates of one game to its spectators. Publishing only queues the update and schedules
+ * a fan-out task, so a move never waits for spectators. The task sends every update queued since
+ * the last fan-out as one batch, and splits the spectators between the threads of the common pool
+ * once there are many of them.
+ */
+final class Spectators {
+    private static final int PARALLELISM_THRESHOLD = 1024;
+
+    private final ConcurrentHashMap<Subscription, Boolean> subscriptions =
+            new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Delta> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+    Subscription subscribe(Delta first, int capacity) {
+        var subscription = new Subscription(this, capacity, first);
+        subscriptions.put(subscription, Boolean.TRUE);
+        return subscription;
+    }
+
+    void remove(Subscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    void publish(Delta delta) {
+        pending.add(delta);
+        if (isScheduled.compareAndSet(false, true)) {
+            ForkJoinPool.commonPool().execute(this::fanOut);
+        }
+    }
+
+    private void fanOut() {
+        do {
+            var batch = new ArrayList<Delta>();
+            for (var delta = pending.poll(); delta != null; delta = pending.poll()) {
+                batch.add(delta);
+            }
+            if (!batch.isEmpty()) {
+                var deltas = batch.toArray(new Delta[0]);
+                subscriptions.forEachKey(PARALLELISM_THRESHOLD,
+                        subscription -> subscription.offer(deltas));
+            }
+            isScheduled.set(false);
+        } while (!pending.isEmpty() && isScheduled.compareAndSet(false, true));
+    }
+}
@@ -0,0 +1,126 @@
+package chess.server;
+
+import chess.backend.GameStatus;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The updates of one game for one spectator. Updates are queued up to a bound, and once the queue
+ * is full, new updates are merged into the last queued one, so a slow spectator uses bounded memory
+ * and never holds up the game or other spectators. A spectator which catches up receives the latest
+ * board, but not every move which led to it. The last update of a closed session is marked by
+ * {@link Delta#isClosed}, after which polling no longer waits.
+ */
+public final class Subscription implements AutoCloseable {
+    private final Spectators spectators;
+    private final ArrayDeque<Delta> queue;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int lastPly;
+    private GameStatus lastStatus;
+    private boolean isClosed;
+    private long coalesced;
+
+    Subscription(Spectators spectators, int capacity, Delta first) {
+        this.spectators = spectators;
+        this.capacity = capacity;
+        queue = new ArrayDeque<>(capacity);
+        queue.add(first);
+        lastPly = first.ply();
+        lastStatus = first.status();
+        isClosed = first.isClosed();
+    }
+
+    /**
+     * Queues the updates, skipping those which the spectator already has. An update without a
+     * move is only queued if it ends the game or closes the session.
+     */
+    void offer(Delta[] deltas) {
+        lock.lock();
+        try {
+            for (var delta : deltas) {
+                boolean isNews = delta.status() != lastStatus || delta.isClosed();
+                if (isClosed || delta.ply() < lastPly || (delta.ply() == lastPly && !isNews)) {
+                    continue;
+                }
+                lastPly = delta.ply();
+                lastStatus = delta.status();
+                isClosed = delta.isClosed();
+                if (queue.size() < capacity) {
+                    queue.add(delta);
+                } else {
+                    queue.add(queue.pollLast().merge(delta));
+                    coalesced++;
+                }
+            }
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the oldest update, or null if there is none
+     */
+    public Delta poll() {
+        lock.lock();
+        try {
+            return queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the oldest update, or null if there is none before the timeout, or none at all
+     * because the session was closed
+     */
+    public Delta poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (queue.isEmpty() && !isClosed && nanos > 0) {
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether the last update of the session was queued, so that no other update follows
+     */
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return isClosed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many updates were merged into others because the queue was full
+     */
+    public long coalesced() {
+        lock.lock();
+        try {
+            return coalesced;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops receiving updates.
+     */
+    @Override
+    public void close() {
+        spectators.remove(this);
+    }
+}
@@ -0,0 +1,144 @@
+package chess.archive;
+
+import chess.backend.Game;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class GameRecordTest {
+    private static final long SEGMENT_BYTES = 4096;
+    private static final int GAMES = 60;
+    private static final int MAX_MOVES = 256;
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEveryGameByIndexAcrossSegments() throws IOException {
+        var path = directory.resolve("games.record");
+        var games = randomGames();
+        // The second writer appends to the file of the first without another magic number
+        try (var writer = new GameRecordWriter(path)) {
+            for (var game : games.subList(0, GAMES / 2)) {
+                writer.append(game, result(game));
+            }
+        }
+        try (var writer = new GameRecordWriter(path)) {
+            for (var game : games.subList(GAMES / 2, GAMES)) {
+                writer.append(game, result(game));
+            }
+        }
+        assertTrue(straddlesSegment(games), "No game straddles a segment");
+        try (var reader = new GameRecordReader(path, SEGMENT_BYTES)) {
+            assertEquals(GAMES, reader.size());
+            for (int i = GAMES - 1; i >= 0; i--) {
+                assertRecorded(games.get(i), reader.get(i));
+            }
+            int index = 0;
+            for (var recorded : reader) {
+                assertEquals(games.get(index++).plyCount(), recorded.plyCount());
+            }
+            assertEquals(GAMES, index);
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.get(GAMES));
+        }
+    }
+
+    @Test
+    void replaysAGivenAmountOfPlies() throws IOException {
+        var path = directory.resolve("games.record");
+        var game = new Game();
+        for (var move : List.of("e4", "e5", "Nf3", "Nc6", "Bb5")) {
+            game.playSan(move);
+        }
+        try (var writer = new GameRecordWriter(path)) {
+            writer.append(game, GameResult.UNKNOWN);
+        }
+        try (var reader = new GameRecordReader(path)) {
+            var recorded = reader.get(0);
+            assertNull(recorded.startFen());
+            assertEquals(new Game().toFen(), recorded.replay(0).toFen());
+            assertEquals("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+                    recorded.replay(4).toFen());
+            assertThrows(IndexOutOfBoundsException.class, () -> recorded.replay(6));
+            assertThrows(IndexOutOfBoundsException.class, () -> recorded.moveAt(5));
+        }
+    }
+
+    @Test
+    void rejectsFilesWhichAreNotWholeRecords() throws IOException {
+        var path = directory.resolve("games.record");
+        Files.write(path, "PGN!".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new GameRecordReader(path).close());
+
+        Files.delete(path);
+        try (var writer = new GameRecordWriter(path)) {
+            writer.append(new Game(), GameResult.UNKNOWN);
+        }
+        Files.write(path, new byte[] {0, 1, 0}, StandardOpenOption.APPEND);
+        assertThrows(IOException.class, () -> new GameRecordReader(path).close());
+    }
+
+    private static void assertRecorded(Game expected, RecordedGame actual) {
+        assertEquals(expected.plyCount(), actual.plyCount());
+        assertEquals(result(expected), actual.result());
+        assertEquals(expected.startFen(), actual.startFen());
+        for (int ply = 0; ply < expected.plyCount(); ply++) {
+            assertEquals(expected.moveAt(ply), actual.moveAt(ply));
+        }
+        assertEquals(expected.toFen(), actual.replay().toFen());
+    }
+
+    /**
+     * Plays games of random legal moves, every third of them from another starting position, and
+     * of up to a few hundred plies so that games are long enough to cross segment boundaries.
+     */
+    private static List<Game> randomGames() {
+        var random = new Random(28);
+        var moves = new short[MAX_MOVES];
+        var games = new ArrayList<Game>();
+        for (int i = 0; i < GAMES; i++) {
+            var game = (i % 3 == 0) ? Game.fromFen(KIWIPETE) : new Game();
+            int plies = random.nextInt(300);
+            for (int ply = 0; ply < plies; ply++) {
+                int count = game.legalMoves(moves);
+                if (count == 0 || game.play(moves[random.nextInt(count)]).isGameOver()) {
+                    break;
+                }
+            }
+            games.add(game);
+        }
+        return games;
+    }
+
+    private static GameResult result(Game game) {
+        return GameResult.values()[game.plyCount() % GameResult.values().length];
+    }
+
+    private static boolean straddlesSegment(List<Game> games) {
+        long offset = GameRecordWriter.FILE_HEADER_BYTES;
+        for (var game : games) {
+            long start = offset;
+            offset += GameRecordWriter.GAME_HEADER_BYTES + game.plyCount() * Short.BYTES
+                    + ((game.startFen() == null) ? 0 : game.startFen().length());
+            if (start / SEGMENT_BYTES != (offset - 1) / SEGMENT_BYTES) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,67 @@
+package chess.archive;
+
+import chess.backend.Game;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class PgnReaderTest {
+    private static final String VALID = "[Event \"Disambiguation\"]\n"
+            + "[FEN \"r3k2r/1P6/8/8/8/8/8/R3K2R w KQkq - 0 1\"]\n\n"
+            + "1. bxa8=Q+ {Promotes with a capture} Kd7 2. O-O Ke6 3. Qb8 Rh7 4. Rfb1 Rh5\n"
+            + "5. R1b7 Ra5 6. Rab1 Kd5 1-0\n\n";
+    private static final String ILLEGAL = "[Event \"Illegal\"]\n\n1. e4 e5 2. Ke3 Nf6 *\n\n";
+    private static final String AMBIGUOUS = "[Event \"Ambiguous\"]\n\n"
+            + "1. Nf3 d5 2. d4 Nf6 3. Nd2 e6 1/2-1/2\n\n";
+    private static final String AFTER_MATE = "[Event \"After mate\"]\n\n"
+            + "1. f3 e5 2. g4 Qh4# 3. a3 0-1\n";
+
+    @TempDir
+    Path directory;
+
+    private final Map<Long, String> games = new ConcurrentHashMap<>();
+    private final Map<Long, String> errors = new ConcurrentHashMap<>();
+
+    @Test
+    void playsEveryMoveOfTheValidGames() throws IOException, InterruptedException {
+        assertEquals(2, read(VALID + VALID));
+        assertEquals(Map.of(), errors);
+        var fen = "1Q6/1R6/8/r2k4/8/8/8/1R4K1 w - - 11 7 1-0";
+        assertEquals(Map.of(0L, fen, (long) VALID.length(), fen), games);
+    }
+
+    @Test
+    void reportsTheOffsetOfTheFirstInvalidMove() throws IOException, InterruptedException {
+        var pgn = VALID + ILLEGAL + AMBIGUOUS + AFTER_MATE;
+        assertEquals(4, read(pgn));
+        assertEquals(1, games.size());
+        assertEquals(Map.of(
+                (long) pgn.indexOf("Ke3"), "Illegal move: Ke3",
+                (long) pgn.indexOf("Nd2"), "Ambiguous move: Nd2",
+                (long) pgn.indexOf("a3"), "Move after the game ended"), errors);
+    }
+
+    private long read(String pgn) throws IOException, InterruptedException {
+        var path = directory.resolve("games.pgn");
+        Files.write(path, pgn.getBytes(StandardCharsets.US_ASCII));
+        return new PgnReader(2).read(path, new PgnReader.Listener() {
+            @Override
+            public void onGame(long offset, Game game, GameResult result) {
+                games.put(offset, game.toFen() + " " + result);
+            }
+
+            @Override
+            public void onError(long offset, String message) {
+                errors.put(offset, message);
+            }
+        });
+    }
+}
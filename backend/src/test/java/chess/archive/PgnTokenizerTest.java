@@ -0,0 +1,51 @@
+package chess.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class PgnTokenizerTest {
+    @Test
+    void skipsCommentsVariationsGlyphsAndMoveNumbers() {
+        var text = "[Event \"Casual\"]\n[FEN \"8/8/8/8/8/8/8/8 w - - 0 1\"]\n\n"
+                + "1.e4 {best (by test)} e5 (1...c5 2.Nf3) 2. Nf3 $1 Nc6 ; rest of line\n"
+                + "% escaped line\n3.Bb5 a6!? 4...Nf6 1-0\n";
+        assertEquals(List.of("TAG Event Casual", "TAG FEN 8/8/8/8/8/8/8/8 w - - 0 1", "MOVE e4",
+                "MOVE e5", "MOVE Nf3", "MOVE Nc6", "MOVE Bb5", "MOVE a6!?", "MOVE Nf6",
+                "RESULT 1-0"), tokens(text));
+    }
+
+    @Test
+    void readsEveryResult() {
+        assertEquals(List.of("MOVE e4", "RESULT 0-1"), tokens("1. e4 0-1"));
+        assertEquals(List.of("MOVE d4", "RESULT 1/2-1/2"), tokens("1.d4 1/2-1/2"));
+        assertEquals(List.of("RESULT *"), tokens("*"));
+        assertEquals(List.of(), tokens("{Only a comment}"));
+    }
+
+    /**
+     * @return each token, with the text of its range, and its tag value or result
+     */
+    private static List<String> tokens(String pgn) {
+        var bytes = pgn.getBytes(StandardCharsets.US_ASCII);
+        var text = new ByteSequence(bytes, 0, bytes.length);
+        var tokenizer = new PgnTokenizer(text);
+        var tokens = new ArrayList<String>();
+        for (var token = tokenizer.next(); token != PgnTokenizer.Token.END;
+                token = tokenizer.next()) {
+            var description = token + " " + text.subSequence(tokenizer.start(), tokenizer.end());
+            if (token == PgnTokenizer.Token.TAG) {
+                description += " " + text.subSequence(tokenizer.valueStart(),
+                        tokenizer.valueEnd());
+            } else if (token == PgnTokenizer.Token.RESULT) {
+                assertEquals(description, token + " " + tokenizer.result());
+            }
+            tokens.add(description);
+        }
+        return tokens;
+    }
+}
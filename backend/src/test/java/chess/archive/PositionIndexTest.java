@@ -0,0 +1,133 @@
+package chess.archive;
+
+import chess.backend.Game;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class PositionIndexTest {
+    private static final int GAMES = 80;
+    private static final int MAX_PLIES = 40;
+    private static final int MAX_MOVES = 256;
+    // Larger than the runs which are insertion sorted, but small enough that there are many runs
+    private static final int RUN_ENTRIES = 100;
+    private static final int THREADS = 3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTheMovesAndGamesOfEveryPosition() throws IOException, InterruptedException {
+        var games = randomGames();
+        var path = directory.resolve("games.record");
+        try (var writer = new GameRecordWriter(path)) {
+            for (int i = 0; i < games.size(); i++) {
+                writer.append(games.get(i), result(i));
+            }
+        }
+        var expected = expectedIndex(games);
+        long pairs = expected.values().stream().mapToLong(Map::size).sum();
+        long entries = games.stream()
+                .mapToLong(game -> Math.min(game.plyCount(), MAX_PLIES)).sum();
+        assertTrue(entries > 4 * THREADS * RUN_ENTRIES, "Too few runs are merged");
+
+        var indexPath = directory.resolve("games.index");
+        try (var reader = new GameRecordReader(path)) {
+            assertEquals(pairs, PositionIndexBuilder.build(reader, indexPath, THREADS, MAX_PLIES,
+                    RUN_ENTRIES));
+        }
+        try (var index = new PositionIndex(indexPath)) {
+            assertEquals(pairs, index.size());
+            for (var position : expected.entrySet()) {
+                var candidates = index.candidates(position.getKey());
+                var moves = position.getValue();
+                assertEquals(moves.size(), candidates.size());
+                int previous = Integer.MAX_VALUE;
+                for (var candidate : candidates) {
+                    assertTrue(candidate.games() <= previous, "Not most played first");
+                    previous = candidate.games();
+                    var ids = moves.get(candidate.move());
+                    assertEquals(ids.size(), candidate.games());
+                    assertArrayEquals(ids.stream().mapToInt(Integer::intValue).toArray(),
+                            index.games(candidate, Integer.MAX_VALUE));
+                    assertEquals(count(ids, GameResult.WHITE_WINS), candidate.whiteWins());
+                    assertEquals(count(ids, GameResult.BLACK_WINS), candidate.blackWins());
+                    assertEquals(count(ids, GameResult.DRAW), candidate.draws());
+                    assertEquals(Math.min(2, ids.size()), index.games(candidate, 2).length);
+                }
+            }
+            // Searches which end before the first record and after the last one
+            assertFalse(expected.containsKey(Long.MIN_VALUE));
+            assertFalse(expected.containsKey(Long.MAX_VALUE));
+            assertTrue(index.candidates(Long.MIN_VALUE).isEmpty());
+            assertTrue(index.candidates(Long.MAX_VALUE).isEmpty());
+        }
+    }
+
+    /**
+     * @return the ids of the games which played each move from each position in their first plies
+     */
+    private static Map<Long, Map<Short, TreeSet<Integer>>> expectedIndex(List<Game> games) {
+        var expected = new HashMap<Long, Map<Short, TreeSet<Integer>>>();
+        for (int id = 0; id < games.size(); id++) {
+            var recorded = games.get(id);
+            var game = new Game();
+            for (int ply = 0; ply < Math.min(recorded.plyCount(), MAX_PLIES); ply++) {
+                short move = recorded.moveAt(ply);
+                expected.computeIfAbsent(game.positionHash(), hash -> new TreeMap<>())
+                        .computeIfAbsent(move, key -> new TreeSet<>()).add(id);
+                game.play(move);
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Plays games of random legal moves from the initial position, half of which start with the
+     * same few moves so that some positions are reached by many games.
+     */
+    private static List<Game> randomGames() {
+        var random = new Random(30);
+        var moves = new short[MAX_MOVES];
+        var games = new ArrayList<Game>();
+        for (int i = 0; i < GAMES; i++) {
+            var game = new Game();
+            if (i % 2 == 0) {
+                for (var san : List.of("e4", "e5", "Nf3")) {
+                    game.playSan(san);
+                }
+            }
+            int plies = random.nextInt(2 * MAX_PLIES);
+            for (int ply = 0; ply < plies; ply++) {
+                int count = game.legalMoves(moves);
+                if (count == 0 || game.play(moves[random.nextInt(count)]).isGameOver()) {
+                    break;
+                }
+            }
+            games.add(game);
+        }
+        return games;
+    }
+
+    private static GameResult result(int id) {
+        return GameResult.values()[id % GameResult.values().length];
+    }
+
+    private static int count(TreeSet<Integer> ids, GameResult result) {
+        return (int) ids.stream().filter(id -> result(id) == result).count();
+    }
+}
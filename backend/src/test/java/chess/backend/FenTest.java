@@ -0,0 +1,58 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class FenTest {
+    @Test
+    void writesBackWhatItRead() {
+        assertRoundTrip(Fen.INITIAL_POSITION);
+        assertRoundTrip("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 12 31");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w Qk - 0 1");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R b K - 3 40");
+        assertRoundTrip("r3k2r/8/8/8/8/8/8/R3K2R w q - 99 200");
+        assertRoundTrip("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        assertRoundTrip("rnbqkbnr/pppp1ppp/8/8/3Pp3/8/PPP1PPPP/RNBQKBNR b KQkq d3 0 2");
+    }
+
+    @Test
+    void readsPositionsWithoutMoveCounters() {
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1",
+                Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - -").toFen());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 7 1",
+                Position.fromFen("4k3/8/8/8/8/8/8/4K3 b - - 7").toFen());
+        assertEquals(Fen.INITIAL_POSITION, Position.fromFen(Fen.INITIAL_POSITION + "  ").toFen());
+    }
+
+    @Test
+    void rejectsTextAfterTheMoveCounters() {
+        assertInvalid(Fen.INITIAL_POSITION + " extra");
+        assertInvalid(Fen.INITIAL_POSITION + " 2");
+        assertInvalid("4k3/8/8/8/8/8/8/4K3 w - - 0 1x");
+    }
+
+    @Test
+    void rejectsMalformedFields() {
+        assertInvalid("4k3/8/8/8/8/8/8/4K3");
+        assertInvalid("4k3/8/8/8/8/8/8/4K3 x - - 0 1");
+        assertInvalid("4k3/8/8/8/8/8/8/4K3 w X - 0 1");
+        assertInvalid("4k3/8/8/8/8/8/8/3K4 w - e3 0 1");
+        assertInvalid("4k3/8/8/8/8/8/8/4K3 w - - -1 1");
+    }
+
+    /**
+     * The FEN must come back unchanged from both a position and a game read from it.
+     */
+    private static void assertRoundTrip(String fen) {
+        assertEquals(fen, Position.fromFen(fen).toFen());
+        assertEquals(fen, Game.fromFen(fen).toFen());
+        assertEquals(fen, Game.fromFen(fen).snapshot().toFen());
+    }
+
+    private static void assertInvalid(String fen) {
+        assertThrows(IllegalArgumentException.class, () -> Position.fromFen(fen), fen);
+        assertThrows(IllegalArgumentException.class, () -> Game.fromFen(fen), fen);
+    }
+}
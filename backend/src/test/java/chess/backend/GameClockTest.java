@@ -0,0 +1,89 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class GameClockTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void parsesSecondsAndIncrement() {
+        var clock = GameClock.parse("300+2.5");
+        assertEquals(300 * SECOND, clock.remainingNanos(true));
+        assertEquals(300 * SECOND, clock.remainingNanos(false));
+        assertEquals(5 * SECOND / 2, clock.incrementNanos());
+        assertThrows(IllegalArgumentException.class, () -> GameClock.parse("300"));
+        assertThrows(IllegalArgumentException.class, () -> GameClock.parse("0+1"));
+    }
+
+    @Test
+    void onlyTheSideToMoveRunsAndGetsTheIncrementAfterItsMove() throws InterruptedException {
+        var clock = new GameClock(10 * SECOND, SECOND);
+        clock.start(true);
+        Thread.sleep(20);
+        long white = clock.remainingNanos(true);
+        assertTrue(white < 10 * SECOND && white > 9 * SECOND, "White runs: " + white);
+        assertEquals(10 * SECOND, clock.remainingNanos(false));
+
+        assertTrue(clock.press());
+        long afterMove = clock.remainingNanos(true);
+        assertTrue(afterMove > 10 * SECOND && afterMove < 11 * SECOND, "Increment: " + afterMove);
+        Thread.sleep(20);
+        assertEquals(afterMove, clock.remainingNanos(true));
+        assertTrue(clock.remainingNanos(false) < 10 * SECOND);
+    }
+
+    @Test
+    void sideOutOfTimeLosesAndStopsBothClocks() throws InterruptedException {
+        var clock = new GameClock(TimeUnit.MILLISECONDS.toNanos(1), SECOND);
+        clock.start(true);
+        Thread.sleep(20);
+        assertEquals(0, clock.remainingNanos(true));
+        assertFalse(clock.press());
+        assertEquals(0, clock.remainingNanos(true));
+        long black = clock.remainingNanos(false);
+        Thread.sleep(20);
+        assertEquals(black, clock.remainingNanos(false));
+        // Moves are no longer timed once the clocks stopped
+        assertTrue(clock.press());
+    }
+
+    @Test
+    void flagFallLosesUnlessTheOpponentCannotMate() throws InterruptedException {
+        assertEquals(GameStatus.BLACK_WINS_ON_TIME,
+                statusAfterFlagFall("r3k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertEquals(GameStatus.INSUFFICIENT_MATING,
+                statusAfterFlagFall("4k3/8/8/8/8/8/8/4K2R w - - 0 1"));
+        assertEquals(GameStatus.INSUFFICIENT_MATING,
+                statusAfterFlagFall("4k3/8/8/8/8/8/8/n3K3 w - - 0 1"));
+        assertEquals(GameStatus.INSUFFICIENT_MATING,
+                statusAfterFlagFall("4k3/8/8/8/8/8/8/b3K3 w - - 0 1"));
+    }
+
+    @Test
+    void flagFallLosesWhenAMateCanStillBeHelped() throws InterruptedException {
+        // The rook of white may block its own king, so the knight can mate
+        assertEquals(GameStatus.BLACK_WINS_ON_TIME,
+                statusAfterFlagFall("4k3/8/8/8/8/8/8/n3K2R w - - 0 1"));
+        assertEquals(GameStatus.BLACK_WINS_ON_TIME,
+                statusAfterFlagFall("4k3/8/1nn5/8/8/8/8/4K3 w - - 0 1"));
+    }
+
+    /**
+     * @return the status once white ran out of time, both before and after it moves
+     */
+    private static GameStatus statusAfterFlagFall(String fen) throws InterruptedException {
+        var game = Game.fromFen(fen);
+        game.useClock(new GameClock(TimeUnit.MILLISECONDS.toNanos(1), 0));
+        Thread.sleep(20);
+        var status = game.timeStatus();
+        assertEquals(status, game.playSan("Kd1"));
+        return status;
+    }
+}
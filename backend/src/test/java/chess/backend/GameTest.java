@@ -0,0 +1,65 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class GameTest {
+    private static final List<String> ROOK_SHUFFLE =
+            List.of("Rbb1", "Kg8", "Ra2", "Kh8", "Rba1", "Kg8", "Rab2", "Kh8");
+
+    @Test
+    void rooksWhichSwapSquaresRepeatThePosition() {
+        var game = Game.fromFen("7k/8/8/8/8/8/1R6/R3K3 w - - 0 1");
+        play(game, ROOK_SHUFFLE);
+        // The rooks stand on each other's squares, which is still the starting position
+        assertEquals(GameStatus.ONGOING, game.playSan("Rbb1"));
+        assertEquals(2, game.repetitionCount());
+        play(game, ROOK_SHUFFLE.subList(1, ROOK_SHUFFLE.size()));
+        assertEquals(GameStatus.TOO_MANY_REPETITIONS, game.playSan("Rbb1"));
+        assertEquals(3, game.repetitionCount());
+    }
+
+    @Test
+    void samePiecesWithTheOtherSideToMoveAreAnotherPosition() {
+        var game = Game.fromFen("7k/p7/8/8/8/8/P7/4K3 w - - 0 1");
+        // White walks a triangle while black goes back and forth, so black is to move once the
+        // pieces are back where they started
+        play(game, List.of("Kd1", "Kg8", "Kd2", "Kh8", "Ke1"));
+        game.playSan("Kg8");
+        assertEquals(1, game.repetitionCount());
+        // Once white is to move again, the pieces repeat the position which black left
+        play(game, List.of("Kd1", "Kh8", "Ke1"));
+        game.playSan("Kg8");
+        assertEquals(2, game.repetitionCount());
+    }
+
+    @Test
+    void kingCannotCastleNextToTheEnemyKing() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Game.fromFen("8/8/8/8/8/8/6k1/4K2R w K - 0 1").playSan("O-O"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Game.fromFen("8/8/8/8/8/8/5k2/R3K3 w Q - 0 1").playSan("O-O-O"));
+        assertEquals(GameStatus.ONGOING,
+                Game.fromFen("8/8/8/8/8/8/k7/4K2R w K - 0 1").playSan("O-O"));
+    }
+
+    @Test
+    void enPassantCannotUncoverAnAttackOnTheKing() {
+        // Both pawns leave the fifth rank, which opens it to the rook
+        assertThrows(IllegalArgumentException.class,
+                () -> Game.fromFen("8/8/8/K2pP2r/8/8/8/7k w - d6 0 1").playSan("exd6"));
+        var game = Game.fromFen("8/8/8/K2pP3/8/8/8/7k w - d6 0 1");
+        assertEquals(GameStatus.ONGOING, game.playSan("exd6"));
+        assertEquals("8/8/3P4/K7/8/8/8/7k b - - 0 1", game.toFen());
+    }
+
+    private static void play(Game game, List<String> moves) {
+        for (var move : moves) {
+            game.playSan(move);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+final class LegalMoveTableTest {
+    private static final String[] POSITIONS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        // Castling on both sides, for white and then for black
+        "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1",
+        "r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1",
+        // En passant for white and then for black, next to a pawn which cannot take
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "rnbqkbnr/pppp1ppp/8/8/2PPp3/8/PP2PPPP/RNBQKBNR b KQkq d3 0 3",
+        // Pinned pieces, promotions and a king in check
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+        "4k3/8/8/8/8/8/4q3/4K3 w - - 0 1",
+    };
+
+    @Test
+    void tableHasTheMovesOfEveryAlliedPiece() {
+        var kinds = EnumSet.noneOf(Move.class);
+        for (var fen : POSITIONS) {
+            var game = Game.fromFen(fen);
+            var table = LegalMoveTable.compute(game, Runnable::run).join();
+            assertTable(game, table);
+            for (var from : alliedSquares(game)) {
+                for (var row : table.availableMoves(from)) {
+                    kinds.addAll(List.of(row));
+                }
+            }
+        }
+        assertEquals(EnumSet.allOf(Move.class), kinds, "Not every kind of move is covered");
+    }
+
+    @Test
+    void tableIsOfThePositionWhenItWasAskedFor() {
+        var game = Game.fromFen(POSITIONS[3]);
+        var tasks = new ArrayList<Runnable>();
+        var future = LegalMoveTable.compute(game, tasks::add);
+        // The table is built once white has moved, but still has the moves which white had
+        game.playSan("exf6");
+        tasks.forEach(Runnable::run);
+        assertTable(Game.fromFen(POSITIONS[3]), future.join());
+    }
+
+    @Test
+    void availableMovesAreCopies() {
+        var game = Game.fromFen(POSITIONS[1]);
+        var table = LegalMoveTable.compute(game, Runnable::run).join();
+        for (var from : alliedSquares(game)) {
+            var first = table.availableMoves(from);
+            var expected = table.availableMoves(from);
+            assertNotSame(first, expected);
+            for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+                assertNotSame(first[i], expected[i]);
+                Arrays.fill(first[i], Move.NONE);
+            }
+            first[0] = null;
+            assertArrayEquals(expected, table.availableMoves(from), from.toString());
+        }
+    }
+
+    private static void assertTable(Game game, LegalMoveTable table) {
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var from = Point.instance(j, i);
+                var piece = game.getAlliedPieceAt(from);
+                if (piece == null) {
+                    assertNull(table.availableMoves(from), game.toFen() + " " + from);
+                } else {
+                    assertArrayEquals(game.availableMoves(piece, from), table.availableMoves(from),
+                            game.toFen() + " " + from);
+                }
+            }
+        }
+    }
+
+    private static List<Point> alliedSquares(Game game) {
+        var squares = new ArrayList<Point>();
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var from = Point.instance(j, i);
+                if (game.getAlliedPieceAt(from) != null) {
+                    squares.add(from);
+                }
+            }
+        }
+        return squares;
+    }
+}
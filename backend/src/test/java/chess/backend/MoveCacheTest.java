@@ -0,0 +1,100 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MoveCacheTest {
+    /**
+     * The estimated size of an entry of a position with twenty legal moves.
+     */
+    private static final long ENTRY_BYTES = 128 + 20 * Short.BYTES;
+    private static final int CAPACITY = 4;
+
+    @Test
+    void entriesUsedSinceTheirLastPassSurviveEviction() {
+        var games = positions();
+        var cache = new MoveCache(CAPACITY * ENTRY_BYTES);
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.get(games.get(i));
+        }
+        var first = cache.get(games.get(0));
+        assertCounters(cache, 1, CAPACITY, 0);
+
+        // The first entry is passed over and the second one is evicted in its place
+        cache.get(games.get(CAPACITY));
+        assertCounters(cache, 1, CAPACITY + 1, 1);
+        assertSame(first, cache.get(games.get(0)));
+        assertCounters(cache, 2, CAPACITY + 1, 1);
+        cache.get(games.get(1));
+        assertCounters(cache, 2, CAPACITY + 2, 2);
+
+        // Used again, so the first entry also survives the next pass, while the fifth does not
+        cache.get(games.get(3));
+        cache.get(games.get(CAPACITY + 1));
+        cache.get(games.get(CAPACITY + 2));
+        assertCounters(cache, 3, CAPACITY + 4, 4);
+        assertSame(first, cache.get(games.get(0)));
+        cache.get(games.get(CAPACITY));
+        assertCounters(cache, 4, CAPACITY + 5, 5);
+    }
+
+    @Test
+    void countersAndSizeAgreeUnderARandomWorkload() {
+        var games = positions();
+        var cache = new MoveCache(CAPACITY * ENTRY_BYTES + ENTRY_BYTES / 2);
+        var random = new Random(40);
+        for (int i = 1; i <= 2000; i++) {
+            // Most lookups go to the first few positions, which should then stay cached
+            boolean isHot = random.nextInt(4) != 0;
+            int index = random.nextInt(isHot ? 3 : games.size());
+            var game = games.get(index);
+            var entry = cache.get(game);
+            var moves = new short[Game.MAX_MOVES];
+            assertArrayEquals(Arrays.copyOf(moves, game.legalMoves(moves)), entry.moves());
+            assertEquals(i, cache.hits() + cache.misses());
+            assertEquals(cache.misses() - cache.evictions(), cache.size());
+            assertEquals(cache.size() * ENTRY_BYTES, cache.bytes());
+            assertTrue(cache.bytes() <= CAPACITY * ENTRY_BYTES + ENTRY_BYTES / 2, cache::toString);
+        }
+        assertTrue(cache.hits() > cache.misses(), cache::toString);
+    }
+
+    @Test
+    void rejectsCachesWithoutRoomForAnEntry() {
+        assertThrows(IllegalArgumentException.class, () -> new MoveCache(127));
+    }
+
+    /**
+     * @return the positions after each first move of white, in all of which black has twenty
+     * legal moves
+     */
+    private static List<Game> positions() {
+        var moves = new short[Game.MAX_MOVES];
+        int count = new Game().legalMoves(moves);
+        var games = new ArrayList<Game>();
+        for (int i = 0; i < count; i++) {
+            var game = new Game();
+            game.play(moves[i]);
+            games.add(game);
+        }
+        return games;
+    }
+
+    private static void assertCounters(MoveCache cache, long hits, long misses, long evictions) {
+        assertEquals(hits, cache.hits(), "Hits");
+        assertEquals(misses, cache.misses(), "Misses");
+        assertEquals(evictions, cache.evictions(), "Evictions");
+        assertEquals(misses - evictions, cache.size());
+        assertTrue(cache.bytes() <= CAPACITY * ENTRY_BYTES, cache::toString);
+    }
+}
@@ -0,0 +1,118 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class PositionTest {
+    private static final String[] STARTS = {
+        Fen.INITIAL_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/1P4P1/8/8/8/8/1p4p1/R3K2R b KQkq - 0 1",
+        "4k3/8/8/8/8/8/8/R3K3 w Q - 90 60",
+    };
+    private static final int GAMES_PER_START = 40;
+    private static final int MAX_PLIES = 400;
+
+    @Test
+    void playsLikeGameAtEveryPly() {
+        var random = new Random(35);
+        var statuses = EnumSet.noneOf(GameStatus.class);
+        for (var fen : STARTS) {
+            for (int i = 0; i < GAMES_PER_START; i++) {
+                playRandomGame(fen, random, statuses);
+            }
+        }
+        // Every status but a loss on time must have been compared
+        var expected = EnumSet.complementOf(
+                EnumSet.of(GameStatus.WHITE_WINS_ON_TIME, GameStatus.BLACK_WINS_ON_TIME));
+        assertEquals(expected, statuses);
+    }
+
+    @Test
+    void snapshotOfAnEarlierPlyIsTheOneTakenAtThatPly() {
+        var random = new Random(39);
+        int longest = 0;
+        for (var fen : STARTS) {
+            for (int i = 0; i < GAMES_PER_START / 4; i++) {
+                var game = Game.fromFen(fen);
+                var snapshots = new ArrayList<Position>();
+                var moves = new short[Game.MAX_MOVES];
+                snapshots.add(game.snapshot());
+                for (int ply = 0; ply < MAX_PLIES; ply++) {
+                    int count = game.legalMoves(moves);
+                    if (count == 0 || game.play(moves[random.nextInt(count)]).isGameOver()) {
+                        break;
+                    }
+                    snapshots.add(game.snapshot());
+                }
+                longest = Math.max(longest, game.plyCount());
+                // Asking for plies out of order creates the keyframes in another order
+                var plies = new ArrayList<Integer>();
+                for (int ply = 0; ply < snapshots.size(); ply++) {
+                    plies.add(ply);
+                }
+                Collections.shuffle(plies, random);
+                for (int ply : plies) {
+                    var description = fen + " at ply " + ply;
+                    assertEquals(snapshots.get(ply), game.snapshot(ply), description);
+                    assertEquals(snapshots.get(ply).toFen(), game.snapshot(ply).toFen(),
+                            description);
+                }
+                assertThrows(IndexOutOfBoundsException.class,
+                        () -> game.snapshot(game.plyCount() + 1));
+            }
+        }
+        assertTrue(longest > 4 * Game.KEYFRAME_PLIES, "No game crossed several keyframes");
+    }
+
+    /**
+     * Plays random legal moves on both a game and a position until the game ends, and checks after
+     * every move that they agree on the FEN, the hash, the legal moves and the status.
+     */
+    private static void playRandomGame(String fen, Random random, Set<GameStatus> statuses) {
+        var game = Game.fromFen(fen);
+        var position = Position.fromFen(fen);
+        var gameMoves = new short[Game.MAX_MOVES];
+        var positionMoves = new short[Game.MAX_MOVES];
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            var description = fen + " after " + ply + " plies: " + game.toFen();
+            assertEquals(game.toFen(), position.toFen(), description);
+            assertEquals(game.positionHash(), position.hash(), description);
+            assertEquals(game.snapshot(), position, description);
+            int count = game.legalMoves(gameMoves);
+            assertEquals(count, MoveGenerator.legalMoves(position, positionMoves), description);
+            var expected = Arrays.copyOf(gameMoves, count);
+            var actual = Arrays.copyOf(positionMoves, count);
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual, description);
+            if (count == 0) {
+                return;
+            }
+            short move = gameMoves[random.nextInt(count)];
+            var status = game.play(move);
+            position = position.play(move);
+            statuses.add(status);
+            assertEquals(status, MoveGenerator.status(position, game.repetitionCount()),
+                    description + " then " + EncodedMove.toString(move));
+            if (status.isGameOver()) {
+                assertEquals(game.toFen(), position.toFen(), description);
+                assertEquals(game.positionHash(), position.hash(), description);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SanTest {
+    @Test
+    void disambiguatesByFile() {
+        var game = play(new Game(), "d4", "d5", "Nf3", "Nf6");
+        assertInvalid("Ambiguous move: Nd2", game, "Nd2");
+        game.playSan("Nbd2");
+        assertEquals("rnbqkb1r/ppp1pppp/5n2/3p4/3P4/5N2/PPPNPPPP/R1BQKB1R b KQkq - 3 3",
+                game.toFen());
+    }
+
+    @Test
+    void disambiguatesByRank() {
+        var game = Game.fromFen("4k3/R7/8/8/8/8/8/R3K3 w - - 0 1");
+        assertInvalid("Ambiguous move: Ra4", game, "Ra4");
+        game.playSan("R1a4");
+        assertEquals("4k3/R7/8/8/R7/8/8/4K3 b - - 1 1", game.toFen());
+    }
+
+    @Test
+    void disambiguatesByFileAndRank() {
+        var fen = "8/8/1k6/8/4Q2Q/8/8/K6Q w - - 0 1";
+        assertInvalid("Ambiguous move: Qhe1", Game.fromFen(fen), "Qhe1");
+        assertInvalid("Ambiguous move: Q4e1", Game.fromFen(fen), "Q4e1");
+        var game = Game.fromFen(fen);
+        game.playSan("Qh4e1");
+        assertEquals("8/8/1k6/8/4Q3/8/8/K3Q2Q b - - 1 1", game.toFen());
+    }
+
+    @Test
+    void promotesWithCaptureAndCheck() {
+        var fen = "r3k3/1P6/8/8/8/8/8/4K3 w - - 0 1";
+        assertEquals(GameStatus.IN_CHECK, Game.fromFen(fen).playSan("bxa8=Q+"));
+        assertEquals(GameStatus.INSUFFICIENT_MATING, Game.fromFen(fen).playSan("bxa8=N"));
+        assertEquals("Q3k3/8/8/8/8/8/8/4K3 b - - 0 1", play(Game.fromFen(fen), "bxa8=Q+").toFen());
+        assertEquals("R3k3/8/8/8/8/8/8/4K3 b - - 0 1", play(Game.fromFen(fen), "bxa8R+").toFen());
+        assertEquals("N3k3/8/8/8/8/8/8/4K3 b - - 0 1", play(Game.fromFen(fen), "bxa8=N").toFen());
+        assertEquals("rQ2k3/8/8/8/8/8/8/4K3 b - - 0 1", play(Game.fromFen(fen), "b8=Q+").toFen());
+        assertInvalid("Illegal move: bxa8", Game.fromFen(fen), "bxa8");
+        assertEquals(GameStatus.WHITE_WINS,
+                Game.fromFen("3rk3/2PR4/4K3/8/8/8/8/8 w - - 0 1").playSan("cxd8=Q#"));
+    }
+
+    @Test
+    void castlesOnBothSides() {
+        var fen = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+        var game = play(Game.fromFen(fen), "O-O", "O-O-O");
+        assertEquals("2kr3r/8/8/8/8/8/8/R4RK1 w - - 2 2", game.toFen());
+        game = play(Game.fromFen(fen), "0-0-0+", "0-0");
+        assertEquals("r4rk1/8/8/8/8/8/8/2KR3R w - - 2 2", game.toFen());
+        assertInvalid("Illegal move: O-O", Game.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w Qkq - 0 1"),
+                "O-O");
+    }
+
+    @Test
+    void reportsIllegalMovesWithoutAnnotations() {
+        assertInvalid("Illegal move: Ke2", new Game(), "Ke2?!");
+        assertInvalid("Illegal move: Nc4", new Game(), "Nc4");
+        assertInvalid("Illegal move: i4", new Game(), "i4");
+        assertInvalid("Illegal move: e", new Game(), "e");
+    }
+
+    private static Game play(Game game, String... moves) {
+        for (var move : moves) {
+            game.playSan(move);
+        }
+        return game;
+    }
+
+    private static void assertInvalid(String message, Game game, String move) {
+        var fen = game.toFen();
+        var e = assertThrows(IllegalArgumentException.class, () -> game.playSan(move), move);
+        assertTrue(e.getMessage().startsWith(message), e.getMessage());
+        assertEquals(fen, game.toFen(), "Move was played");
+    }
+}
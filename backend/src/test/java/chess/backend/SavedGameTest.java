@@ -0,0 +1,50 @@
+package chess.backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class SavedGameTest {
+    @Test
+    void loadedGameCountsRepetitionsOfTheKnightShuffle() {
+        var status = playWithRoundTrips(new Game(),
+                "Nf3", "Nf6", "Ng1", "Ng8", "Nf3", "Nf6", "Ng1", "Ng8", "Nf3");
+        assertEquals(GameStatus.TOO_MANY_REPETITIONS, status);
+    }
+
+    @Test
+    void loadedGameAppliesTheFiftyMoveRule() {
+        var game = Game.fromFen("4k3/8/8/8/8/8/R7/4K3 w - - 97 80");
+        var status = playWithRoundTrips(game, "Ra3", "Kd7", "Ra4");
+        assertEquals(GameStatus.TOO_MANY_MOVES, status);
+    }
+
+    /**
+     * Plays the moves on the game, and at every ply also on a game loaded from a save of it, which
+     * must agree with the game on the status and the repetition count.
+     *
+     * @return the status after the last move
+     */
+    private static GameStatus playWithRoundTrips(Game game, String... moves) {
+        var status = GameStatus.ONGOING;
+        for (var move : moves) {
+            var loaded = Game.load(game.save());
+            assertSameState(game, loaded, move);
+            status = game.playSan(move);
+            assertEquals(status, loaded.playSan(move), move);
+            assertSameState(game, loaded, move);
+        }
+        assertSameState(game, Game.load(game.save()), "end");
+        return status;
+    }
+
+    private static void assertSameState(Game expected, Game actual, String move) {
+        assertEquals(expected.repetitionCount(), actual.repetitionCount(), move);
+        assertEquals(status(expected), status(actual), move);
+        assertEquals(expected.toFen(), actual.toFen(), move);
+    }
+
+    private static GameStatus status(Game game) {
+        return MoveGenerator.status(game.snapshot(), game.repetitionCount());
+    }
+}
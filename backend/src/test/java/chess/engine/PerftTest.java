@@ -0,0 +1,47 @@
+package chess.engine;
+
+import chess.backend.Position;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class PerftTest {
+    private static final String INITIAL =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE =
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    @Test
+    void countsTheInitialPosition() {
+        assertEquals(1, count(INITIAL, 0));
+        assertEquals(20, count(INITIAL, 1));
+        assertEquals(400, count(INITIAL, 2));
+        assertEquals(8902, count(INITIAL, 3));
+        assertEquals(197281, count(INITIAL, 4));
+    }
+
+    @Test
+    void countsCastlingPromotionsAndPinsOfKiwipete() {
+        assertEquals(48, count(KIWIPETE, 1));
+        assertEquals(2039, count(KIWIPETE, 2));
+        assertEquals(97862, count(KIWIPETE, 3));
+    }
+
+    @Test
+    void countsEnPassantAndChecksOfAnEndgame() {
+        assertEquals(14, count(POSITION_3, 1));
+        assertEquals(2812, count(POSITION_3, 3));
+        assertEquals(674624, count(POSITION_3, 5));
+    }
+
+    @Test
+    void rejectsNegativeDepth() {
+        assertThrows(IllegalArgumentException.class, () -> count(INITIAL, -1));
+    }
+
+    private static long count(String fen, int depth) {
+        return Perft.count(Position.fromFen(fen), depth);
+    }
+}
@@ -0,0 +1,55 @@
+package chess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class PerftWorkerTest {
+    private static final String INITIAL =
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    void answersPerftWithTheNodeCount() {
+        assertEquals("RESULT 7 8902", PerftWorker.handle("TASK 7 PERFT 3 " + INITIAL));
+    }
+
+    @Test
+    void answersAnalysisWithTheBestMove() {
+        var fields = PerftWorker.handle("TASK 3 ANALYSE 5000 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")
+                .split(" ");
+        assertEquals(6, fields.length);
+        assertEquals("RESULT", fields[0]);
+        assertEquals("3", fields[1]);
+        assertEquals("a1a8", fields[2]);
+        assertTrue(Integer.parseInt(fields[3]) > Search.MATE_SCORE / 2, "Mate score");
+    }
+
+    @Test
+    void answersAnalysisOfAFinishedGameWithoutAMove() {
+        var fields = PerftWorker.handle("TASK 4 ANALYSE 5000 R5k1/5ppp/8/8/8/8/8/6K1 b - - 1 1")
+                .split(" ");
+        assertEquals("RESULT", fields[0]);
+        assertEquals(PerftWorker.NO_MOVE, fields[2]);
+    }
+
+    @Test
+    void reportsInvalidTasksAsErrorsOfTheirId() {
+        assertError("9", PerftWorker.handle("TASK 9 PERFT 3 not a position"));
+        assertError("9", PerftWorker.handle("TASK 9 PERFT three " + INITIAL));
+        assertError("9", PerftWorker.handle("TASK 9 PERFT -1 " + INITIAL));
+        assertError("9", PerftWorker.handle("TASK 9 PERFT 4294967296 " + INITIAL));
+        assertError("9", PerftWorker.handle("TASK 9 DIVIDE 3 " + INITIAL));
+    }
+
+    @Test
+    void reportsMalformedLinesWithoutAnId() {
+        assertError("-1", PerftWorker.handle(""));
+        assertError("-1", PerftWorker.handle("TASK 9 PERFT 3"));
+        assertError("-1", PerftWorker.handle("RESULT 9 PERFT 3 " + INITIAL));
+    }
+
+    private static void assertError(String id, String answer) {
+        assertTrue(answer.startsWith("ERROR " + id + ' '), answer);
+    }
+}
@@ -0,0 +1,104 @@
+package chess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The expected log-likelihood ratios were computed separately from the normal approximation
+ * N (s1 - s0) (2 s - s0 - s1) / (2 var), where s is the score, var is the variance of the score of
+ * one game, and s0 and s1 are the scores expected from elo0 and elo1.
+ */
+final class SprtTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void llrMatchesTheNormalApproximation() {
+        assertEquals(1.7337133119290997, sprt(0, 10, 0.05, 0.05, 60, 20, 20).llr(), DELTA);
+        assertEquals(-1.8630827295705779, sprt(0, 10, 0.05, 0.05, 20, 20, 60).llr(), DELTA);
+        assertEquals(-6.899702274212136, sprt(0, 10, 0.05, 0.05, 3000, 4000, 3000).llr(), DELTA);
+        assertEquals(17.337133119290996, sprt(0, 10, 0.05, 0.05, 600, 200, 200).llr(), DELTA);
+    }
+
+    @Test
+    void scoreHalfWayBetweenTheHypothesesFavorsNeither() {
+        assertEquals(0, sprt(-5, 5, 0.05, 0.05, 30, 40, 30).llr(), DELTA);
+    }
+
+    @Test
+    void decisionIsTakenOnceTheLlrLeavesTheBounds() {
+        // Both bounds are ln(0.05 / 0.95) = -2.944 and ln(0.95 / 0.05) = 2.944
+        assertEquals(Sprt.Decision.CONTINUE, sprt(0, 10, 0.05, 0.05, 60, 20, 20).decision());
+        assertEquals(Sprt.Decision.ACCEPT_ELO1, sprt(0, 10, 0.05, 0.05, 600, 200, 200).decision());
+        assertEquals(Sprt.Decision.ACCEPT_ELO0,
+                sprt(0, 10, 0.05, 0.05, 3000, 4000, 3000).decision());
+    }
+
+    @Test
+    void lowerBoundComesFromBothErrorRates() {
+        // The LLR is -2.422, below ln(0.1 / 0.95) = -2.251, but above ln(0.05 / 0.95) = -2.944
+        assertEquals(Sprt.Decision.ACCEPT_ELO0, sprt(0, 10, 0.05, 0.1, 26, 26, 78).decision());
+        assertEquals(Sprt.Decision.CONTINUE, sprt(0, 10, 0.05, 0.05, 26, 26, 78).decision());
+    }
+
+    @Test
+    void eloIsPositiveWhenTheEngineUnderTestScoresMore() {
+        assertEquals(147.19071411783776, sprt(0, 10, 0.05, 0.05, 60, 20, 20).elo(), DELTA);
+        assertEquals(-147.19071411783776, sprt(0, 10, 0.05, 0.05, 20, 20, 60).elo(), DELTA);
+        assertEquals(0, sprt(0, 10, 0.05, 0.05, 30, 40, 30).elo(), DELTA);
+    }
+
+    @Test
+    void noGamesDecideNothing() {
+        var sprt = new Sprt(0, 10, 0.05, 0.05);
+        assertEquals(0, sprt.llr());
+        assertEquals(Sprt.Decision.CONTINUE, sprt.decision());
+    }
+
+    @Test
+    void resultsWithoutVarianceDecideNothing() {
+        var draws = sprt(0, 10, 0.05, 0.05, 0, 1000, 0);
+        assertEquals(0, draws.llr());
+        assertEquals(Sprt.Decision.CONTINUE, draws.decision());
+        assertEquals(0, draws.elo(), DELTA);
+    }
+
+    @Test
+    void winningEveryGameGivesInfiniteEloButNoDecision() {
+        var wins = sprt(0, 10, 0.05, 0.05, 1000, 0, 0);
+        assertEquals(0, wins.llr());
+        assertEquals(Sprt.Decision.CONTINUE, wins.decision());
+        assertEquals(Double.POSITIVE_INFINITY, wins.elo());
+        var losses = sprt(0, 10, 0.05, 0.05, 0, 0, 1000);
+        assertEquals(Double.NEGATIVE_INFINITY, losses.elo());
+        // One loss is enough to estimate the variance, and so to decide
+        wins.add(-1);
+        assertTrue(wins.llr() > 0);
+        assertEquals(Sprt.Decision.ACCEPT_ELO1, wins.decision());
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(10, 0, 0.05, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 0, 0.05, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, 0, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 10, 0.05, 1));
+    }
+
+    private static Sprt sprt(double elo0, double elo1, double alpha, double beta, int wins,
+            int draws, int losses) {
+        var sprt = new Sprt(elo0, elo1, alpha, beta);
+        for (int i = 0; i < wins; i++) {
+            sprt.add(1);
+        }
+        for (int i = 0; i < draws; i++) {
+            sprt.add(0);
+        }
+        for (int i = 0; i < losses; i++) {
+            sprt.add(-1);
+        }
+        return sprt;
+    }
+}
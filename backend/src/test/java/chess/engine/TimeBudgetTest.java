@@ -0,0 +1,71 @@
+package chess.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TimeBudgetTest {
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void targetIsAShareOfTheTimeLeftPlusMostOfTheIncrement() {
+        assertEquals(2 * SECOND, TimeBudget.of(60 * SECOND, 0).targetNanos());
+        assertEquals(2 * SECOND + 1500 * MILLISECOND,
+                TimeBudget.of(60 * SECOND, 2 * SECOND).targetNanos());
+    }
+
+    @Test
+    void hardDeadlineIsAFewTargetsAway() {
+        var clock = new FakeClock();
+        var budget = TimeBudget.of(60 * SECOND, 0, clock);
+        assertEquals(clock.now + 8 * SECOND, budget.hardDeadlineNanos());
+    }
+
+    @Test
+    void hardDeadlineLeavesHalfOfTheTimeAfterTheMoveOverhead() {
+        var clock = new FakeClock();
+        var budget = TimeBudget.of(100 * MILLISECOND, SECOND, clock);
+        // The increment alone would give a target of 750 ms, far more than is left
+        assertEquals(clock.now + 35 * MILLISECOND, budget.hardDeadlineNanos());
+        assertEquals(35 * MILLISECOND, budget.targetNanos());
+    }
+
+    @Test
+    void noTimeIsBudgetedWithinTheMoveOverhead() {
+        var clock = new FakeClock();
+        var budget = TimeBudget.of(20 * MILLISECOND, 0, clock);
+        assertEquals(clock.now, budget.hardDeadlineNanos());
+        assertEquals(0, budget.targetNanos());
+        assertTrue(budget.isIterationTooLate(0));
+    }
+
+    @Test
+    void iterationsStopEarlierOnceTheBestMoveIsStable() {
+        var clock = new FakeClock();
+        var budget = TimeBudget.of(3 * SECOND, 0, clock);
+        assertFalse(budget.isIterationTooLate(0));
+        assertFalse(budget.isIterationTooLate(3));
+        clock.now += 40 * MILLISECOND;
+        // A quarter of the 100 ms target has passed, but not half of it
+        assertFalse(budget.isIterationTooLate(0));
+        assertFalse(budget.isIterationTooLate(2));
+        assertTrue(budget.isIterationTooLate(3));
+        clock.now += 10 * MILLISECOND;
+        assertTrue(budget.isIterationTooLate(0));
+    }
+
+    private static final class FakeClock implements LongSupplier {
+        private long now = 1_000 * SECOND;
+
+        @Override
+        public long getAsLong() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package chess.engine;
+
+import chess.backend.Board;
+import chess.backend.GameStatus;
+import chess.backend.PieceCode;
+import chess.backend.Position;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TrainingRecordTest {
+    private static final int SQUARES = Board.BOARD_LENGTH * Board.BOARD_WIDTH;
+    private static final int MAX_PIECES = 32;
+    private static final String[] POSITIONS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq - 12 31",
+        "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+        "4k3/8/8/8/8/8/8/4K3 b - - 7 1",
+    };
+
+    @Test
+    void fieldsAreAtTheirOffsets() {
+        for (var fen : POSITIONS) {
+            var position = Position.fromFen(fen);
+            var buffer = ByteBuffer.allocate(TrainingRecord.BYTES);
+            TrainingRecord.write(buffer, position, -123);
+            assertEquals(TrainingRecord.BYTES, buffer.position(), fen);
+            assertPieces(position, buffer);
+            int flags = buffer.get(24) & 0xFF;
+            assertEquals(position.castlingRights(), flags & 0x7F, fen);
+            assertEquals(!position.isWhiteTurn(), (flags & 0x80) != 0, fen);
+            int enPassant = position.enPassantSquare();
+            assertEquals((enPassant < 0) ? 0 : enPassant % Board.BOARD_WIDTH + 1,
+                    buffer.get(25), fen);
+            assertEquals(position.halfMoveClock(), buffer.get(26) & 0xFF, fen);
+            assertEquals(0, buffer.get(27), fen);
+            assertEquals(-123, buffer.getShort(28), fen);
+            assertEquals(position.fullMoveNumber(), buffer.getShort(30) & 0xFFFF, fen);
+        }
+    }
+
+    @Test
+    void countersAndScoreAreClamped() {
+        var buffer = ByteBuffer.allocate(2 * TrainingRecord.BYTES);
+        var position = Position.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 300 70000");
+        TrainingRecord.write(buffer, position, Search.MATE_SCORE);
+        TrainingRecord.write(buffer, position, -Search.MATE_SCORE);
+        assertEquals(0xFF, buffer.get(26) & 0xFF);
+        assertEquals(0xFFFF, buffer.getShort(30) & 0xFFFF);
+        assertEquals(Short.MAX_VALUE, buffer.getShort(28));
+        assertEquals(Short.MIN_VALUE, buffer.getShort(TrainingRecord.BYTES + 28));
+    }
+
+    @Test
+    void scoreIsFromTheSideToMoveAndResultFromWhite() {
+        // Black is a queen up in both positions, but only to move in the first
+        var black = Position.fromFen("4k3/4q3/8/8/8/8/8/K7 b - - 0 1");
+        var white = Position.fromFen("4k3/4q3/8/8/8/8/8/K7 w - - 0 1");
+        var search = new Search(2, Long.MAX_VALUE);
+        var buffer = ByteBuffer.allocate(2 * TrainingRecord.BYTES);
+        TrainingRecord.write(buffer, black, search.search(black).score());
+        TrainingRecord.write(buffer, white, search.search(white).score());
+        // Black won, which is the same result in both records
+        int result = TrainingRecord.result(GameStatus.BLACK_WINS);
+        TrainingRecord.setResult(buffer, 0, result);
+        TrainingRecord.setResult(buffer, 1, result);
+        assertTrue(buffer.getShort(28) > 0, "Score of black to move");
+        assertTrue(buffer.getShort(TrainingRecord.BYTES + 28) < 0, "Score of white to move");
+        assertEquals(-1, buffer.get(27));
+        assertEquals(-1, buffer.get(TrainingRecord.BYTES + 27));
+    }
+
+    @Test
+    void resultIsFromThePointOfViewOfWhite() {
+        assertEquals(1, TrainingRecord.result(GameStatus.WHITE_WINS));
+        assertEquals(1, TrainingRecord.result(GameStatus.WHITE_WINS_ON_TIME));
+        assertEquals(-1, TrainingRecord.result(GameStatus.BLACK_WINS));
+        assertEquals(-1, TrainingRecord.result(GameStatus.BLACK_WINS_ON_TIME));
+        assertEquals(0, TrainingRecord.result(GameStatus.STALEMATE));
+        assertEquals(0, TrainingRecord.result(GameStatus.TOO_MANY_REPETITIONS));
+        assertEquals(0, TrainingRecord.result(GameStatus.ONGOING));
+    }
+
+    /**
+     * Decodes the occupancy and the piece codes, two per byte with the first in the low half.
+     */
+    private static void assertPieces(Position position, ByteBuffer buffer) {
+        long occupancy = buffer.getLong(0);
+        int index = 0;
+        for (int square = 0; square < SQUARES; square++) {
+            int expected = position.pieceAt(square);
+            assertEquals(expected != PieceCode.EMPTY, (occupancy & 1L << square) != 0);
+            if (expected == PieceCode.EMPTY) {
+                continue;
+            }
+            int packed = buffer.get(8 + index / 2) & 0xFF;
+            assertEquals(expected, (index % 2 == 0) ? packed & 0xF : packed >>> 4,
+                    "Square " + square);
+            index++;
+        }
+        for (; index < MAX_PIECES; index++) {
+            int packed = buffer.get(8 + index / 2) & 0xFF;
+            assertEquals(0, (index % 2 == 0) ? packed & 0xF : packed >>> 4);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package chess.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class LatencyHistogramTest {
+    private static final double[] PERCENTILES = {0, 1, 10, 25, 50, 75, 90, 99, 99.9, 100};
+
+    @Test
+    void bucketsFollowEachOtherWithoutGapsAndWithinASixteenth() {
+        for (int bucket = 0; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long lowest = LatencyHistogram.lowestValue(bucket);
+            long width = LatencyHistogram.lowestValue(bucket + 1) - lowest;
+            assertEquals(bucket, LatencyHistogram.bucket(lowest));
+            assertEquals(bucket, LatencyHistogram.bucket(lowest + width - 1));
+            assertTrue(width == 1 || width * LatencyHistogram.SUB_BUCKETS <= lowest,
+                    "Bucket " + bucket + " is too wide");
+        }
+        // The first values are counted exactly, and the powers of two then split into buckets
+        assertEquals(LatencyHistogram.SUB_BUCKETS - 1,
+                LatencyHistogram.bucket(LatencyHistogram.SUB_BUCKETS - 1));
+        assertEquals(2 * LatencyHistogram.SUB_BUCKETS,
+                LatencyHistogram.bucket(2 * LatencyHistogram.SUB_BUCKETS));
+        assertEquals(LatencyHistogram.BUCKETS - 1,
+                LatencyHistogram.bucket(LatencyHistogram.MAX_NANOS));
+        assertEquals(LatencyHistogram.MAX_NANOS + 1,
+                LatencyHistogram.lowestValue(LatencyHistogram.BUCKETS));
+    }
+
+    @Test
+    void powersOfTwoAndTheirNeighboursAreKnownToASixteenth() {
+        for (int bit = 0; bit < 41; bit++) {
+            for (long value : new long[] {(1L << bit) - 1, 1L << bit, (1L << bit) + 1}) {
+                var histogram = new LatencyHistogram();
+                histogram.record(value);
+                // A longer duration, so that the percentile is not capped by the maximum
+                histogram.record(LatencyHistogram.MAX_NANOS);
+                assertWithinASixteenth(value, histogram.percentile(50));
+            }
+        }
+    }
+
+    @Test
+    void percentilesOfAUniformDistribution() {
+        var values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        assertPercentiles(values);
+    }
+
+    @Test
+    void percentilesOfALongTailedDistribution() {
+        var random = new Random(44);
+        var values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Mostly microseconds, with a tail reaching seconds
+            values[i] = (long) (1000 * Math.exp(random.nextGaussian() * 3));
+        }
+        assertPercentiles(values);
+    }
+
+    @Test
+    void durationsOutsideTheRangeAreClamped() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(LatencyHistogram.MAX_NANOS + 1);
+        assertEquals(3, histogram.count());
+        assertEquals(LatencyHistogram.MAX_NANOS, histogram.max());
+        assertEquals(0, histogram.percentile(0));
+        assertEquals(LatencyHistogram.MAX_NANOS, histogram.percentile(50));
+        assertEquals(LatencyHistogram.MAX_NANOS, histogram.percentile(100));
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        var histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(100.1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentile(-1));
+    }
+
+    /**
+     * Records the values in a shuffled order, and compares each percentile with the value of its
+     * rank among the sorted values.
+     */
+    private static void assertPercentiles(long[] values) {
+        var histogram = new LatencyHistogram();
+        var random = new Random(values.length);
+        var shuffled = values.clone();
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long value = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = value;
+        }
+        for (long value : shuffled) {
+            histogram.record(value);
+        }
+        var sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(values.length, histogram.count());
+        assertEquals(sorted[sorted.length - 1], histogram.max());
+        for (double percentile : PERCENTILES) {
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * sorted.length));
+            assertWithinASixteenth(sorted[(int) rank - 1], histogram.percentile(percentile));
+        }
+    }
+
+    private static void assertWithinASixteenth(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "Expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,81 @@
+package chess.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.MBeanAttributeInfo;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class MetricsRegistryTest {
+    @Test
+    void scrapeListsCountersWithTheirRatesAndThenGauges() {
+        var metrics = new MetricsRegistry();
+        metrics.gauge("open_games", "Games being played", () -> 2.5);
+        metrics.counter("moves_total", "Moves played").add(3);
+        metrics.counter("games_total", "Games started").increment();
+        assertEquals(String.join("\n",
+                "# HELP games_total Games started",
+                "# TYPE games_total counter",
+                "games_total 1",
+                "# HELP games_per_second Games started per second",
+                "# TYPE games_per_second gauge",
+                "games_per_second 0.0",
+                "# HELP moves_total Moves played",
+                "# TYPE moves_total counter",
+                "moves_total 3",
+                "# HELP moves_per_second Moves played per second",
+                "# TYPE moves_per_second gauge",
+                "moves_per_second 0.0",
+                "# HELP open_games Games being played",
+                "# TYPE open_games gauge",
+                "open_games 2.5",
+                ""), metrics.scrape());
+    }
+
+    @Test
+    void attributesAreTheCountersRatesAndGauges() throws AttributeNotFoundException {
+        var metrics = new MetricsRegistry();
+        var moves = metrics.counter("moves_total", "Moves played");
+        moves.add(5);
+        // The same name gives the same counter, whatever the description
+        assertSame(moves, metrics.counter("moves_total", "Other description"));
+        var open = new double[] {1};
+        metrics.gauge("open_games", "Games being played", () -> open[0]);
+
+        assertEquals(5L, metrics.getAttribute("moves_total"));
+        assertEquals(0.0, metrics.getAttribute("moves_per_second"));
+        open[0] = 4;
+        assertEquals(4.0, metrics.getAttribute("open_games"));
+        // Gauges are read again each time, and a gauge of the same name replaces the old one
+        metrics.gauge("open_games", "Games being played", () -> 7);
+        assertEquals(7.0, metrics.getAttribute("open_games"));
+
+        for (var missing : List.of("moves", "moves_rate", "games_total", "games_per_second",
+                "open_games_per_second")) {
+            assertThrows(AttributeNotFoundException.class, () -> metrics.getAttribute(missing),
+                    missing);
+        }
+        var read = metrics.getAttributes(new String[] {"moves_total", "games_total",
+                "open_games"});
+        assertEquals(2, read.size());
+        var names = Arrays.stream(metrics.getMBeanInfo().getAttributes())
+                .map(MBeanAttributeInfo::getName).collect(Collectors.toList());
+        assertEquals(List.of("moves_total", "moves_per_second", "open_games"), names);
+    }
+
+    @Test
+    void counterNamesMustEndInTotal() {
+        var metrics = new MetricsRegistry();
+        for (var name : List.of("moves", "moves_per_second", "total", "moves_total_")) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> metrics.counter(name, "Moves played"), name);
+        }
+        assertEquals("", metrics.scrape());
+    }
+}
@@ -0,0 +1,223 @@
+package chess.server;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MoveJournalTest {
+    private static final long FLUSH_MILLIS = 3_600_000;
+    private static final int SEGMENT_RECORDS = 4;
+    private static final long SEGMENT_BYTES = SEGMENT_RECORDS * MoveJournal.RECORD_BYTES;
+    private static final int PLIES = 40;
+    // Two records are flushed per ply, so a segment is sealed every other ply, and every fourth
+    // segment is compacted
+    private static final int COMPACT_PLIES = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversLiveGamesAfterSegmentsAreRolledAndCompacted() throws IOException {
+        var expected = new HashMap<String, short[]>();
+        try (var journal = new MoveJournal(directory, FLUSH_MILLIS, SEGMENT_BYTES)) {
+            playGames(journal, expected);
+            // Every flush fills a segment, so there are far more segments than were kept
+            assertTrue(segments().size() < PLIES / 2, "Segments were not compacted");
+        }
+        assertRecovered(expected);
+    }
+
+    @Test
+    void ignoresRecordCutShortByACrash() throws IOException {
+        var expected = new HashMap<String, short[]>();
+        var crashed = new MoveJournal(directory, FLUSH_MILLIS, SEGMENT_BYTES);
+        try {
+            playGames(crashed, expected);
+            var newest = segments().get(segments().size() - 1);
+            Files.write(newest, new byte[MoveJournal.RECORD_BYTES / 2],
+                    StandardOpenOption.APPEND);
+            assertRecovered(expected);
+        } finally {
+            crashed.close();
+        }
+    }
+
+    @Test
+    void interruptedCompactionLosesNothing() throws IOException {
+        var expected = new HashMap<String, short[]>();
+        try (var journal = new MoveJournal(directory, FLUSH_MILLIS, SEGMENT_BYTES)) {
+            playGames(journal, expected);
+        }
+        // As if the compacted segment was written while the segments it replaces were kept
+        var segments = segments();
+        int copy = segments.size() + 1000;
+        for (var segment : segments) {
+            Files.copy(segment, directory.resolve(String.format("moves-%08d.journal", copy++)));
+        }
+        assertRecovered(expected);
+    }
+
+    @Test
+    void compactionRightAfterCreateKeepsTheGame() throws IOException {
+        var expected = new HashMap<String, short[]>();
+        try (var journal = new MoveJournal(directory, FLUSH_MILLIS, SEGMENT_BYTES)) {
+            // Each flush writes one full segment, and the fourth one is compacted
+            var ended = id(1);
+            journal.create(ended);
+            for (int ply = 0; ply < 3 * SEGMENT_RECORDS - 1; ply++) {
+                journal.move(ended, ply, move(ply));
+                if (ply % SEGMENT_RECORDS == SEGMENT_RECORDS - 2) {
+                    journal.flush();
+                }
+            }
+            journal.end(ended);
+            for (int i = 0; i < SEGMENT_RECORDS - 1; i++) {
+                journal.create(id(i + 2));
+                expected.put(id(i + 2), new short[0]);
+            }
+            journal.flush();
+            // The compacted segment, and the one which was started for the next records
+            assertEquals(2, segments().size(), "Segments were not compacted");
+            journal.move(id(2), 0, move(0));
+            expected.put(id(2), new short[] {move(0)});
+        }
+        assertRecovered(expected);
+    }
+
+    @Test
+    void compactionInterruptedBeforeDeletingTheOldSegmentsRevivesNoGame(@TempDir Path crashed)
+            throws IOException {
+        // Ending the game at each of these plies puts its end in each segment of a compaction
+        for (int endPly = 1; endPly <= 2 * COMPACT_PLIES; endPly++) {
+            var journalDirectory = directory.resolve("journal-" + endPly);
+            var crashedDirectory = crashed.resolve("journal-" + endPly);
+            playAndInterruptCompactions(journalDirectory, crashedDirectory, endPly);
+        }
+    }
+
+    /**
+     * Plays one game which ends at the given ply, and one which goes on, checking after each flush
+     * what would be recovered if a compaction made by the flush had deleted no segment.
+     */
+    private static void playAndInterruptCompactions(Path journalDirectory, Path crashed,
+            int endPly) throws IOException {
+        Files.createDirectories(crashed);
+        var ended = id(1);
+        var live = id(2);
+        var moves = new short[PLIES];
+        int interrupted = 0;
+        try (var journal = new MoveJournal(journalDirectory, FLUSH_MILLIS, SEGMENT_BYTES)) {
+            journal.create(ended);
+            journal.create(live);
+            for (int ply = 0; ply < PLIES; ply++) {
+                if (ply < endPly) {
+                    journal.move(ended, ply, move(ply));
+                } else if (ply == endPly) {
+                    journal.end(ended);
+                }
+                moves[ply] = move(ply + 7);
+                journal.move(live, ply, moves[ply]);
+                var before = new HashMap<Path, byte[]>();
+                for (var segment : segments(journalDirectory)) {
+                    before.put(segment.getFileName(), Files.readAllBytes(segment));
+                }
+                journal.flush();
+                // As if the compacted segment was renamed into place, but the host crashed before
+                // the segments it replaces were deleted
+                for (var segment : segments(journalDirectory)) {
+                    Files.copy(segment, crashed.resolve(segment.getFileName()));
+                }
+                for (var entry : before.entrySet()) {
+                    var segment = crashed.resolve(entry.getKey());
+                    if (Files.notExists(segment)) {
+                        Files.write(segment, entry.getValue());
+                        interrupted++;
+                    }
+                }
+                try (var recovered = new MoveJournal(crashed, FLUSH_MILLIS, SEGMENT_BYTES)) {
+                    var games = recovered.recovered();
+                    var message = "Game ended at ply " + endPly + ", crashed at ply " + ply;
+                    assertEquals(ply < endPly, games.containsKey(ended), message);
+                    assertArrayEquals(Arrays.copyOf(moves, ply + 1), games.get(live), message);
+                }
+                for (var file : segments(crashed)) {
+                    Files.delete(file);
+                }
+            }
+        }
+        assertTrue(interrupted > 0, "Segments were not compacted");
+    }
+
+    /**
+     * Plays one game which ends half way, and two which are still going on, flushing after every
+     * move of the first game.
+     */
+    private static void playGames(MoveJournal journal, Map<String, short[]> expected)
+            throws IOException {
+        var ended = id(1);
+        var live = List.of(id(2), id(3));
+        journal.create(ended);
+        for (var id : live) {
+            journal.create(id);
+            expected.put(id, new short[PLIES]);
+        }
+        for (int ply = 0; ply < PLIES; ply++) {
+            if (ply < PLIES / 2) {
+                journal.move(ended, ply, move(ply));
+            } else if (ply == PLIES / 2) {
+                journal.end(ended);
+            }
+            for (var id : live) {
+                short move = move(ply + id.hashCode());
+                journal.move(id, ply, move);
+                expected.get(id)[ply] = move;
+            }
+            journal.flush();
+        }
+    }
+
+    private void assertRecovered(Map<String, short[]> expected) throws IOException {
+        try (var journal = new MoveJournal(directory, FLUSH_MILLIS, SEGMENT_BYTES)) {
+            var recovered = journal.recovered();
+            assertEquals(expected.keySet(), recovered.keySet());
+            for (var entry : expected.entrySet()) {
+                assertArrayEquals(entry.getValue(), recovered.get(entry.getKey()), entry.getKey());
+            }
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        return segments(directory);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".journal"))
+                    .sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static String id(long number) {
+        var bytes = ByteBuffer.allocate(2 * Long.BYTES).putLong(number).putLong(-number).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static short move(int seed) {
+        return (short) (seed * 31 & 0x7FFF);
+    }
+}
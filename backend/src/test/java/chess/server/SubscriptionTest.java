@@ -0,0 +1,105 @@
+package chess.server;
+
+import chess.backend.Game;
+import chess.backend.GameStatus;
+import chess.backend.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SubscriptionTest {
+    private static final int SQUARES = 64;
+    // Captures, castling by both sides, and a knight which returns to a square which it left
+    private static final List<String> MOVES = List.of("e4", "d5", "exd5", "Nf6", "Nf3", "Nxd5",
+            "Bc4", "e6", "O-O", "Be7", "Ng5", "Nf6", "Nf3", "O-O");
+
+    @Test
+    void overflowingUpdatesAreMergedIntoTheLastQueuedOne() throws InterruptedException {
+        var game = new Game();
+        var first = game.snapshot();
+        var subscription = new Subscription(new Spectators(), 2,
+                Delta.full(first, 0, GameStatus.ONGOING, null));
+        var deltas = new ArrayList<Delta>();
+        var before = first;
+        for (var move : MOVES) {
+            var status = game.playSan(move);
+            var after = game.snapshot();
+            deltas.add(Delta.between(before, after, game.plyCount(), status, null));
+            before = after;
+        }
+        // Stale updates from a fan-out which ran late, and a repeated one without news
+        var stale = new Delta[] {deltas.get(2), deltas.get(0)};
+        subscription.offer(deltas.subList(0, 5).toArray(new Delta[0]));
+        subscription.offer(stale);
+        subscription.offer(new Delta[] {deltas.get(4)});
+        subscription.offer(deltas.subList(5, deltas.size()).toArray(new Delta[0]));
+        var closing = Delta.between(before, before, game.plyCount(), GameStatus.ONGOING, null)
+                .closing();
+        subscription.offer(new Delta[] {closing});
+        // Nothing follows the closing update
+        subscription.offer(new Delta[] {Delta.full(first, game.plyCount() + 1,
+                GameStatus.STALEMATE, null)});
+
+        assertTrue(subscription.isClosed());
+        // Every move after the first one, and the closing update, went into the second update
+        assertEquals(MOVES.size(), subscription.coalesced());
+        var board = new int[SQUARES];
+        apply(board, subscription.poll());
+        assertArrayEquals(pieces(first), board);
+        var merged = subscription.poll();
+        assertNull(subscription.poll());
+        assertNull(subscription.poll(1, TimeUnit.MINUTES));
+
+        long squares = 0;
+        for (var delta : deltas) {
+            squares |= delta.squares();
+        }
+        assertEquals(squares, merged.squares());
+        assertEquals(game.plyCount(), merged.ply());
+        assertEquals(GameStatus.ONGOING, merged.status());
+        assertTrue(merged.isClosed());
+        assertEquals(deltas.get(0).publishedNanos(), merged.publishedNanos());
+        apply(board, merged);
+        assertArrayEquals(pieces(game.snapshot()), board);
+    }
+
+    @Test
+    void updateWithoutAMoveIsOnlyQueuedIfItEndsTheGame() {
+        var game = new Game();
+        var position = game.snapshot();
+        var subscription = new Subscription(new Spectators(), 2,
+                Delta.full(position, 0, GameStatus.ONGOING, null));
+        subscription.offer(new Delta[] {Delta.between(position, position, 0, GameStatus.ONGOING,
+                null)});
+        subscription.offer(new Delta[] {Delta.between(position, position, 0,
+                GameStatus.BLACK_WINS_ON_TIME, null)});
+        subscription.poll();
+        var ended = subscription.poll();
+        assertEquals(GameStatus.BLACK_WINS_ON_TIME, ended.status());
+        assertEquals(0, ended.squares());
+        assertNull(subscription.poll());
+        assertEquals(0, subscription.coalesced());
+    }
+
+    private static void apply(int[] board, Delta delta) {
+        for (long remaining = delta.squares(); remaining != 0; remaining &= remaining - 1) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            board[square] = delta.pieceAt(square);
+        }
+    }
+
+    private static int[] pieces(Position position) {
+        var pieces = new int[SQUARES];
+        for (int i = 0; i < SQUARES; i++) {
+            pieces[i] = position.pieceAt(i);
+        }
+        return pieces;
+    }
+}
@@ -0,0 +1,85 @@
+package chess;
+
+import chess.backend.BenchmarkPositions;
+import chess.backend.Board;
+import chess.backend.Game;
+import chess.backend.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times how the frontend draws the {@link BenchmarkPositions}, off screen and without a window,
+ * at the scale of a small and of a large board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    private static final BoardRenderer.RepaintListener IGNORED = (x, y, width, height) -> {
+    };
+
+    @Param({BenchmarkPositions.INITIAL, BenchmarkPositions.OPENING, BenchmarkPositions.KIWIPETE,
+            BenchmarkPositions.EN_PASSANT, BenchmarkPositions.CHECK, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    @Param({"4", "16"})
+    public int unit;
+
+    private final Color[][] tiles = new Color[Board.BOARD_LENGTH][Board.BOARD_WIDTH];
+    private final BoardRenderer renderer = new BoardRenderer();
+    private Game before;
+    private Game after;
+    private boolean isAfter;
+
+    /**
+     * Takes the position after the first legal move and the first legal reply, so that drawing
+     * it and the position in turn redraws the squares which two plies change.
+     */
+    @Setup
+    public void setUp() {
+        before = BenchmarkPositions.game(position);
+        after = BenchmarkPositions.playFirstMoves(before.copyPosition(), 2);
+        var darkBrown = new Color(160, 80, 0);
+        var lightBrown = new Color(200, 100, 0);
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                tiles[i][j] = before.isLightTile(Point.instance(j, i)) ? lightBrown : darkBrown;
+            }
+        }
+    }
+
+    /**
+     * Draws the position from nothing, which includes making the image of every square.
+     */
+    @Benchmark
+    public Object firstDraw() {
+        var first = new BoardRenderer();
+        first.show(unit, tiles, before, IGNORED);
+        return first.image();
+    }
+
+    /**
+     * Draws the squares changed by two plies, as the frontend does after every move.
+     */
+    @Benchmark
+    public Object moveDraw() {
+        isAfter = !isAfter;
+        renderer.show(unit, tiles, isAfter ? after : before, IGNORED);
+        return renderer.image();
+    }
+}
@@ -0,0 +1,149 @@
+package chess.backend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the parts of the backend which every move goes through, on each of the
+ * {@link BenchmarkPositions}. The benchmarks live in the backend package so that they can time
+ * the package-private parts on their own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackendBenchmark {
+    @Param({BenchmarkPositions.INITIAL, BenchmarkPositions.OPENING, BenchmarkPositions.KIWIPETE,
+            BenchmarkPositions.EN_PASSANT, BenchmarkPositions.CHECK, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private String fen;
+    private Game game;
+    private Board board;
+    private King king;
+    private Point kingLocation;
+    private final List<Point> squares = new ArrayList<>();
+    private final List<Piece> pieces = new ArrayList<>();
+    private Ply ply;
+    private Ply equalPly;
+    private Position snapshot;
+    private final short[] moves = new short[Game.MAX_MOVES];
+
+    @Setup
+    public void setUp() {
+        fen = BenchmarkPositions.fen(position);
+        game = Game.fromFen(fen);
+        board = game.board();
+        king = board.getAlliedKing();
+        kingLocation = board.locateAlliedKing();
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var point = Point.instance(j, i);
+                var piece = game.getAlliedPieceAt(point);
+                if (piece != null) {
+                    squares.add(point);
+                    pieces.add(piece);
+                }
+            }
+        }
+        ply = new Ply(board, game.enPassant());
+        equalPly = new Ply(board, game.enPassant());
+        snapshot = game.snapshot();
+    }
+
+    @Benchmark
+    public boolean isKingInCheck() {
+        return king.isKingInCheck(kingLocation);
+    }
+
+    /**
+     * The moves of every piece of the side to move, as the frontend asks for them.
+     */
+    @Benchmark
+    public void availableMoves(Blackhole blackhole) {
+        for (int i = 0; i < pieces.size(); i++) {
+            blackhole.consume(game.availableMoves(pieces.get(i), squares.get(i)));
+        }
+    }
+
+    /**
+     * Every legal move of the position, from the piece objects of the game.
+     */
+    @Benchmark
+    public int legalMoves() {
+        return game.legalMoves(moves);
+    }
+
+    /**
+     * Every legal move of the position, from the bitboards of {@link MoveGenerator}.
+     */
+    @Benchmark
+    public int moveGeneratorLegalMoves() {
+        return MoveGenerator.legalMoves(snapshot, moves);
+    }
+
+    /**
+     * Copies the board and hashes it, as the repetition history does after every quiet move.
+     */
+    @Benchmark
+    public Ply plyConstruction() {
+        return new Ply(board, game.enPassant());
+    }
+
+    /**
+     * Compares two equal plies, as a repetition history lookup does once the hashes match.
+     */
+    @Benchmark
+    public boolean plyEquals() {
+        return ply.equals(equalPly);
+    }
+
+    /**
+     * Flips the board, which then alternates between the point of view of each side.
+     */
+    @Benchmark
+    public Board boardFlip() {
+        board.flip();
+        return board;
+    }
+
+    /**
+     * Evaluates the status of the position without a move cache, as done after every move.
+     */
+    @Benchmark
+    public GameStatus gameOverState() {
+        return game.gameOverState(0, true);
+    }
+
+    /**
+     * Parses the position, as done for every line of a bulk position file.
+     */
+    @Benchmark
+    public Position fromFen() {
+        return Position.fromFen(fen);
+    }
+
+    /**
+     * Writes the position, as done for every snapshot sent to the frontend.
+     */
+    @Benchmark
+    public String toFen() {
+        return snapshot.toFen();
+    }
+}
@@ -0,0 +1,60 @@
+package chess.backend;
+
+import java.util.Map;
+
+/**
+ * The fixed positions which the benchmarks are run on, by name, so that results can be compared
+ * across releases. They are picked to exercise castling, en passant, checks, crowded middlegames
+ * and sparse endgames.
+ */
+public final class BenchmarkPositions {
+    public static final String INITIAL = "initial";
+    public static final String OPENING = "opening";
+    public static final String KIWIPETE = "kiwipete";
+    public static final String EN_PASSANT = "enPassant";
+    public static final String CHECK = "check";
+    public static final String ENDGAME = "endgame";
+
+    private static final Map<String, String> FENS = Map.of(
+            INITIAL, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            OPENING, "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+            KIWIPETE, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            EN_PASSANT, "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            CHECK, "rnbqkbnr/ppp2ppp/8/1B1pp3/4P3/8/PPPP1PPP/RNBQK1NR b KQkq - 1 3",
+            ENDGAME, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no position with the name
+     */
+    public static Game game(String name) {
+        return Game.fromFen(fen(name));
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no position with the name
+     */
+    public static String fen(String name) {
+        var fen = FENS.get(name);
+        if (fen == null) {
+            throw new IllegalArgumentException("Unknown benchmark position: " + name);
+        }
+        return fen;
+    }
+
+    /**
+     * Plays the first legal move in the order of {@link Game#legalMoves} the given amount of
+     * times, or until there is none.
+     *
+     * @return the same game
+     */
+    public static Game playFirstMoves(Game game, int plies) {
+        var moves = new short[Game.MAX_MOVES];
+        for (int i = 0; i < plies && game.legalMoves(moves) > 0; i++) {
+            game.play(moves[0]);
+        }
+        return game;
+    }
+}
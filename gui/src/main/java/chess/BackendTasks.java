@@ -0,0 +1,97 @@
+package chess;
+
+import javax.swing.SwingUtilities;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs backend work for the frontend on a worker thread, so that the event dispatch thread never
+ * waits for it. Tasks run one at a time in the order they were submitted, so the game may be
+ * confined to the worker thread. The result of a task, or its failure, is handed back on the event
+ * dispatch thread, unless the task was cancelled or ran past its deadline first.
+ */
+final class BackendTasks {
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(
+            runnable -> daemon(runnable, "backend"));
+    private final ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor(
+            runnable -> daemon(runnable, "backend-deadlines"));
+
+    private static Thread daemon(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * A submitted task, whose callbacks run at most once, and only one of them.
+     */
+    static final class Task {
+        private final AtomicBoolean isFinished = new AtomicBoolean();
+        private volatile Future<?> future;
+
+        /**
+         * Stops the task from handing back its result, and interrupts it if it is running.
+         */
+        void cancel() {
+            if (isFinished.compareAndSet(false, true)) {
+                future.cancel(true);
+            }
+        }
+
+        private boolean finish() {
+            return isFinished.compareAndSet(false, true);
+        }
+    }
+
+    /**
+     * @param deadlineMillis how long after being submitted the task is cancelled and fails with a
+     * {@link TimeoutException}, including the time spent waiting for earlier tasks, or zero if it
+     * may take as long as it needs
+     * @param onResult called on the event dispatch thread with the result of the work
+     * @param onFailure called on the event dispatch thread if the work throws or times out
+     */
+    <T> Task submit(Callable<T> work, long deadlineMillis, Consumer<T> onResult,
+                    Consumer<Exception> onFailure) {
+        var task = new Task();
+        task.future = worker.submit(() -> {
+            try {
+                var result = work.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (task.finish()) {
+                        onResult.accept(result);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (task.finish()) {
+                        onFailure.accept(e);
+                    }
+                });
+            }
+        });
+        if (deadlineMillis > 0) {
+            deadlines.schedule(() -> {
+                if (task.finish()) {
+                    task.future.cancel(true);
+                    SwingUtilities.invokeLater(() -> onFailure.accept(
+                            new TimeoutException("Task ran past " + deadlineMillis + " ms")));
+                }
+            }, deadlineMillis, TimeUnit.MILLISECONDS);
+        }
+        return task;
+    }
+
+    void shutdown() {
+        worker.shutdownNow();
+        deadlines.shutdownNow();
+    }
+}
@@ -0,0 +1,134 @@
+package chess;
+
+import chess.backend.Board;
+import chess.backend.EncodedMove;
+import chess.backend.Game;
+import chess.backend.Point;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Draws positions onto images, scaled up by a whole amount of pixels per board pixel. Each side has
+ * its own canvas, since the board is shown from the point of view of the side to move, so that a
+ * move only redraws the squares it changed since the same side last moved. Squares are drawn from
+ * opaque images of each piece on each tile color, which are made once per scale.
+ */
+final class BoardRenderer {
+    static final int PIXELS_PER_SQUARE = 8;
+    static final int BOARD_PIXELS_LENGTH = Board.BOARD_LENGTH * PIXELS_PER_SQUARE;
+    static final int BOARD_PIXELS_WIDTH = Board.BOARD_WIDTH * PIXELS_PER_SQUARE;
+
+    private final Map<Integer, BufferedImage> squares = new HashMap<>();
+    private final BoardCanvas[] canvases = new BoardCanvas[2];
+    private BoardCanvas shown;
+    private int unit;
+
+    /**
+     * Called with the area of each square which was redrawn on the canvas being shown.
+     */
+    interface RepaintListener {
+        void repaint(int x, int y, int width, int height);
+    }
+
+    /**
+     * The board as last drawn from the point of view of one side, and what was drawn on each
+     * square.
+     */
+    private static final class BoardCanvas {
+        private final BufferedImage image;
+        private final Color[][] tiles = new Color[Board.BOARD_LENGTH][Board.BOARD_WIDTH];
+        private final int[][] pieces = new int[Board.BOARD_LENGTH][Board.BOARD_WIDTH];
+
+        BoardCanvas(int width, int height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    /**
+     * Draws the tiles and the pieces of the position onto the canvas of the side to move, but only
+     * on the squares which changed since that canvas was last drawn.
+     *
+     * @param newUnit the amount of pixels per board pixel, which clears every canvas if changed
+     * @param listener told about the redrawn squares, unless the other canvas was shown before
+     * @return whether the shown canvas changed, in which case it must be repainted as a whole
+     */
+    boolean show(int newUnit, Color[][] tiles, Game position, RepaintListener listener) {
+        if (newUnit < 1) {
+            throw new IllegalArgumentException("Unit must be at least one pixel");
+        }
+        if (newUnit != unit) {
+            unit = newUnit;
+            squares.clear();
+            shown = null;
+            for (int i = 0; i < canvases.length; i++) {
+                canvases[i] = new BoardCanvas(unit * BOARD_PIXELS_WIDTH,
+                        unit * BOARD_PIXELS_LENGTH);
+            }
+        }
+        var canvas = canvases[position.isWhiteTurn() ? 0 : 1];
+        int size = unit * PIXELS_PER_SQUARE;
+        var g2d = canvas.image.createGraphics();
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            int rank = position.isWhiteTurn() ? Board.BOARD_LENGTH - 1 - i : i;
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                int code = position.pieceAt(EncodedMove.square(j, rank));
+                var tile = tiles[i][j];
+                if (tile.equals(canvas.tiles[i][j]) && code == canvas.pieces[i][j]) {
+                    continue;
+                }
+                int key = code << 24 | (tile.getRGB() & 0xFFFFFF);
+                var image = squares.get(key);
+                if (image == null) {
+                    image = square(tile, position.getPieceImage(Point.instance(j, i)));
+                    squares.put(key, image);
+                }
+                g2d.drawImage(image, j * size, i * size, null);
+                canvas.tiles[i][j] = tile;
+                canvas.pieces[i][j] = code;
+                if (canvas == shown) {
+                    listener.repaint(j * size, i * size, size, size);
+                }
+            }
+        }
+        g2d.dispose();
+        if (canvas == shown) {
+            return false;
+        }
+        shown = canvas;
+        return true;
+    }
+
+    /**
+     * @return the canvas last drawn, or null if nothing was drawn yet
+     */
+    BufferedImage image() {
+        return (shown == null) ? null : shown.image;
+    }
+
+    /**
+     * Draws a square of the given color with the image of a piece scaled up on it, leaving a
+     * border of one unit around the piece. The square is opaque, so it is drawn by copying.
+     *
+     * @param image the image of the piece, or null for an empty square
+     */
+    private BufferedImage square(Color tile, Color[][] image) {
+        int size = unit * PIXELS_PER_SQUARE;
+        var square = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        var g2d = square.createGraphics();
+        g2d.setColor(tile);
+        g2d.fillRect(0, 0, size, size);
+        for (int i = 0; image != null && i < image.length; i++) {
+            for (int j = 0; j < image[i].length; j++) {
+                if (image[i][j] != null) {
+                    g2d.setColor(image[i][j]);
+                    g2d.fillRect((j + 1) * unit, (i + 1) * unit, unit, unit);
+                }
+            }
+        }
+        g2d.dispose();
+        return square;
+    }
+}
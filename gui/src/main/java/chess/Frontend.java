@@ -0,0 +1,560 @@
+package chess;
+
+import chess.archive.PositionIndex;
+import chess.backend.Board;
+import chess.backend.EncodedMove;
+import chess.backend.Game;
+import chess.backend.GameClock;
+import chess.backend.GameStatus;
+import chess.backend.LegalMoveTable;
+import chess.backend.Move;
+import chess.backend.Piece;
+import chess.backend.Point;
+import chess.backend.PromotionPiece;
+import chess.metrics.LatencyHistogram;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of all frontend components, including the main chess board, and user text displays.
+ */
+final class Frontend {
+    private static final ResourceBundle RESOURCE =
+            ResourceBundle.getBundle("chess.i18n", Locale.getDefault());
+    private static final String GAME_TITLE = RESOURCE.getString("gameTitle");
+    private static final int EXPLORER_MOVES = 10;
+
+    private static final long SCRUB_DEADLINE_MILLIS = 1_000;
+    private static final int CLOCK_REFRESH_MILLIS = 100;
+    private static final long TENTHS_SHOWN_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 180);
+    private static final Map<Stage, LatencyHistogram> LATENCIES = new EnumMap<>(Stage.class);
+
+    static {
+        for (var stage : Stage.values()) {
+            LATENCIES.put(stage, new LatencyHistogram());
+        }
+    }
+
+    private final Color[][] tiles = new Color[Board.BOARD_LENGTH][Board.BOARD_WIDTH];
+    private final JFrame frame = new JFrame(GAME_TITLE);
+    private final GridPane grid = new GridPane();
+    private final PositionIndex explorer;
+    private final GameClock clock;
+    private final JLabel clockLabel = new JLabel("", SwingConstants.CENTER);
+    private final Timer clockTimer = new Timer(CLOCK_REFRESH_MILLIS, e -> refreshClock());
+    private final BackendTasks tasks = new BackendTasks();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "legal-moves");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The game is only played by the backend tasks. The event dispatch thread draws and generates
+     * moves from copies of its positions instead, so that it never waits for the backend.
+     */
+    private final Game game = new Game();
+    private Game live = new Game();
+    private Game viewed = live;
+    private int livePly;
+    private int viewedPly;
+    private boolean isMoving;
+    private BackendTasks.Task scrubbing;
+    private ClickState clickState = ClickState.firstClickInstance();
+    private CompletableFuture<LegalMoveTable> legalMoves;
+    private long clickNanos;
+    private boolean isOverlayShown;
+    private boolean isFlagChecked;
+    private static boolean initDone;
+
+    /**
+     * The steps of handling the user's input which are timed, so that it can be told which one
+     * makes the game feel slow. A click is timed until the board has been painted, and a move
+     * both in the backend, where the status of the game is found too, and until it is shown.
+     */
+    private enum Stage {
+        CLICK_TO_PAINT,
+        LOCK_ONTO_PIECE,
+        AVAILABLE_MOVES,
+        MOVE,
+        MOVE_TO_SHOWN,
+        REFRESH,
+        PAINT
+    }
+
+    /**
+     * Takes an optional {@link PositionIndex} file, which is used as an opening explorer, and an
+     * optional time control written as seconds+increment, such as 300+2, which puts both sides on
+     * a clock.
+     */
+    public static void main(String[] args) throws IOException {
+        var text = RESOURCE.getString("startupInformation") + "\n"
+                + RESOURCE.getString("historyInformation") + "\n"
+                + RESOURCE.getString("latencyInformation");
+        String[] options = {RESOURCE.getString("acknowledge")};
+        PositionIndex explorer = null;
+        GameClock clock = null;
+        for (var arg : args) {
+            if (arg.matches("[0-9.]+\\+[0-9.]+")) {
+                clock = GameClock.parse(arg);
+            } else {
+                explorer = new PositionIndex(Path.of(arg));
+                text += "\n" + RESOURCE.getString("explorerInformation");
+            }
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (var line : latencyReport()) {
+                System.err.println(line);
+            }
+        }));
+        var frontend = new Frontend(explorer, clock);
+        displayDialogText(text, options);
+        frontend.startClock();
+        initDone = true;
+    }
+
+    private Frontend(PositionIndex explorer, GameClock clock) {
+        this.explorer = explorer;
+        this.clock = clock;
+        initializeGUI();
+        refreshPixels();
+        legalMoves = LegalMoveTable.compute(live, background);
+    }
+
+    private void initializeGUI() {
+        frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        frame.setResizable(false);
+        frame.setLayout(new BorderLayout());
+        frame.add(grid);
+        if (clock != null) {
+            frame.add(clockLabel, BorderLayout.SOUTH);
+            refreshClock();
+        }
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Starts the clock of the side to move once the user has read the instructions. The clock is
+     * handed to the backend, which presses it after each move.
+     */
+    private void startClock() {
+        if (clock == null) {
+            return;
+        }
+        tasks.submit(() -> {
+            game.useClock(clock);
+            return null;
+        }, 0, ignored -> clockTimer.start(), error -> {
+            throw new IllegalStateException("Could not start the clock", error);
+        });
+    }
+
+    /**
+     * Shows the time left to both sides, and asks the backend whether the side to move lost on
+     * time once its clock shows no time left, unless a move is being played, which finds it too.
+     */
+    private void refreshClock() {
+        clockLabel.setText(MessageFormat.format(RESOURCE.getString("clock"),
+                clockText(clock.remainingNanos(true)), clockText(clock.remainingNanos(false))));
+        if (isFlagChecked || isMoving || clock.remainingNanos(live.isWhiteTurn()) > 0) {
+            return;
+        }
+        isFlagChecked = true;
+        tasks.submit(game::timeStatus, 0, status -> {
+            isFlagChecked = false;
+            showStatus(status);
+        }, error -> {
+            throw new IllegalStateException("Could not check the clock", error);
+        });
+    }
+
+    /**
+     * @return the time as minutes and seconds, with tenths of a second when little time is left
+     */
+    private static String clockText(long nanos) {
+        long tenths = nanos / TimeUnit.MILLISECONDS.toNanos(100);
+        long seconds = tenths / 10;
+        if (nanos < TENTHS_SHOWN_NANOS) {
+            return String.format("%d:%02d.%d", seconds / 60, seconds % 60, tenths % 10);
+        }
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+
+    private void refreshPixels() {
+        long start = System.nanoTime();
+        drawBackgroundGUI();
+        drawAllPiecesGUI();
+        LATENCIES.get(Stage.REFRESH).recordSince(start);
+    }
+
+    private static List<String> latencyReport() {
+        var lines = new ArrayList<String>();
+        lines.add(RESOURCE.getString("latencyHeader"));
+        LATENCIES.forEach((stage, histogram) -> lines.add(stage + ": " + histogram));
+        return lines;
+    }
+
+    private void drawBackgroundGUI() {
+        var darkBrown = new Color(160, 80, 0);
+        var lightBrown = new Color(200, 100, 0);
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                var usedColor = viewed.isLightTile(Point.instance(j, i)) ? lightBrown : darkBrown;
+                drawTileBackgroundGUI(usedColor, j, i);
+            }
+        }
+    }
+
+    private void drawTileBackgroundGUI(Color color, int x, int y) {
+        tiles[y][x] = color;
+    }
+
+    private void drawAllPiecesGUI() {
+        grid.show(tiles, viewed);
+    }
+
+    private static int displayDialogText(String text, String[] options) {
+        return JOptionPane.showOptionDialog(null, text, GAME_TITLE, JOptionPane.DEFAULT_OPTION,
+                JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+    }
+
+    private void handleClick(int x, int y) {
+        if (isMoving) {
+            clickNanos = 0;
+            return;
+        }
+        if (viewed != live) {
+            showPly(livePly);
+            return;
+        }
+        if (clickState.isFirstClick()) {
+            lockOntoPiece(Point.instance(x, y));
+            return;
+        }
+        var from = clickState.getFrom();
+        var to = Point.instance(x, y);
+        var move = clickState.getMove(to);
+        clickState = ClickState.firstClickInstance();
+        if (move == Move.NONE) {
+            refreshPixels();
+            return;
+        }
+        var promotion = (move == Move.PAWN_PROMOTION) ? pawnPromotion() : null;
+        isMoving = true;
+        long submitted = System.nanoTime();
+        tasks.submit(() -> play(from, to, move, promotion), 0, played -> {
+            LATENCIES.get(Stage.MOVE_TO_SHOWN).recordSince(submitted);
+            showMove(played);
+        }, error -> {
+            isMoving = false;
+            throw new IllegalStateException("Could not play the move", error);
+        });
+    }
+
+    /**
+     * The outcome of a move, as handed from the backend to the event dispatch thread.
+     */
+    private static final class PlayedMove {
+        private final GameStatus status;
+        private final Game position;
+        private final int plyCount;
+
+        PlayedMove(GameStatus status, Game position, int plyCount) {
+            this.status = status;
+            this.position = position;
+            this.plyCount = plyCount;
+        }
+    }
+
+    /**
+     * Runs as a backend task, and copies the new position for the event dispatch thread.
+     */
+    private PlayedMove play(Point from, Point to, Move move, PromotionPiece promotion) {
+        long start = System.nanoTime();
+        var status = game.play(from, to, move, promotion);
+        LATENCIES.get(Stage.MOVE).recordSince(start);
+        return new PlayedMove(status, game.snapshot().toGame(), game.plyCount());
+    }
+
+    private void showMove(PlayedMove played) {
+        isMoving = false;
+        live = played.position;
+        livePly = played.plyCount;
+        legalMoves = LegalMoveTable.compute(live, background);
+        showPly(livePly);
+        showStatus(played.status);
+    }
+
+    private void showStatus(GameStatus status) {
+        if (status.mustWarnUser()) {
+            if (status.isGameOver()) {
+                clockTimer.stop();
+            }
+            String text = RESOURCE.getString(status.textCode());
+            String[] options = {RESOURCE.getString("acknowledge")};
+            Frontend.displayDialogText(text, options);
+            if (status.isGameOver()) {
+                tasks.shutdown();
+                frame.dispose();
+            }
+        }
+    }
+
+    private PromotionPiece pawnPromotion() {
+        var text = RESOURCE.getString("pawnPromotionOption");
+        String[] options = {
+                RESOURCE.getString("queen"),
+                RESOURCE.getString("knight"),
+                RESOURCE.getString("rook"),
+                RESOURCE.getString("bishop"),
+        };
+        int promotion = -1;
+        while (promotion < 0) {
+            promotion = displayDialogText(text, options);
+        }
+        switch (promotion) {
+            case 0:
+                return PromotionPiece.QUEEN;
+            case 1:
+                return PromotionPiece.KNIGHT;
+            case 2:
+                return PromotionPiece.ROOK;
+            case 3:
+                return PromotionPiece.BISHOP;
+            default:
+                throw new IllegalStateException("Did not return promotion piece");
+        }
+    }
+
+    private void showExplorer() {
+        var candidates = explorer.candidates(viewed);
+        var text = new StringBuilder();
+        if (candidates.isEmpty()) {
+            text.append(RESOURCE.getString("explorerEmpty"));
+        } else {
+            text.append(RESOURCE.getString("explorerMoves"));
+            int shown = Math.min(candidates.size(), EXPLORER_MOVES);
+            for (var candidate : candidates.subList(0, shown)) {
+                var score = candidate.score();
+                var pattern = Double.isNaN(score) ? "explorerMoveNoResult" : "explorerMove";
+                text.append('\n').append(MessageFormat.format(RESOURCE.getString(pattern),
+                        EncodedMove.toString(candidate.move()), candidate.games(), score));
+            }
+        }
+        String[] options = {RESOURCE.getString("acknowledge")};
+        displayDialogText(text.toString(), options);
+    }
+
+    /**
+     * Shows the position after the given amount of plies, which the backend rebuilds from the
+     * nearest keyframe of the game, replacing any earlier request which it has not answered yet.
+     * Moves can only be played once the current position is shown again.
+     */
+    private void showPly(int ply) {
+        viewedPly = Math.max(0, Math.min(ply, livePly));
+        clickState = ClickState.firstClickInstance();
+        if (scrubbing != null) {
+            scrubbing.cancel();
+        }
+        if (viewedPly == livePly) {
+            viewed = live;
+            refreshPixels();
+            return;
+        }
+        int requested = viewedPly;
+        scrubbing = tasks.submit(() -> game.snapshot(requested).toGame(), SCRUB_DEADLINE_MILLIS,
+                position -> {
+                    viewed = position;
+                    refreshPixels();
+                }, error -> {
+                    // The previous position stays on screen, and the user may simply try again
+                });
+    }
+
+    private void lockOntoPiece(Point point) {
+        long start = System.nanoTime();
+        var piece = live.getAlliedPieceAt(point);
+        if (piece == null) {
+            clickState = ClickState.firstClickInstance();
+            clickNanos = 0;
+        } else {
+            clickState = highlightLegalMoves(piece, point);
+            LATENCIES.get(Stage.LOCK_ONTO_PIECE).recordSince(start);
+        }
+    }
+
+    private ClickState highlightLegalMoves(Piece moving, Point from) {
+        var darkGreen = new Color(0, 100, 40);
+        var lightGreen = new Color(0, 140, 50);
+        long start = System.nanoTime();
+        var moves = availableMoves(moving, from);
+        LATENCIES.get(Stage.AVAILABLE_MOVES).recordSince(start);
+        boolean areThereMoves = false;
+        for (int i = 0; i < Board.BOARD_LENGTH; i++) {
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                if (moves[i][j] != Move.NONE) {
+                    areThereMoves = true;
+                    var usedColor = live.isLightTile(Point.instance(j, i)) ? lightGreen : darkGreen;
+                    drawTileBackgroundGUI(usedColor, j, i);
+                }
+            }
+        }
+        drawAllPiecesGUI();
+        if (areThereMoves) {
+            return ClickState.secondClickInstance(moving, from, moves);
+        }
+        return ClickState.firstClickInstance();
+    }
+
+    /**
+     * Reads the moves from the table built in the background after the last move, or generates
+     * them if the table is not ready yet.
+     */
+    private Move[][] availableMoves(Piece moving, Point from) {
+        if (legalMoves.isDone() && !legalMoves.isCompletedExceptionally()) {
+            return legalMoves.join().availableMoves(from);
+        }
+        return live.availableMoves(moving, from);
+    }
+
+    /**
+     * Manages the square graphics on the graphical user interface, which are drawn by a
+     * {@link BoardRenderer}.
+     */
+    private class GridPane extends JPanel {
+        private static final long serialVersionUID = 1L;
+        private final BoardRenderer renderer = new BoardRenderer();
+
+        GridPane() {
+            addComponentListener(new ComponentAdapter() {
+                @Override
+                public void componentResized(ComponentEvent e) {
+                    refreshPixels();
+                }
+            });
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    if (initDone) {
+                        clickNanos = System.nanoTime();
+                        int horizontalClickPosition = Board.BOARD_WIDTH * e.getX() / getWidth();
+                        int verticalClickPosition = Board.BOARD_LENGTH * e.getY() / getHeight();
+                        handleClick(horizontalClickPosition, verticalClickPosition);
+                    }
+                }
+            });
+            bindKey("LEFT", "previousPly", () -> showPly(viewedPly - 1));
+            bindKey("RIGHT", "nextPly", () -> showPly(viewedPly + 1));
+            bindKey("HOME", "firstPly", () -> showPly(0));
+            bindKey("END", "lastPly", () -> showPly(livePly));
+            bindKey("L", "latencies", () -> {
+                isOverlayShown = !isOverlayShown;
+                repaint();
+            });
+            if (explorer != null) {
+                getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke('e'), "explorer");
+                getActionMap().put("explorer", new AbstractAction() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        if (initDone) {
+                            showExplorer();
+                        }
+                    }
+                });
+            }
+        }
+
+        private void bindKey(String key, String name, Runnable action) {
+            getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), name);
+            getActionMap().put(name, new AbstractAction() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    if (initDone) {
+                        action.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            var screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+            int width = BoardRenderer.BOARD_PIXELS_WIDTH;
+            int length = BoardRenderer.BOARD_PIXELS_LENGTH;
+            int multiplier;
+            if (screenSize.getWidth() < screenSize.getHeight()) {
+                multiplier = (int) (screenSize.getWidth() * 0.8) / width;
+            } else {
+                multiplier = (int) (screenSize.getHeight() * 0.8) / length;
+            }
+            return new Dimension(multiplier * width, multiplier * length);
+        }
+
+        /**
+         * Draws the tiles and the pieces of the position, and repaints the squares which changed.
+         */
+        void show(Color[][] tiles, Game position) {
+            int unit = Math.min(getWidth() / BoardRenderer.BOARD_PIXELS_WIDTH,
+                    getHeight() / BoardRenderer.BOARD_PIXELS_LENGTH);
+            if (unit >= 1 && renderer.show(unit, tiles, position, this::repaint)) {
+                repaint();
+            }
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            long start = System.nanoTime();
+            super.paintComponent(g);
+            var image = renderer.image();
+            if (image != null) {
+                g.drawImage(image, 0, 0, null);
+            }
+            if (isOverlayShown) {
+                paintLatencies(g);
+            }
+            LATENCIES.get(Stage.PAINT).recordSince(start);
+            if (clickNanos != 0) {
+                LATENCIES.get(Stage.CLICK_TO_PAINT).recordSince(clickNanos);
+                clickNanos = 0;
+            }
+        }
+
+        private void paintLatencies(Graphics g) {
+            var lines = latencyReport();
+            var metrics = g.getFontMetrics();
+            int width = 0;
+            for (var line : lines) {
+                width = Math.max(width, metrics.stringWidth(line));
+            }
+            int height = metrics.getHeight();
+            g.setColor(OVERLAY_BACKGROUND);
+            g.fillRect(0, 0, width + 2 * height, (lines.size() + 1) * height);
+            g.setColor(Color.WHITE);
+            for (int i = 0; i < lines.size(); i++) {
+                g.drawString(lines.get(i), height, (i + 1) * height + metrics.getAscent() / 2);
+            }
+        }
+    }
+}